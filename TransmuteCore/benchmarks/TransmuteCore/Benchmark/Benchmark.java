@@ -0,0 +1,15 @@
+package TransmuteCore.Benchmark;
+
+/**
+ * {@code Benchmark} is a single measured operation.
+ * <br>
+ * Implementations should hand their results to {@link BenchmarkRunner#consume(Object)}
+ * (or one of its overloads) so the JIT cannot eliminate the measured work.
+ */
+public interface Benchmark
+{
+    /**
+     * Runs the measured operation once.
+     */
+    void run();
+}
@@ -0,0 +1,167 @@
+package TransmuteCore.Benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import TransmuteCore.Graphics.GraphicsBenchmarks;
+import TransmuteCore.Level.LevelBenchmarks;
+import TransmuteCore.Serialization.SerializationBenchmarks;
+
+/**
+ * {@code BenchmarkRunner} measures the engine's hot paths.
+ * <br>
+ * Every benchmark is warmed up for {@link #WARMUP_ROUNDS} rounds and then measured
+ * for {@link #MEASURE_ROUNDS} rounds of about {@link #ROUND_MILLIS} ms each. The
+ * reported score is the mean time per operation across the measured rounds, with
+ * a 99.9% confidence interval as its error, in the same layout as JMH's average
+ * time mode.
+ * <p>
+ * Usage: {@code java -cp <classes> TransmuteCore.Benchmark.BenchmarkRunner [filter]},
+ * where {@code filter} runs only the benchmarks whose name contains it.
+ */
+public class BenchmarkRunner
+{
+    public static final int WARMUP_ROUNDS = 5; //Rounds run before measuring
+    public static final int MEASURE_ROUNDS = 10; //Rounds measured
+    public static final int ROUND_MILLIS = 200; //Duration of a single round
+
+    private static final double Z_999 = 3.291; //Two-sided 99.9% quantile of the normal distribution
+
+    private static volatile Object sink; //Receives consumed values so the JIT keeps the work that produced them
+    private static volatile long sinkValue; //Receives consumed primitive values
+
+    private final List<String> names = new ArrayList<>(); //Registered benchmark names
+    private final List<Benchmark> benchmarks = new ArrayList<>(); //Registered benchmarks
+    private final String filter; //Only benchmarks whose name contains this are run
+
+    /**
+     * Creates a runner.
+     *
+     * @param filter Only benchmarks whose name contains this are run (empty for all).
+     */
+    public BenchmarkRunner(String filter)
+    {
+        this.filter = filter;
+    }
+
+    /**
+     * Registers a benchmark.
+     *
+     * @param name      Unique name of the benchmark, e.g. {@code Graphics.renderBitmapOpaque}.
+     * @param benchmark The measured operation.
+     */
+    public void add(String name, Benchmark benchmark)
+    {
+        if (!name.contains(filter)) return;
+
+        names.add(name);
+        benchmarks.add(benchmark);
+    }
+
+    /**
+     * Runs every registered benchmark, printing one result line per benchmark.
+     */
+    public void run()
+    {
+        System.out.println(String.format(Locale.ROOT, "%-48s %5s %4s %14s   %12s  %s",
+                "Benchmark", "Mode", "Cnt", "Score", "Error", "Units"));
+
+        for (int i = 0; i < benchmarks.size(); i++)
+        {
+            Benchmark benchmark = benchmarks.get(i);
+            long batch = calibrate(benchmark);
+
+            for (int round = 0; round < WARMUP_ROUNDS; round++) measure(benchmark, batch);
+
+            double[] scores = new double[MEASURE_ROUNDS];
+            double mean = 0;
+            for (int round = 0; round < MEASURE_ROUNDS; round++)
+            {
+                scores[round] = measure(benchmark, batch);
+                mean += scores[round] / MEASURE_ROUNDS;
+            }
+
+            double variance = 0;
+            for (double score : scores) variance += (score - mean) * (score - mean) / (MEASURE_ROUNDS - 1);
+            double error = Z_999 * Math.sqrt(variance / MEASURE_ROUNDS);
+
+            System.out.println(String.format(Locale.ROOT, "%-48s %5s %4d %14.3f +- %12.3f  %s",
+                    names.get(i), "avgt", MEASURE_ROUNDS, mean, error, "ns/op"));
+        }
+    }
+
+    /**
+     * Finds a batch size for which timing a batch takes about a millisecond,
+     * so reading the clock does not weigh on the result.
+     */
+    private long calibrate(Benchmark benchmark)
+    {
+        long batch = 1;
+        while (true)
+        {
+            long start = System.nanoTime();
+            for (long i = 0; i < batch; i++) benchmark.run();
+            long elapsed = System.nanoTime() - start;
+
+            if (elapsed >= 1000000L || batch >= (1L << 30)) return batch;
+            batch *= 2;
+        }
+    }
+
+    /**
+     * Runs a benchmark in batches for one round.
+     *
+     * @return The mean time per operation in the round, in nanoseconds.
+     */
+    private double measure(Benchmark benchmark, long batch)
+    {
+        long operations = 0;
+        long start = System.nanoTime(), elapsed;
+        do
+        {
+            for (long i = 0; i < batch; i++) benchmark.run();
+            operations += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_MILLIS * 1000000L);
+
+        return (double) elapsed / operations;
+    }
+
+    /**
+     * Keeps a value alive so the work that produced it is not eliminated.
+     *
+     * @param value Result of a measured operation.
+     */
+    public static void consume(Object value)
+    {
+        sink = value;
+    }
+
+    /**
+     * Keeps a value alive so the work that produced it is not eliminated.
+     *
+     * @param value Result of a measured operation.
+     */
+    public static void consume(long value)
+    {
+        sinkValue = value;
+    }
+
+    public static void main(String[] args)
+    {
+        BenchmarkRunner runner = new BenchmarkRunner(args.length > 0 ? args[0] : "");
+
+        List<Suite> suites = new ArrayList<>();
+        suites.add(new GraphicsBenchmarks());
+        suites.add(new LevelBenchmarks());
+        suites.add(new SerializationBenchmarks());
+        for (Suite suite : suites) suite.register(runner);
+
+        System.out.println(String.format(Locale.ROOT, "# JVM: %s %s, %s (%s), %d cpus",
+                System.getProperty("java.vm.name"), System.getProperty("java.version"),
+                System.getProperty("os.name"), System.getProperty("os.arch"),
+                Runtime.getRuntime().availableProcessors()));
+        runner.run();
+    }
+}
@@ -0,0 +1,14 @@
+package TransmuteCore.Benchmark;
+
+/**
+ * {@code Suite} is a group of benchmarks covering one part of the engine.
+ */
+public interface Suite
+{
+    /**
+     * Prepares the suite's fixtures and registers its benchmarks.
+     *
+     * @param runner The runner to register benchmarks with.
+     */
+    void register(BenchmarkRunner runner);
+}
@@ -0,0 +1,100 @@
+package TransmuteCore.Graphics;
+
+import java.awt.image.BufferedImage;
+
+import TransmuteCore.Benchmark.BenchmarkRunner;
+import TransmuteCore.Benchmark.Suite;
+import TransmuteCore.Graphics.Sprites.Spritesheet;
+import TransmuteCore.System.Asset.Type.Fonts.Font;
+import TransmuteCore.Units.Tuple2i;
+
+/**
+ * {@code GraphicsBenchmarks} covers bitmap blitting, rectangle fills, color
+ * tinting, text rendering and bitmap transformations.
+ */
+public class GraphicsBenchmarks implements Suite
+{
+    private static final int CONTEXT_WIDTH = 320;
+    private static final int CONTEXT_HEIGHT = 180;
+    private static final int SPRITE_SIZE = 32;
+    private static final String GLYPHS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ"
+            + "abcdefghijklmnopqrstuvwxyz"
+            + "0123456789;'\"           \n"
+            + "!@#$%^&*()-+_=~.,<>?/\\[]|:";
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog 0123456789";
+
+    @Override
+    public void register(BenchmarkRunner runner)
+    {
+        Context ctx = new Context(CONTEXT_WIDTH, CONTEXT_HEIGHT);
+        Bitmap opaque = new Bitmap(generate(SPRITE_SIZE, SPRITE_SIZE, false), SPRITE_SIZE, SPRITE_SIZE);
+        Bitmap translucent = new Bitmap(generate(SPRITE_SIZE, SPRITE_SIZE, true), SPRITE_SIZE, SPRITE_SIZE);
+        BufferedImage sheetImage = toImage(generate(256, 256, true), 256, 256);
+        Font font = createFont();
+
+        runner.add("Graphics.renderBitmapOpaque", () -> ctx.renderBitmap(opaque, 40, 40));
+        runner.add("Graphics.renderBitmapAlpha", () -> ctx.renderBitmap(translucent, 40, 40, 0.5f));
+        runner.add("Graphics.renderBitmapTinted", () -> ctx.renderBitmap(translucent, 40, 40, 1.0f, 0x80FF0000));
+        runner.add("Graphics.renderBitmapScaled", () -> ctx.renderBitmap(translucent, 40, 40, 1.0f, 2.0f));
+        runner.add("Graphics.renderFilledRectangleOpaque", () -> ctx.renderFilledRectangle(40, 40, 64, 64, 0xFF336699));
+        runner.add("Graphics.renderFilledRectangleAlpha", () -> ctx.renderFilledRectangle(40, 40, 64, 64, 0x80336699));
+        runner.add("Graphics.renderText", () -> font.render(ctx, TEXT, 4, 4, 0xFFFFFFFF, 1.0f, 1.0f));
+
+        int[] pixels = translucent.getData();
+        runner.add("Graphics.colorTint", () ->
+        {
+            long sum = 0;
+            for (int pixel : pixels) sum += Color.tint(pixel, 0x80FF0000);
+            BenchmarkRunner.consume(sum);
+        });
+
+        runner.add("Graphics.bitmapGetFlipped", () -> BenchmarkRunner.consume(translucent.getFlipped(true, false)));
+        runner.add("Graphics.bitmapGetScaled", () -> BenchmarkRunner.consume(translucent.getScaled(2.0f)));
+        runner.add("Graphics.spritesheetConstruct", () -> BenchmarkRunner.consume(new Spritesheet(sheetImage, 16)));
+    }
+
+    /**
+     * Generates deterministic pixel data, optionally with varying alpha.
+     */
+    static int[] generate(int width, int height, boolean translucent)
+    {
+        int[] data = new int[width * height];
+        for (int i = 0; i < data.length; i++)
+        {
+            int alpha = translucent ? (i * 37) & 0xFF : 0xFF;
+            data[i] = (alpha << 24) | ((i * 0x9E3779B1) & 0xFFFFFF);
+        }
+
+        return data;
+    }
+
+    /**
+     * Wraps pixel data in an ARGB image.
+     */
+    private static BufferedImage toImage(int[] data, int width, int height)
+    {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, data, 0, width);
+        return image;
+    }
+
+    /**
+     * Creates a font with the default font's layout over a generated glyph sheet,
+     * so the benchmark does not depend on resources.
+     */
+    private static Font createFont()
+    {
+        Tuple2i glyphSize = new Tuple2i(8, 10);
+        BufferedImage glyphs = toImage(generate(26 * 8, 4 * 10, true), 26 * 8, 4 * 10);
+        Font font = new Font("$benchmark", "benchmark.png", GLYPHS, 4, 26, glyphSize)
+        {
+            @Override
+            public void load()
+            {
+                target = new Spritesheet(glyphs, glyphSize, new Tuple2i(0, 0), 0, 0);
+            }
+        };
+        font.load();
+        return font;
+    }
+}
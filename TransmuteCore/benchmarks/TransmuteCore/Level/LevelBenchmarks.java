@@ -0,0 +1,296 @@
+package TransmuteCore.Level;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import TransmuteCore.Benchmark.BenchmarkRunner;
+import TransmuteCore.Benchmark.Suite;
+import TransmuteCore.GameEngine.Manager;
+import TransmuteCore.Graphics.Context;
+import TransmuteCore.Graphics.Sprites.Sprite;
+import TransmuteCore.Objects.Pathfinding.AStar;
+import TransmuteCore.Objects.Pathfinding.DStarLite;
+import TransmuteCore.Objects.Pathfinding.FlowField;
+import TransmuteCore.Objects.Pathfinding.HierarchicalAStar;
+import TransmuteCore.Objects.Pathfinding.JumpPointSearch;
+import TransmuteCore.Objects.Pathfinding.PathRequest;
+import TransmuteCore.Objects.Pathfinding.PathService;
+import TransmuteCore.Objects.Type.Mob;
+import TransmuteCore.Units.Tuple2i;
+import TransmuteCore.Units.Vector2i;
+
+/**
+ * {@code LevelBenchmarks} covers path-finding on generated maps and
+ * neighbourhood queries over a populated level.
+ */
+public class LevelBenchmarks implements Suite
+{
+    private static final int[] MAP_SIZES = {16, 32, 64, 256}; //Width and height of the generated path-finding maps
+    private static final int[] MAZE_SIZES = {64, 256}; //Width and height of the generated path-finding mazes
+    private static final int[] OPEN_SIZES = {64, 256}; //Width and height of the generated maps without walls
+    private static final int[] JUMP_POINT_SIZES = {64, 256}; //Width and height of the maps searched with jump points
+    private static final int[] HIERARCHICAL_SIZES = {256, 1024}; //Width and height of the maps searched hierarchically
+    private static final int[] FLOW_FIELD_SIZES = {256, 1024}; //Width and height of the maps covered by flow fields
+    private static final int[] REPLAN_SIZES = {64, 256}; //Width and height of the maps replanned after a tile change
+    private static final int WAVE_SIZE = 200; //Number of path requests submitted at once
+    private static final int[] MOB_COUNTS = {100, 1000, 10000}; //Number of mobs in the generated levels
+    private static final float WALL_DENSITY = 0.2f; //Fraction of solid tiles
+    private static final int FLOOR = 0x0; //Tile key of walkable tiles
+    private static final int WALL = 0x1; //Tile key of solid tiles
+
+    @Override
+    public void register(BenchmarkRunner runner)
+    {
+        for (int size : MAP_SIZES)
+        {
+            AStar aStar = new AStar(generateMap(size));
+            Vector2i start = new Vector2i(1, 1);
+            Vector2i goal = new Vector2i(size - 2, size - 2);
+            runner.add("Level.aStarFindPath" + size + "x" + size, () -> BenchmarkRunner.consume(aStar.findPath(start, goal)));
+        }
+
+        for (int size : MAZE_SIZES)
+        {
+            AStar aStar = new AStar(generateMaze(size));
+            Vector2i start = new Vector2i(1, 1);
+            Vector2i goal = new Vector2i(size - 2, size - 2);
+            runner.add("Level.aStarFindPathMaze" + size + "x" + size, () -> BenchmarkRunner.consume(aStar.findPath(start, goal)));
+        }
+
+        for (int size : OPEN_SIZES)
+        {
+            AStar aStar = new AStar(generateMap(size, 0));
+            Vector2i start = new Vector2i(1, 1);
+            Vector2i goal = new Vector2i(size - 2, size - 2);
+            runner.add("Level.aStarFindPathOpen" + size + "x" + size, () -> BenchmarkRunner.consume(aStar.findPath(start, goal)));
+        }
+
+        for (int size : JUMP_POINT_SIZES)
+        {
+            Vector2i start = new Vector2i(1, 1);
+            Vector2i goal = new Vector2i(size - 2, size - 2);
+            TiledLevel[] levels = {generateMap(size), generateMap(size, 0), generateMaze(size)};
+            String[] names = {"", "Open", "Maze"};
+            for (int i = 0; i < levels.length; i++)
+            {
+                JumpPointSearch jumpPoint = new JumpPointSearch(levels[i]);
+                runner.add("Level.jumpPointFindPath" + names[i] + size + "x" + size, () -> BenchmarkRunner.consume(jumpPoint.findPath(start, goal)));
+
+                JumpPointSearch precomputed = new JumpPointSearch(levels[i]);
+                precomputed.precompute();
+                runner.add("Level.jumpPointPlusFindPath" + names[i] + size + "x" + size, () -> BenchmarkRunner.consume(precomputed.findPath(start, goal)));
+            }
+        }
+
+        for (int size : HIERARCHICAL_SIZES)
+        {
+            Vector2i start = new Vector2i(1, 1);
+            Vector2i goal = new Vector2i(size - 2, size - 2);
+            HierarchicalAStar map = new HierarchicalAStar(generateMap(size));
+            runner.add("Level.hierarchicalFindPath" + size + "x" + size, () -> BenchmarkRunner.consume(map.findPath(start, goal)));
+            runner.add("Level.hierarchicalFindWaypoints" + size + "x" + size, () -> BenchmarkRunner.consume(map.findHierarchicalPath(start, goal)));
+
+            HierarchicalAStar maze = new HierarchicalAStar(generateMaze(size));
+            runner.add("Level.hierarchicalFindPathMaze" + size + "x" + size, () -> BenchmarkRunner.consume(maze.findPath(start, goal)));
+
+            TiledLevel level = map.getLevel();
+            int x = size / 2, y = size / 2;
+            runner.add("Level.hierarchicalToggleTile" + size + "x" + size, () ->
+            {
+                level.setTile(x, y, level.getTileKey(x, y) == WALL ? FLOOR : WALL);
+                map.invalidate(x, y);
+                map.update();
+            });
+        }
+
+        for (int size : REPLAN_SIZES)
+        {
+            Vector2i start = new Vector2i(1, 1);
+            Vector2i goal = new Vector2i(size - 2, size - 2);
+            int x = size / 2, y = size / 2;
+
+            TiledLevel level = generateMap(size);
+            AStar aStar = new AStar(level);
+            runner.add("Level.aStarReplan" + size + "x" + size, () ->
+            {
+                level.setTile(x, y, level.getTileKey(x, y) == WALL ? FLOOR : WALL);
+                BenchmarkRunner.consume(aStar.findPath(start, goal));
+            });
+
+            TiledLevel replanned = generateMap(size);
+            DStarLite planner = new DStarLite(replanned, goal);
+            replanned.addTileListener(planner);
+            planner.findPath(start);
+            runner.add("Level.dStarLiteReplan" + size + "x" + size, () ->
+            {
+                replanned.setTile(x, y, replanned.getTileKey(x, y) == WALL ? FLOOR : WALL);
+                BenchmarkRunner.consume(planner.findPath(start));
+            });
+        }
+
+        TiledLevel waveLevel = generateMap(128);
+        Vector2i[] starts = new Vector2i[WAVE_SIZE];
+        Vector2i[] goals = new Vector2i[WAVE_SIZE];
+        Random waveRandom = new Random(WAVE_SIZE);
+        for (int i = 0; i < WAVE_SIZE; i++)
+        {
+            starts[i] = new Vector2i(1 + waveRandom.nextInt(24), 1 + waveRandom.nextInt(24));
+            goals[i] = new Vector2i(126 - (i % 4) * 8, 126);
+            waveLevel.setTile(starts[i].x, starts[i].y, FLOOR);
+            waveLevel.setTile(goals[i].x, goals[i].y, FLOOR);
+        }
+
+        AStar waveSearch = new AStar(waveLevel);
+        runner.add("Level.aStarWave" + WAVE_SIZE, () ->
+        {
+            for (int i = 0; i < WAVE_SIZE; i++) BenchmarkRunner.consume(waveSearch.findPath(starts[i], goals[i]));
+        });
+
+        PathService service = new PathService(waveLevel);
+        PathRequest[] requests = new PathRequest[WAVE_SIZE];
+        runner.add("Level.pathServiceWave" + WAVE_SIZE, () ->
+        {
+            for (int i = 0; i < WAVE_SIZE; i++) requests[i] = service.submit(starts[i], goals[i]);
+            for (PathRequest request : requests)
+            {
+                while (!request.isDone()) service.update(null, 0);
+            }
+        });
+
+        for (int size : FLOW_FIELD_SIZES)
+        {
+            FlowField field = new FlowField(generateMap(size));
+            int center = size / 2;
+            field.getLevel().setTile(center, center, FLOOR);
+            field.getLevel().setTile(center + 1, center, FLOOR);
+            runner.add("Level.flowFieldBuild" + size + "x" + size, () ->
+            {
+                field.setGoal(center, center);
+                field.rebuild();
+            });
+
+            int[] step = {0};
+            runner.add("Level.flowFieldMoveGoal" + size + "x" + size, () -> field.setGoal(center + (step[0]++ & 1), center));
+        }
+
+        FlowField waveField = new FlowField(waveLevel);
+        runner.add("Level.flowFieldWave" + WAVE_SIZE, () ->
+        {
+            waveField.setGoal(goals[0].x, goals[0].y);
+            waveField.rebuild();
+            for (Vector2i start : starts) BenchmarkRunner.consume(waveField.getDirection(start.x, start.y));
+        });
+
+        for (int count : MOB_COUNTS)
+        {
+            TiledLevel level = new TiledLevel(64, 64);
+            level.setTileSize(16);
+            Random random = new Random(count);
+            for (int i = 0; i < count; i++)
+                level.add(new BenchmarkMob(new Tuple2i(random.nextInt(1024), random.nextInt(1024))));
+
+            Mob center = new BenchmarkMob(new Tuple2i(512, 512));
+            level.add(center);
+            runner.add("Level.getMobs" + count, () -> BenchmarkRunner.consume(level.getMobs(center, 64)));
+
+            List<Mob> result = new ArrayList<>();
+            runner.add("Level.getMobsBuffered" + count, () -> BenchmarkRunner.consume(level.getMobs(center, 64, result)));
+        }
+    }
+
+    /**
+     * Generates a square map with randomly placed walls, a solid border
+     * and open corners for the path end-points.
+     */
+    static TiledLevel generateMap(int size)
+    {
+        return generateMap(size, WALL_DENSITY);
+    }
+
+    /**
+     * Generates a square map with a given fraction of randomly placed walls,
+     * a solid border and open corners for the path end-points.
+     */
+    static TiledLevel generateMap(int size, float wallDensity)
+    {
+        Random random = new Random(size);
+        int[] tiles = new int[size * size];
+        for (int y = 0; y < size; y++)
+        {
+            for (int x = 0; x < size; x++)
+            {
+                boolean border = x == 0 || y == 0 || x == size - 1 || y == size - 1;
+                tiles[x + y * size] = border || random.nextFloat() < wallDensity ? WALL : FLOOR;
+            }
+        }
+        tiles[1 + size] = FLOOR;
+        tiles[(size - 2) + (size - 2) * size] = FLOOR;
+
+        return createLevel(size, tiles);
+    }
+
+    /**
+     * Generates a square maze of horizontal walls with a single gap each,
+     * alternating between the right and left ends, so the path between the
+     * top-left and bottom-right corners winds through the whole map.
+     */
+    static TiledLevel generateMaze(int size)
+    {
+        int[] tiles = new int[size * size];
+        for (int y = 0; y < size; y++)
+        {
+            int gap = (y / 4) % 2 == 0 ? size - 2 : 1;
+            for (int x = 0; x < size; x++)
+            {
+                boolean border = x == 0 || y == 0 || x == size - 1 || y == size - 1;
+                tiles[x + y * size] = border || (y % 4 == 2 && x != gap) ? WALL : FLOOR;
+            }
+        }
+        tiles[(size - 2) + (size - 2) * size] = FLOOR;
+
+        return createLevel(size, tiles);
+    }
+
+    /**
+     * Creates a square level of floor and wall tiles.
+     */
+    private static TiledLevel createLevel(int size, int[] tiles)
+    {
+        TiledLevel level = new TiledLevel(size, size);
+        level.setTileSize(16);
+        level.addTile(FLOOR, new Tile((Sprite) null, 16, 16, FLOOR));
+        level.addTile(WALL, new Tile((Sprite) null, 16, 16, WALL)
+        {
+            @Override
+            public boolean isSolid()
+            {
+                return true;
+            }
+        });
+        level.setData(tiles);
+
+        return level;
+    }
+
+    /**
+     * A mob that does nothing, used to populate levels.
+     */
+    private static class BenchmarkMob extends Mob
+    {
+        BenchmarkMob(Tuple2i location)
+        {
+            super(null, "benchmark", location);
+        }
+
+        @Override
+        public void update(Manager manager, double delta)
+        {
+        }
+
+        @Override
+        public void render(Manager manager, Context ctx)
+        {
+        }
+    }
+}
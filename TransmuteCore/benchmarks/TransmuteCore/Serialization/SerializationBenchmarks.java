@@ -0,0 +1,65 @@
+package TransmuteCore.Serialization;
+
+import java.io.File;
+import java.io.IOException;
+
+import TransmuteCore.Benchmark.BenchmarkRunner;
+import TransmuteCore.Benchmark.Suite;
+
+/**
+ * {@code SerializationBenchmarks} covers {@code TinyDatabase} round-trips
+ * through a temporary file.
+ */
+public class SerializationBenchmarks implements Suite
+{
+    private static final int[] OBJECT_COUNTS = {16, 256, 4096}; //Number of objects in the generated databases
+
+    @Override
+    public void register(BenchmarkRunner runner)
+    {
+        File file;
+        try
+        {
+            file = File.createTempFile("transmute-benchmark", ".tdb");
+            file.deleteOnExit();
+        } catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        String path = file.getPath();
+
+        for (int count : OBJECT_COUNTS)
+        {
+            TinyDatabase database = generate(count);
+            runner.add("Serialization.roundTrip" + count, () ->
+            {
+                database.serializeToFile(path);
+                BenchmarkRunner.consume(TinyDatabase.DeserializeFromFile(path));
+            });
+        }
+    }
+
+    /**
+     * Generates a database of objects holding a mix of fields, strings and arrays.
+     */
+    static TinyDatabase generate(int objectCount)
+    {
+        TinyDatabase database = new TinyDatabase("benchmark");
+        for (int i = 0; i < objectCount; i++)
+        {
+            TinyObject object = new TinyObject("object" + i);
+            object.addField(TinyField.Integer("id", i));
+            object.addField(TinyField.Float("x", i * 1.5f));
+            object.addField(TinyField.Float("y", i * 2.5f));
+            object.addField(TinyField.Boolean("active", (i & 1) == 0));
+            object.addString(TinyString.Create("name", "Object number " + i));
+
+            int[] data = new int[64];
+            for (int j = 0; j < data.length; j++) data[j] = i * j;
+            object.addArray(TinyArray.Integer("data", data));
+            database.addObject(object);
+        }
+
+        return database;
+    }
+}
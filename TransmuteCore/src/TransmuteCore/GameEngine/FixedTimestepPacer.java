@@ -0,0 +1,203 @@
+package TransmuteCore.GameEngine;
+
+import TransmuteCore.GameEngine.Interfaces.FramePacer;
+
+/**
+ * {@code FixedTimestepPacer} is the default frame pacer of the game loop.
+ * <br>
+ * Updates run at a fixed tick rate with a {@code delta} of 1, and the time left over
+ * between ticks is exposed as an interpolation alpha for rendering. Frames are
+ * rendered either after every batch of updates, at a separate frame rate cap, or
+ * uncapped. When the game falls behind, at most {@code maxCatchUpTicks} updates are
+ * run at once and the rest of the backlog is dropped, avoiding a spiral of death.
+ * <p>
+ * Waiting sleeps in 1 ms steps while the deadline is further away than the measured
+ * sleep overshoot, then yields until the deadline, which keeps frame times accurate
+ * without spinning for the whole wait.
+ */
+public class FixedTimestepPacer implements FramePacer
+{
+    public static final int RENDER_ON_UPDATE = 0; //Renders once after every batch of updates
+    public static final int UNCAPPED = -1; //Renders on every loop iteration
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final long SLEEP_REQUEST = 1000000L; //Requested duration of a single sleep step (1 ms)
+    private static final int MAX_SLEEP_SAMPLES = 1000; //Sleep samples after which older ones lose weight
+
+    private long tickNanos; //Duration of a single tick
+    private long frameNanos; //Minimum duration of a frame when the frame rate is capped
+    private int frameRateCap = RENDER_ON_UPDATE; //Frame rate cap, RENDER_ON_UPDATE or UNCAPPED
+    private int maxCatchUpTicks = 5; //Maximum number of updates run in a single loop iteration
+
+    private long lastTime; //Time of the previous call to getTicksDue()
+    private long accumulator; //Time not yet consumed by updates
+    private long nextFrameTime; //Earliest time of the next frame when the frame rate is capped
+
+    private double sleepMean = SLEEP_REQUEST; //Mean measured duration of a sleep step
+    private double sleepVariance; //Running sum of squared deviations of the sleep steps
+    private int sleepSamples; //Number of sleep steps measured
+    private long sleepEstimate = 2 * SLEEP_REQUEST; //Pessimistic duration of a sleep step
+
+    /**
+     * Creates a pacer with a given tick rate.
+     *
+     * @param ticksPerSecond Desired updates per second.
+     */
+    public FixedTimestepPacer(int ticksPerSecond)
+    {
+        setTickRate(ticksPerSecond);
+        reset(System.nanoTime());
+    }
+
+    @Override
+    public void reset(long now)
+    {
+        lastTime = now;
+        accumulator = 0;
+        nextFrameTime = now;
+    }
+
+    @Override
+    public int getTicksDue(long now)
+    {
+        accumulator += now - lastTime;
+        lastTime = now;
+
+        long due = accumulator / tickNanos;
+        if (due > maxCatchUpTicks)
+        {
+            accumulator %= tickNanos;
+            return maxCatchUpTicks;
+        }
+
+        accumulator -= due * tickNanos;
+        return (int) due;
+    }
+
+    @Override
+    public boolean shouldRender(long now, int ticksRun)
+    {
+        if (frameRateCap == RENDER_ON_UPDATE) return ticksRun > 0;
+        if (frameRateCap == UNCAPPED) return true;
+        if (now < nextFrameTime) return false;
+
+        nextFrameTime += frameNanos;
+        if (nextFrameTime < now) nextFrameTime = now + frameNanos;
+        return true;
+    }
+
+    @Override
+    public double getAlpha()
+    {
+        return (double) accumulator / tickNanos;
+    }
+
+    @Override
+    public double getDelta()
+    {
+        return 1d;
+    }
+
+    @Override
+    public void setTickRate(int ticksPerSecond)
+    {
+        this.tickNanos = NANOS_PER_SECOND / Math.max(1, ticksPerSecond);
+    }
+
+    @Override
+    public void waitForNext()
+    {
+        if (frameRateCap == UNCAPPED) return;
+
+        long deadline = lastTime + tickNanos - accumulator;
+        if (frameRateCap > 0) deadline = Math.min(deadline, nextFrameTime);
+
+        while (true)
+        {
+            long now = System.nanoTime();
+            long remaining = deadline - now;
+            if (remaining <= 0) return;
+
+            if (remaining > sleepEstimate)
+            {
+                try
+                {
+                    Thread.sleep(SLEEP_REQUEST / 1000000L);
+                } catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                addSleepSample(System.nanoTime() - now);
+            } else
+            {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Updates the sleep overshoot estimate with a measured sleep step, keeping
+     * it at the mean plus one standard deviation of the measurements.
+     *
+     * @param duration Measured duration of a sleep step, in nanoseconds.
+     */
+    private void addSleepSample(long duration)
+    {
+        if (sleepSamples < MAX_SLEEP_SAMPLES) sleepSamples++;
+
+        double deviation = duration - sleepMean;
+        sleepMean += deviation / sleepSamples;
+        sleepVariance += deviation * (duration - sleepMean);
+        if (sleepSamples == MAX_SLEEP_SAMPLES) sleepVariance *= (double) (MAX_SLEEP_SAMPLES - 1) / MAX_SLEEP_SAMPLES;
+
+        double stdDev = sleepSamples > 1 ? Math.sqrt(sleepVariance / (sleepSamples - 1)) : 0d;
+        sleepEstimate = (long) (sleepMean + stdDev);
+    }
+
+    /**
+     * Sets the frame rate cap, independent of the tick rate.
+     *
+     * @param frameRateCap Maximum frames per second, {@code RENDER_ON_UPDATE} or {@code UNCAPPED}.
+     */
+    public void setFrameRateCap(int frameRateCap)
+    {
+        this.frameRateCap = frameRateCap;
+        if (frameRateCap > 0) frameNanos = NANOS_PER_SECOND / frameRateCap;
+    }
+
+    /**
+     * @return The frame rate cap, {@code RENDER_ON_UPDATE} or {@code UNCAPPED}.
+     */
+    public int getFrameRateCap()
+    {
+        return frameRateCap;
+    }
+
+    /**
+     * Sets the maximum number of updates run in a single loop iteration.
+     * Time beyond that is dropped, slowing the game down instead of stalling it.
+     *
+     * @param maxCatchUpTicks Maximum number of updates per loop iteration.
+     */
+    public void setMaxCatchUpTicks(int maxCatchUpTicks)
+    {
+        this.maxCatchUpTicks = Math.max(1, maxCatchUpTicks);
+    }
+
+    /**
+     * @return The maximum number of updates run in a single loop iteration.
+     */
+    public int getMaxCatchUpTicks()
+    {
+        return maxCatchUpTicks;
+    }
+
+    /**
+     * @return The current estimate of how long a 1 ms sleep really takes, in nanoseconds.
+     */
+    public long getSleepEstimate()
+    {
+        return sleepEstimate;
+    }
+}
@@ -32,4 +32,18 @@ public interface Cortex
      * @param ctx     The Game render 'canvas'.
      */
     void render(Manager manager, Context ctx);
+
+    /**
+     * Renders all of the game objects with an interpolation factor, letting games
+     * draw moving objects between their last and next update positions.
+     * Defaults to {@code render(manager, ctx)}.
+     *
+     * @param manager The engine manager object.
+     * @param ctx     The Game render 'canvas'.
+     * @param alpha   Interpolation factor between the last update and the next one (0 - 1).
+     */
+    default void render(Manager manager, Context ctx, double alpha)
+    {
+        render(manager, ctx);
+    }
 }
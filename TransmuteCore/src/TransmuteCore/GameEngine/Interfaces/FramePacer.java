@@ -0,0 +1,56 @@
+package TransmuteCore.GameEngine.Interfaces;
+
+/**
+ * {@code FramePacer} is the game loop's pacing interface class.
+ * <br>
+ * This class decides how many fixed updates the game loop runs, when it renders and how it waits in between.
+ */
+public interface FramePacer
+{
+    /**
+     * Restarts pacing from a given moment, discarding any accumulated time.
+     *
+     * @param now The current time, in nanoseconds.
+     */
+    void reset(long now);
+
+    /**
+     * Supplies the number of fixed updates to run now and consumes their time.
+     *
+     * @param now The current time, in nanoseconds.
+     * @return The number of updates to run.
+     */
+    int getTicksDue(long now);
+
+    /**
+     * Decides whether a frame should be rendered now.
+     *
+     * @param now      The current time, in nanoseconds.
+     * @param ticksRun The number of updates that were just run.
+     * @return Weather or not to render a frame.
+     */
+    boolean shouldRender(long now, int ticksRun);
+
+    /**
+     * @return How far the game is between the last update and the next one (0 - 1),
+     * used to interpolate rendering.
+     */
+    double getAlpha();
+
+    /**
+     * @return The time step passed to every update.
+     */
+    double getDelta();
+
+    /**
+     * Sets the number of updates per second.
+     *
+     * @param ticksPerSecond Desired updates per second.
+     */
+    void setTickRate(int ticksPerSecond);
+
+    /**
+     * Waits until the next update or frame is due.
+     */
+    void waitForNext();
+}
@@ -1,5 +1,6 @@
 package TransmuteCore.GameEngine;
 
+import java.awt.BufferCapabilities;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GraphicsEnvironment;
@@ -7,9 +8,12 @@ import java.awt.image.BufferStrategy;
 import java.awt.image.VolatileImage;
 
 import TransmuteCore.GameEngine.Interfaces.Cortex;
+import TransmuteCore.GameEngine.Interfaces.FramePacer;
 import TransmuteCore.Graphics.Context;
+import TransmuteCore.Graphics.DirtyRegion;
 import TransmuteCore.Input.Input;
 import TransmuteCore.System.Error;
+import TransmuteCore.System.Profiler;
 import TransmuteCore.System.Util;
 import TransmuteCore.System.Asset.AssetManager;
 
@@ -32,8 +36,11 @@ public abstract class TransmuteCore implements Runnable, Cortex
     private static String gameVersion; //The version of the game
     private static final int WideScreen = 0x0; //16 x 9 Aspect Ratio
     public static final int Square = 0x1; // 4 x 3 Aspect Ratio
+    public static final int WINDOWED = 0x0; //Renders to a game window at the target FPS
+    public static final int HEADLESS = 0x1; //No window, renders to an offscreen context as fast as possible
+    public static final int HEADLESS_NO_RENDER = 0x2; //No window and no rendering, only updates as fast as possible
 
-    private boolean isRunning = false; //The variable that controls if game is running or not
+    private volatile boolean isRunning = false; //The variable that controls if game is running or not
     private static final String ERROR_MESSAGE = "Failed to Load " + gameTitle + " " + gameVersion; //Basic error message
     @SuppressWarnings("unused")
     private long start = System.currentTimeMillis(); //The tile timer
@@ -44,10 +51,17 @@ public abstract class TransmuteCore implements Runnable, Cortex
     private GameWindow gameWindow; //The game window handler
     private Context ctx; //Game render 'canvas'
     private VolatileImage nativeImage; //Native hardware accelerated canvas image
+    private DirtyRegion[] presentHistory; //Dirty regions of the last 'numBuffers' frames
+    private DirtyRegion presentRegion; //Region of the context copied to the screen this frame
+    private int presentFrame; //Index of the next entry in 'presentHistory'
     private int numBuffers = 3; //Number of BufferStrategy to use (higher prevents flicker, but slows performance)
     private int targetFPS = 60; //Desired FPS performance (Default Value = 60 FPS)
     private double delta = 0d; //Time elapsed between each frame
+    private volatile FramePacer pacer; //Schedules updates and frames of the game loop
     private Input input; //The game input handler
+    private int displayMode = WINDOWED; //Whether the engine runs windowed or headless
+    private volatile long maxTicks = 0; //Number of updates after which the engine stops, in any display mode (0 runs forever)
+    private volatile long ticks = 0; //Number of updates since the game loop started
 
     protected static Manager manager; //handler for all game object's
 
@@ -60,8 +74,28 @@ public abstract class TransmuteCore implements Runnable, Cortex
      * @param gameRatio   The aspect ratio of the game window based on the {@code gameWidth}.
      * @param gameScale   The scale of the game window.
      */
-    @SuppressWarnings("static-access")
     public TransmuteCore(String gameTitle, String gameVersion, int gameWidth, int gameRatio, int gameScale)
+    {
+        this(gameTitle, gameVersion, gameWidth, gameRatio, gameScale, WINDOWED);
+    }
+
+    /**
+     * Creates the game engine instance with a given display mode.
+     * <br>
+     * In {@code HEADLESS} and {@code HEADLESS_NO_RENDER} modes no window is created and no
+     * input is received, so the engine runs on display-less hosts. The game loop then uses
+     * an {@link UnthrottledPacer}, updating with a fixed {@code delta} of 1 as fast as possible
+     * and rendering into the offscreen context after every update in {@code HEADLESS} mode.
+     *
+     * @param gameTitle   The title of the game.
+     * @param gameVersion The version of the game.
+     * @param gameWidth   The width of the game window.
+     * @param gameRatio   The aspect ratio of the game window based on the {@code gameWidth}.
+     * @param gameScale   The scale of the game window.
+     * @param displayMode {@code WINDOWED}, {@code HEADLESS} or {@code HEADLESS_NO_RENDER}.
+     */
+    @SuppressWarnings("static-access")
+    public TransmuteCore(String gameTitle, String gameVersion, int gameWidth, int gameRatio, int gameScale, int displayMode)
     {
         printStartScreen();
 
@@ -76,7 +110,9 @@ public abstract class TransmuteCore implements Runnable, Cortex
         ctx = new Context(gameWidth / gameScale, gameHeight / gameScale);
 
         this.gameEngine = this;
-        gameWindow = new GameWindow(this);
+        this.displayMode = displayMode;
+        if (displayMode == WINDOWED) gameWindow = new GameWindow(this);
+        pacer = displayMode == WINDOWED ? new FixedTimestepPacer(targetFPS) : new UnthrottledPacer();
         input = new Input(this);
 
         manager = new Manager(this);
@@ -108,6 +144,7 @@ public abstract class TransmuteCore implements Runnable, Cortex
 
         this.gameEngine = this;
         gameWindow.createWindow(this);
+        pacer = new FixedTimestepPacer(targetFPS);
         input = new Input(this);
 
         manager = new Manager(this);
@@ -133,9 +170,9 @@ public abstract class TransmuteCore implements Runnable, Cortex
 
     /**
      * Stops the game loop by setting the {@code isRunning} variable
-     * to false.
+     * to false. The loop finishes its current iteration and cleans up.
      */
-    private synchronized void stop()
+    public synchronized void stop()
     {
         if (!isRunning) return;
         isRunning = false;
@@ -143,45 +180,42 @@ public abstract class TransmuteCore implements Runnable, Cortex
 
     /**
      * The game loop handles the frame rate of the game.
+     * <br>
+     * Updates and frames are scheduled by the frame pacer, see {@link #setFramePacer(FramePacer)}.
      */
     @Override
     public void run()
     {
         init();
 
-        long then = System.nanoTime();
-        double unprocessed = 0;
-        double nsPerFrame = 1000000000.0d / targetFPS;
+        FramePacer pacer = this.pacer;
+        delta = pacer.getDelta();
+        pacer.reset(System.nanoTime());
         int frames = 0, updates = 0;
         long lastVerbose = System.currentTimeMillis();
 
-        while (isRunning)
+        while (isRunning && (maxTicks <= 0 || ticks < maxTicks))
         {
-            long now = System.nanoTime();
-            delta = unprocessed += (now - then) / nsPerFrame;
-            then = now;
-            boolean shouldRender = false;
-
-            while (unprocessed >= 1)
+            if (pacer != this.pacer)
             {
-                update();
-                updates++;
-
-                unprocessed -= 1;
-                shouldRender = true;
+                pacer = this.pacer;
+                delta = pacer.getDelta();
+                pacer.reset(System.nanoTime());
             }
 
-            try
-            {
-                Thread.sleep(2);
-            } catch (InterruptedException e)
+            int due = pacer.getTicksDue(System.nanoTime());
+            Profiler.begin(Profiler.UPDATE);
+            for (int i = 0; i < due && (maxTicks <= 0 || ticks < maxTicks); i++)
             {
-                new Error(ERROR_MESSAGE);
+                update();
+                updates++;
+                ticks++;
             }
+            Profiler.end(Profiler.UPDATE);
 
-            if (shouldRender)
+            if (displayMode != HEADLESS_NO_RENDER && pacer.shouldRender(System.nanoTime(), due))
             {
-                render();
+                render(pacer.getAlpha());
                 frames++;
             }
 
@@ -192,6 +226,11 @@ public abstract class TransmuteCore implements Runnable, Cortex
                 frames = 0;
                 updates = 0;
             }
+
+            Profiler.begin(Profiler.SLEEP);
+            pacer.waitForNext();
+            Profiler.end(Profiler.SLEEP);
+            Profiler.endFrame(); //Once per iteration, so runs without rendering are recorded too
         }
 
         cleanUp();
@@ -211,9 +250,17 @@ public abstract class TransmuteCore implements Runnable, Cortex
     /**
      * The parent render method which handles internal engine
      * component rendering before invoking <pre>render()</pre>.
+     *
+     * @param alpha Interpolation factor between the last update and the next one (0 - 1).
      */
-    private void render()
+    private void render(double alpha)
     {
+        if (displayMode == HEADLESS)
+        {
+            renderContext(alpha);
+            return;
+        }
+
         int ctxWidth = ctx.getWidth(), ctxHeight = ctx.getHeight();
         if (nativeImage == null)
         {
@@ -229,17 +276,88 @@ public abstract class TransmuteCore implements Runnable, Cortex
             return;
         }
 
-        Graphics g = bs.getDrawGraphics();
-        ctx.clear();
-
-        render(manager, ctx);
+        renderContext(alpha);
 
+        Profiler.begin(Profiler.PRESENT);
+        Graphics g = bs.getDrawGraphics();
+        DirtyRegion region = getPresentRegion(bs);
+        int destWidth = getWidth() * getScale(), destHeight = getHeight() * getScale();
         Graphics2D _g = nativeImage.createGraphics();
-        _g.drawImage(ctx.getImage(), 0, 0, null);
+        if (region.isFull())
+        {
+            _g.drawImage(ctx.getImage(), 0, 0, null);
+            g.drawImage(nativeImage, 0, 0, destWidth, destHeight, null);
+        } else
+        {
+            for (int i = 0; i < region.getCount(); i++)
+            {
+                int x0 = region.getX0(i), y0 = region.getY0(i), x1 = region.getX1(i), y1 = region.getY1(i);
+                _g.drawImage(ctx.getImage(), x0, y0, x1, y1, x0, y0, x1, y1, null);
+                g.drawImage(nativeImage,
+                        x0 * destWidth / ctxWidth, y0 * destHeight / ctxHeight,
+                        x1 * destWidth / ctxWidth, y1 * destHeight / ctxHeight,
+                        x0, y0, x1, y1, null);
+            }
+        }
         _g.dispose();
-        g.drawImage(nativeImage, 0, 0, getWidth() * getScale(), getHeight() * getScale(), null);
         g.dispose();
         bs.show();
+        Profiler.end(Profiler.PRESENT);
+    }
+
+    /**
+     * Renders the game into the context, followed by the profiler overlay when visible.
+     *
+     * @param alpha Interpolation factor between the last update and the next one (0 - 1).
+     */
+    private void renderContext(double alpha)
+    {
+        Profiler.begin(Profiler.RENDER);
+        ctx.clear();
+
+        render(manager, ctx, alpha);
+        if (Profiler.isOverlayVisible()) Profiler.renderOverlay(ctx, 2, 2, 1000000000L / targetFPS);
+        ctx.flush();
+        Profiler.end(Profiler.RENDER);
+    }
+
+    /**
+     * Supplies the region of the context that has to be copied to the screen
+     * this frame: the union of the dirty regions of the last {@code numBuffers}
+     * frames, since each back buffer last received pixels that many frames ago.
+     * Falls back to a full present whenever buffer contents may have been lost.
+     *
+     * @param bs The buffer strategy being presented to.
+     * @return The region to present.
+     */
+    private DirtyRegion getPresentRegion(BufferStrategy bs)
+    {
+        int ctxWidth = ctx.getWidth(), ctxHeight = ctx.getHeight();
+        if (presentHistory == null || presentHistory.length != numBuffers)
+        {
+            presentHistory = new DirtyRegion[numBuffers];
+            for (int i = 0; i < numBuffers; i++) presentHistory[i] = new DirtyRegion(ctxWidth, ctxHeight, 1f);
+            presentRegion = new DirtyRegion(ctxWidth, ctxHeight, 1f);
+            for (DirtyRegion history : presentHistory) history.setFull();
+        }
+
+        BufferCapabilities.FlipContents flipContents = bs.getCapabilities().getFlipContents();
+        boolean undefinedBackBuffer = bs.getCapabilities().isPageFlipping()
+                && flipContents != BufferCapabilities.FlipContents.COPIED
+                && flipContents != BufferCapabilities.FlipContents.PRIOR;
+        boolean contentsLost = bs.contentsLost() || bs.contentsRestored()
+                || nativeImage.validate(gameWindow.getCanvas().getGraphicsConfiguration()) != VolatileImage.IMAGE_OK;
+
+        presentHistory[presentFrame++ % numBuffers].set(ctx.getDirtyRegion());
+        presentRegion.reset();
+        for (DirtyRegion history : presentHistory) presentRegion.add(history);
+        if (undefinedBackBuffer || contentsLost)
+        {
+            presentRegion.setFull();
+            for (DirtyRegion history : presentHistory) history.setFull();
+        }
+
+        return presentRegion;
     }
 
     /**
@@ -248,7 +366,7 @@ public abstract class TransmuteCore implements Runnable, Cortex
      */
     private void cleanUp()
     {
-        gameWindow.cleanUp();
+        if (gameWindow != null) gameWindow.cleanUp();
         AssetManager.cleanUp();
     }
 
@@ -273,6 +391,7 @@ public abstract class TransmuteCore implements Runnable, Cortex
     public void setTargetFPS(int target)
     {
         this.targetFPS = target;
+        pacer.setTickRate(target);
     }
 
     /**
@@ -284,6 +403,26 @@ public abstract class TransmuteCore implements Runnable, Cortex
     }
 
 
+    /**
+     * Replaces the frame pacer scheduling updates and frames of the game loop.
+     * Windowed engines default to a {@link FixedTimestepPacer}, headless ones to an {@link UnthrottledPacer}.
+     *
+     * @param pacer The frame pacer.
+     */
+    public void setFramePacer(FramePacer pacer)
+    {
+        pacer.setTickRate(targetFPS);
+        this.pacer = pacer;
+    }
+
+    /**
+     * @return The frame pacer scheduling updates and frames of the game loop.
+     */
+    public FramePacer getFramePacer()
+    {
+        return pacer;
+    }
+
     /**
      * Sets the output of FPS value per second.
      *
@@ -302,6 +441,49 @@ public abstract class TransmuteCore implements Runnable, Cortex
         return fpsVerbose;
     }
 
+    /**
+     * Sets the number of updates after which the engine stops, in any display mode.
+     * Call this from {@code init()} to bound a benchmark or soak test run, usually headless.
+     *
+     * @param maxTicks Number of updates (0 runs until stopped).
+     */
+    public void setMaxTicks(long maxTicks)
+    {
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * @return Number of updates after which the engine stops (0 runs until stopped).
+     */
+    public long getMaxTicks()
+    {
+        return maxTicks;
+    }
+
+    /**
+     * @return Number of updates since the game loop started.
+     */
+    public long getTicks()
+    {
+        return ticks;
+    }
+
+    /**
+     * @return Whether the engine runs without a game window.
+     */
+    public boolean isHeadless()
+    {
+        return displayMode != WINDOWED;
+    }
+
+    /**
+     * @return The render context the game is drawn into.
+     */
+    public Context getContext()
+    {
+        return ctx;
+    }
+
     /**
      * @return The game title.
      */
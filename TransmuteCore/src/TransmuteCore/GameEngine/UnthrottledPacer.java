@@ -0,0 +1,51 @@
+package TransmuteCore.GameEngine;
+
+import TransmuteCore.GameEngine.Interfaces.FramePacer;
+
+/**
+ * {@code UnthrottledPacer} is a frame pacer that never waits.
+ * <br>
+ * Every loop iteration runs exactly one update with a fixed {@code delta} of 1 and renders one
+ * frame, as fast as the CPU allows. Used by headless engines for simulations and benchmarks.
+ */
+public class UnthrottledPacer implements FramePacer
+{
+    @Override
+    public void reset(long now)
+    {
+    }
+
+    @Override
+    public int getTicksDue(long now)
+    {
+        return 1;
+    }
+
+    @Override
+    public boolean shouldRender(long now, int ticksRun)
+    {
+        return true;
+    }
+
+    @Override
+    public double getAlpha()
+    {
+        return 0d;
+    }
+
+    @Override
+    public double getDelta()
+    {
+        return 1d;
+    }
+
+    @Override
+    public void setTickRate(int ticksPerSecond)
+    {
+    }
+
+    @Override
+    public void waitForNext()
+    {
+    }
+}
@@ -2,12 +2,7 @@ package TransmuteCore.Graphics;
 
 import TransmuteCore.System.Asset.Type.Images.Image;
 
-import java.awt.AlphaComposite;
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.GraphicsEnvironment;
 import java.awt.image.BufferedImage;
-import java.awt.image.VolatileImage;
 
 /**
  * Bitmap is a representation of a region of pixel data as derived from a BufferedImage.
@@ -37,6 +32,16 @@ public class Bitmap
      */
     private BufferedImage image;
 
+    /**
+     * Cached result of the opacity scan (-1 unknown, 0 translucent, 1 opaque)
+     */
+    private int opaque = -1;
+
+    /**
+     * Frame stamp and handle assigned by a deferred draw command buffer
+     */
+    int batchFrame, batchHandle;
+
     /**
      * Creates an empty bitmap of specified size.
      *
@@ -111,6 +116,8 @@ public class Bitmap
 
     /**
      * Generates a scaled version of this bitmap based on a new given dimension.
+     * Pixels are sampled nearest-neighbor from the pixel data, so no graphics
+     * device is needed and scaling works on headless hosts.
      *
      * @param width  Width of scaled bitmap.
      * @param height Height of scaled bitmap.
@@ -118,19 +125,18 @@ public class Bitmap
      */
     public Bitmap getScaled(int width, int height)
     {
-        VolatileImage img = GraphicsEnvironment.getLocalGraphicsEnvironment()
-                .getDefaultScreenDevice().getDefaultConfiguration()
-                .createCompatibleVolatileImage(width, height, VolatileImage.TRANSLUCENT);
-        Graphics2D _g = img.createGraphics();
-        _g.setComposite(AlphaComposite.DstOut);
-        _g.setColor(new Color(0f, 0f, 0f, 0f));
-        _g.fillRect(0, 0, width, height);
-        _g.setComposite(AlphaComposite.Src);
-        _g.drawImage(image, 0, 0, width, height, null);
-        _g.dispose();
-        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        result.setRGB(0, 0, width, height, img.getSnapshot().getRGB(0, 0, width, height, null, 0, width), 0, width);
-        return new Bitmap(result);
+        Bitmap result = new Bitmap(width, height);
+        int[] dst = result.data;
+        for (int y = 0; y < height; y++)
+        {
+            int srcRow = (int) (((long) y * 2 + 1) * this.height / (height * 2L)) * this.width;
+            for (int x = 0; x < width; x++)
+            {
+                dst[y * width + x] = data[srcRow + (int) (((long) x * 2 + 1) * this.width / (width * 2L))];
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -253,6 +259,45 @@ public class Bitmap
         return data;
     }
 
+    /**
+     * Supplies whether every pixel of this bitmap is fully opaque, which lets the
+     * render context copy whole rows instead of compositing per pixel. The
+     * pixel data is scanned once and the result is cached until {@link #invalidate()}.
+     *
+     * @return Whether every pixel of this bitmap has an alpha of 255.
+     */
+    public boolean isOpaque()
+    {
+        int result = opaque;
+        if (result < 0)
+        {
+            //Scanned into a local, as bands rasterized on other threads may read the field meanwhile
+            result = 1;
+            for (int pixel : data)
+            {
+                if ((pixel >>> 24) != 255)
+                {
+                    result = 0;
+                    break;
+                }
+            }
+            opaque = result;
+        }
+
+        return result == 1;
+    }
+
+    /**
+     * Discards cached information derived from the pixel data, such as the
+     * opacity flag and scaled variants. Must be called after modifying the
+     * array returned by {@link #getData()}.
+     */
+    public void invalidate()
+    {
+        opaque = -1;
+        ScaledBitmapCache.invalidate(this);
+    }
+
     /**
      * Supplies the original BufferedImage of this bitmap.
      *
@@ -270,6 +315,7 @@ public class Bitmap
     public void cleanUp()
     {
         image.flush();
+        invalidate();
 
         for (int i = 0; i < data.length; i++) data[i] = 0;
     }
@@ -47,6 +47,26 @@ public class Color
      */
     public static final int CYAN = Color.toPixelInt(0, 255, 255, 255);
 
+    /**
+     * Source-over compositing, the default blend mode
+     */
+    public static final int BLEND_NORMAL = 0x0;
+
+    /**
+     * Adds the source color onto the destination, saturating at white
+     */
+    public static final int BLEND_ADDITIVE = 0x1;
+
+    /**
+     * Multiplies the destination by the source color, darkening it
+     */
+    public static final int BLEND_MULTIPLY = 0x2;
+
+    /**
+     * Inverse multiply of the source and destination colors, lightening it
+     */
+    public static final int BLEND_SCREEN = 0x3;
+
     /**
      * Converts an integer pixel color representation to rgb colors.
      * The array length returned is 4, representing r, g, b, a with
@@ -122,13 +142,176 @@ public class Color
      */
     public static int tint(int pixelColor, int tintColor)
     {
-        int[] pRGBA = fromPixelInt(pixelColor);
-        int[] tRGBA = fromPixelInt(tintColor);
-        float tintAlpha = (float) tRGBA[3] / 255f;
-        int r = (int) (tRGBA[0] * tintAlpha + pRGBA[0] * (1 - tintAlpha));
-        int g = (int) (tRGBA[1] * tintAlpha + pRGBA[1] * (1 - tintAlpha));
-        int b = (int) (tRGBA[2] * tintAlpha + pRGBA[2] * (1 - tintAlpha));
-        return toPixelInt(r, g, b, 255);
+        return sourceOver(pixelColor, tintColor, tintColor >>> 24);
+    }
+
+    /**
+     * Blends a source pixel onto a destination pixel with a given blend mode.
+     *
+     * @param mode  Blend mode (e.g. <code>Color.BLEND_ADDITIVE</code>).
+     * @param dst   Destination pixel color.
+     * @param src   Source pixel color.
+     * @param alpha Coverage of the source pixel (0 - 255).
+     * @return Blended color pixel of type ARGB.
+     */
+    public static int blend(int mode, int dst, int src, int alpha)
+    {
+        switch (mode)
+        {
+            case BLEND_ADDITIVE:
+                return additive(dst, src, alpha);
+            case BLEND_MULTIPLY:
+                return multiply(dst, src, alpha);
+            case BLEND_SCREEN:
+                return screen(dst, src, alpha);
+            default:
+                return sourceOver(dst, src, alpha);
+        }
+    }
+
+    /**
+     * Composites a source pixel over a destination pixel using the source alpha.
+     *
+     * @param dst Destination pixel color.
+     * @param src Source pixel color.
+     * @return Opaque composited color pixel of type ARGB.
+     */
+    public static int sourceOver(int dst, int src)
+    {
+        return sourceOver(dst, src, src >>> 24);
+    }
+
+    /**
+     * Composites a source pixel over a destination pixel with a given alpha.
+     * Red and blue are blended together in one packed multiply.
+     *
+     * @param dst   Destination pixel color.
+     * @param src   Source pixel color.
+     * @param alpha Coverage of the source pixel (0 - 255).
+     * @return Opaque composited color pixel of type ARGB.
+     */
+    public static int sourceOver(int dst, int src, int alpha)
+    {
+        int inverse = 255 - alpha;
+        int rb = (src & 0xFF00FF) * alpha + (dst & 0xFF00FF) * inverse;
+        int g = (src & 0x00FF00) * alpha + (dst & 0x00FF00) * inverse;
+        rb = ((rb + 0x00010001 + ((rb >>> 8) & 0x00FF00FF)) >>> 8) & 0x00FF00FF;
+        g = ((g + 0x00000100 + ((g >>> 8) & 0x00FFFF00)) >>> 8) & 0x0000FF00;
+        return 0xFF000000 | rb | g;
+    }
+
+    /**
+     * Adds a source pixel onto a destination pixel using the source alpha.
+     *
+     * @param dst Destination pixel color.
+     * @param src Source pixel color.
+     * @return Opaque blended color pixel of type ARGB.
+     */
+    public static int additive(int dst, int src)
+    {
+        return additive(dst, src, src >>> 24);
+    }
+
+    /**
+     * Adds a source pixel, scaled by a given alpha, onto a destination pixel.
+     * Each channel saturates at 255.
+     *
+     * @param dst   Destination pixel color.
+     * @param src   Source pixel color.
+     * @param alpha Coverage of the source pixel (0 - 255).
+     * @return Opaque blended color pixel of type ARGB.
+     */
+    public static int additive(int dst, int src, int alpha)
+    {
+        int r = ((dst >> 16) & 0xFF) + div255(((src >> 16) & 0xFF) * alpha);
+        int g = ((dst >> 8) & 0xFF) + div255(((src >> 8) & 0xFF) * alpha);
+        int b = (dst & 0xFF) + div255((src & 0xFF) * alpha);
+        if (r > 255) r = 255;
+        if (g > 255) g = 255;
+        if (b > 255) b = 255;
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Multiplies a destination pixel by a source pixel using the source alpha.
+     *
+     * @param dst Destination pixel color.
+     * @param src Source pixel color.
+     * @return Opaque blended color pixel of type ARGB.
+     */
+    public static int multiply(int dst, int src)
+    {
+        return multiply(dst, src, src >>> 24);
+    }
+
+    /**
+     * Multiplies a destination pixel by a source pixel, faded in by a given alpha.
+     *
+     * @param dst   Destination pixel color.
+     * @param src   Source pixel color.
+     * @param alpha Coverage of the source pixel (0 - 255).
+     * @return Opaque blended color pixel of type ARGB.
+     */
+    public static int multiply(int dst, int src, int alpha)
+    {
+        int dr = (dst >> 16) & 0xFF, dg = (dst >> 8) & 0xFF, db = dst & 0xFF;
+        int r = lerp(dr, div255(dr * ((src >> 16) & 0xFF)), alpha);
+        int g = lerp(dg, div255(dg * ((src >> 8) & 0xFF)), alpha);
+        int b = lerp(db, div255(db * (src & 0xFF)), alpha);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Screens a source pixel onto a destination pixel using the source alpha.
+     *
+     * @param dst Destination pixel color.
+     * @param src Source pixel color.
+     * @return Opaque blended color pixel of type ARGB.
+     */
+    public static int screen(int dst, int src)
+    {
+        return screen(dst, src, src >>> 24);
+    }
+
+    /**
+     * Screens a source pixel onto a destination pixel, faded in by a given alpha.
+     *
+     * @param dst   Destination pixel color.
+     * @param src   Source pixel color.
+     * @param alpha Coverage of the source pixel (0 - 255).
+     * @return Opaque blended color pixel of type ARGB.
+     */
+    public static int screen(int dst, int src, int alpha)
+    {
+        int dr = (dst >> 16) & 0xFF, dg = (dst >> 8) & 0xFF, db = dst & 0xFF;
+        int r = lerp(dr, 255 - div255((255 - dr) * (255 - ((src >> 16) & 0xFF))), alpha);
+        int g = lerp(dg, 255 - div255((255 - dg) * (255 - ((src >> 8) & 0xFF))), alpha);
+        int b = lerp(db, 255 - div255((255 - db) * (255 - (src & 0xFF))), alpha);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Divides a value in the range 0 - 65025 by 255, rounding down, without a division.
+     *
+     * @param value Product of two 8-bit channel values.
+     * @return The value divided by 255.
+     */
+    public static int div255(int value)
+    {
+        return (value + 1 + (value >> 8)) >> 8;
+    }
+
+    /**
+     * Interpolates between two 8-bit channel values.
+     *
+     * @param from  Channel value at alpha 0.
+     * @param to    Channel value at alpha 255.
+     * @param alpha Interpolation weight (0 - 255).
+     * @return The interpolated channel value.
+     */
+    private static int lerp(int from, int to, int alpha)
+    {
+        return div255(from * (255 - alpha) + to * alpha);
     }
 
     private Color()
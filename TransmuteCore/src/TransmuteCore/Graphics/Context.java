@@ -1,10 +1,13 @@
 package TransmuteCore.Graphics;
 
 import TransmuteCore.System.Asset.Type.Fonts.Font;
+import TransmuteCore.System.Profiler;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * This is the heart of the rendering engine. A master BufferedImage is created using the ARGB color model
@@ -15,6 +18,17 @@ import java.util.Arrays;
  * The master image is then draw using Java2D Graphics object onto the canvas. Dimensions for the
  * render context is different to the dimension of the wrapper, but a resize of the wrapper should not
  * update the size of the context. The size of the context refers to the dimensions of the master image.
+ * <p>
+ * Optionally, draw calls can be recorded instead of rasterized immediately (see
+ * {@link #setRasterThreads(int)}). The recorded calls are then rasterized by {@link #flush()}
+ * in horizontal bands on a worker pool, each band clipping every call to its own rows.
+ * Since every pixel still sees the calls in submission order, the result is identical to
+ * drawing serially.
+ * <p>
+ * In deferred mode (see {@link #setDeferred(boolean)}) recorded calls are additionally
+ * sorted on {@link #flush()} by layer, then sort key and, when bitmap batching is enabled,
+ * by source bitmap. This allows tiles and objects to be submitted in any order, y-sorting
+ * of top-down scenes and drawing runs of the same bitmap back to back.
  */
 public class Context
 {
@@ -43,6 +57,61 @@ public class Context
      */
     private int clearColor = Color.toPixelInt(0, 0, 0, 255);
 
+    /**
+     * Number of threads used to rasterize recorded draw calls (1 draws immediately)
+     */
+    private int rasterThreads = 1;
+
+    /**
+     * Worker pool used for banded rasterization
+     */
+    private ForkJoinPool rasterPool;
+
+    /**
+     * Draw calls recorded since the last flush
+     */
+    private final DrawCommandBuffer commands = new DrawCommandBuffer();
+
+    /**
+     * Whether draw calls are recorded and sorted until {@link #flush()}
+     */
+    private boolean deferred;
+
+    /**
+     * Whether deferred draw calls sharing a layer and sort key are grouped by source bitmap
+     */
+    private boolean bitmapBatching;
+
+    /**
+     * Layer and sort key assigned to deferred draw calls
+     */
+    private int layer, sortKey;
+
+    /**
+     * Whether only the regions drawn during the previous frame are cleared
+     */
+    private boolean dirtyTracking;
+
+    /**
+     * Regions drawn during the current and previous frame
+     */
+    private DirtyRegion drawn, previousDrawn;
+
+    /**
+     * Regions changed during the current frame (cleared or drawn)
+     */
+    private DirtyRegion dirty;
+
+    /**
+     * Default fraction of the context above which a frame is redrawn in full
+     */
+    private static final float DIRTY_THRESHOLD = 0.5f;
+
+    /**
+     * Minimum number of rows rasterized by a single band
+     */
+    private static final int MIN_BAND_HEIGHT = 16;
+
     /**
      * Creates a render context with given dimensions.
      *
@@ -56,14 +125,92 @@ public class Context
         this.data = new int[width * height];
         this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        drawn = new DirtyRegion(width, height, DIRTY_THRESHOLD);
+        previousDrawn = new DirtyRegion(width, height, DIRTY_THRESHOLD);
+        dirty = new DirtyRegion(width, height, DIRTY_THRESHOLD);
+        drawn.setFull();
+        dirty.setFull();
     }
 
     /**
-     * Clears the context with the default black color.
+     * Clears the context with the default black color and starts a new frame.
+     * <p>
+     * With dirty tracking enabled, only the regions drawn during the previous
+     * frame are cleared, unless they exceeded the dirty threshold.
      */
     public void clear()
     {
-        Arrays.fill(data, clearColor);
+        if (isRecording()) commands.reset();
+
+        DirtyRegion swap = previousDrawn;
+        previousDrawn = drawn;
+        drawn = swap;
+        drawn.reset();
+
+        if (!dirtyTracking || previousDrawn.isFull())
+        {
+            dirty.setFull();
+            clearRegion(0, 0, width, height);
+            return;
+        }
+
+        dirty.set(previousDrawn);
+        for (int i = 0; i < previousDrawn.getCount(); i++)
+        {
+            clearRegion(previousDrawn.getX0(i), previousDrawn.getY0(i), previousDrawn.getX1(i), previousDrawn.getY1(i));
+        }
+    }
+
+    /**
+     * Overwrites the region [xStart, xEnd) x [yStart, yEnd) with the clear color,
+     * or records the clear when draw calls are being recorded.
+     */
+    private void clearRegion(int xStart, int yStart, int xEnd, int yEnd)
+    {
+        if (isRecording()) commands.addClear(xStart, yStart, xEnd, yEnd, clearColor);
+        else rasterClear(xStart, yStart, xEnd, yEnd, clearColor, 0, height);
+    }
+
+    /**
+     * Overwrites the region [xStart, xEnd) x [yStart, yEnd) with a given color,
+     * clipped to the rows [clipTop, clipBottom).
+     */
+    private void rasterClear(int xStart, int yStart, int xEnd, int yEnd, int color, int clipTop, int clipBottom)
+    {
+        if (yStart < clipTop) yStart = clipTop;
+        if (yEnd > clipBottom) yEnd = clipBottom;
+        if (yStart >= yEnd) return;
+
+        if (xStart == 0 && xEnd == width)
+        {
+            Arrays.fill(data, yStart * width, yEnd * width, color);
+            return;
+        }
+
+        for (int yPos = yStart; yPos < yEnd; yPos++)
+        {
+            Arrays.fill(data, yPos * width + xStart, yPos * width + xEnd, color);
+        }
+    }
+
+    /**
+     * Records that the region [xStart, xEnd) x [yStart, yEnd) is drawn this frame,
+     * counting the draw call when the profiler is enabled.
+     */
+    private void markDrawn(int xStart, int yStart, int xEnd, int yEnd)
+    {
+        if (Profiler.isEnabled())
+        {
+            long covered = (long) Math.max(0, Math.min(xEnd, width) - Math.max(xStart, 0))
+                    * Math.max(0, Math.min(yEnd, height) - Math.max(yStart, 0));
+            Profiler.count(Profiler.DRAW_CALLS, 1);
+            Profiler.count(Profiler.PIXELS, covered);
+        }
+        if (!dirtyTracking) return;
+
+        drawn.add(xStart, yStart, xEnd, yEnd);
+        dirty.add(xStart, yStart, xEnd, yEnd);
     }
 
     /**
@@ -140,6 +287,9 @@ public class Context
     /**
      * Draws a given bitmap onto the context. In addition, the bitmap
      * has custom scaling, transparency and color tinting.
+     * <p>
+     * At 1:1 scale the pixels are read straight from the bitmap, otherwise the
+     * scaled variant is taken from the {@link ScaledBitmapCache}.
      *
      * @param bitmap    Bitmap to be rendered.
      * @param x         x-coordinate on screen.
@@ -150,39 +300,227 @@ public class Context
      */
     public void renderBitmap(Bitmap bitmap, int x, int y, float alpha, float scale, int tintColor)
     {
-        Bitmap scaled = bitmap.getScaled(scale);
-        int xStart = x;
-        int yStart = y;
-        int xEnd = xStart + scaled.getWidth();
-        int yEnd = yStart + scaled.getHeight();
+        renderBitmap(bitmap, x, y, alpha, scale, tintColor, Color.BLEND_NORMAL);
+    }
 
-        if (xStart >= width || yStart >= height || xEnd < 0 || yEnd < 0) return;
-        if (xStart < 0) xStart = 0;
-        if (yStart < 0) yStart = 0;
-        if (xEnd > width) xEnd = width;
-        if (yEnd > height) yEnd = height;
+    /**
+     * Draws a given bitmap onto the context using a given blend mode, e.g.
+     * <code>Color.BLEND_ADDITIVE</code> for particles and lighting. In addition,
+     * the bitmap has custom scaling, transparency and color tinting.
+     *
+     * @param bitmap    Bitmap to be rendered.
+     * @param x         x-coordinate on screen.
+     * @param y         y-coordinate on screen.
+     * @param alpha     Transparency of the bitmap.
+     * @param scale     Scale factor of Bitmap (1.0f is 1:1 ratio).
+     * @param tintColor Color used to tint the bitmap.
+     * @param blendMode Blend mode used to combine the bitmap with the context.
+     */
+    public void renderBitmap(Bitmap bitmap, int x, int y, float alpha, float scale, int tintColor, int blendMode)
+    {
+        if (alpha <= 0f) return;
+
+        Bitmap scaled = scale == 1.0f ? bitmap : ScaledBitmapCache.get(bitmap, scale);
+        int globalAlpha = alpha >= 1f ? 255 : (int) (alpha * 255f);
+
+        markDrawn(x, y, x + scaled.getWidth(), y + scaled.getHeight());
+        if (isRecording()) commands.addBitmap(scaled, x, y, globalAlpha, tintColor, blendMode, keyOf(scaled));
+        else rasterBitmap(scaled, x, y, globalAlpha, tintColor, blendMode, 0, height);
+    }
+
+    /**
+     * Draws a given bitmap at many positions in a single call, e.g. particles
+     * or repeated decorations.
+     *
+     * @param bitmap Bitmap to be rendered.
+     * @param xs     x-coordinates on screen.
+     * @param ys     y-coordinates on screen.
+     * @param count  Number of positions to draw at.
+     */
+    public void renderBitmapInstanced(Bitmap bitmap, int[] xs, int[] ys, int count)
+    {
+        renderBitmapInstanced(bitmap, xs, ys, count, 1.0f, 0, Color.BLEND_NORMAL);
+    }
+
+    /**
+     * Draws a given bitmap at many positions in a single call with custom
+     * transparency, color tinting and blend mode. In deferred mode every
+     * instance shares the current layer and sort key.
+     *
+     * @param bitmap    Bitmap to be rendered.
+     * @param xs        x-coordinates on screen.
+     * @param ys        y-coordinates on screen.
+     * @param count     Number of positions to draw at.
+     * @param alpha     Transparency of the bitmap.
+     * @param tintColor Color used to tint the bitmap.
+     * @param blendMode Blend mode used to combine the bitmap with the context.
+     */
+    public void renderBitmapInstanced(Bitmap bitmap, int[] xs, int[] ys, int count, float alpha, int tintColor, int blendMode)
+    {
+        if (alpha <= 0f) return;
+
+        int globalAlpha = alpha >= 1f ? 255 : (int) (alpha * 255f);
+        for (int i = 0; i < count; i++)
+            markDrawn(xs[i], ys[i], xs[i] + bitmap.getWidth(), ys[i] + bitmap.getHeight());
+
+        if (isRecording())
+        {
+            long key = keyOf(bitmap);
+            for (int i = 0; i < count; i++)
+                commands.addBitmap(bitmap, xs[i], ys[i], globalAlpha, tintColor, blendMode, key);
+            return;
+        }
+
+        for (int i = 0; i < count; i++)
+            rasterBitmap(bitmap, xs[i], ys[i], globalAlpha, tintColor, blendMode, 0, height);
+    }
+
+    /**
+     * Supplies the sort key of a draw call recorded now. Outside deferred mode
+     * every call gets the same key, so submission order is kept.
+     *
+     * @param source Source bitmap of the call, or null for fills.
+     * @return The packed sort key of the call.
+     */
+    private long keyOf(Bitmap source)
+    {
+        if (!deferred) return 0L;
+
+        int handle = bitmapBatching && source != null ? commands.handleOf(source) : 0;
+        return DrawCommandBuffer.key(layer, sortKey, handle);
+    }
+
+    /**
+     * Rasterizes a bitmap, clipped to the context and to the rows [clipTop, clipBottom).
+     */
+    private void rasterBitmap(Bitmap scaled, int x, int y, int globalAlpha, int tintColor, int blendMode, int clipTop, int clipBottom)
+    {
+        int srcWidth = scaled.getWidth();
+        int xStart = Math.max(x, 0);
+        int yStart = Math.max(y, clipTop);
+        int xEnd = Math.min(x + srcWidth, width);
+        int yEnd = Math.min(y + scaled.getHeight(), clipBottom);
+        if (xStart >= xEnd || yStart >= yEnd) return;
+
+        int[] src = scaled.getData();
+        int spanWidth = xEnd - xStart;
+        int srcIndex = (yStart - y) * srcWidth + (xStart - x);
+        int dstIndex = yStart * width + xStart;
+        int rows = yEnd - yStart;
 
-        for (int xPos = xStart; xPos < xEnd; xPos++)
+        if (blendMode != Color.BLEND_NORMAL)
+            blitBlendMode(src, srcIndex, srcWidth, dstIndex, spanWidth, rows, globalAlpha, tintColor, blendMode);
+        else if (tintColor != 0)
+            blitTinted(src, srcIndex, srcWidth, dstIndex, spanWidth, rows, globalAlpha, tintColor);
+        else if (globalAlpha < 255)
+            blitAlphaBlend(src, srcIndex, srcWidth, dstIndex, spanWidth, rows, globalAlpha);
+        else if (scaled.isOpaque())
+            blitOpaque(src, srcIndex, srcWidth, dstIndex, spanWidth, rows);
+        else
+            blitAlphaTest(src, srcIndex, srcWidth, dstIndex, spanWidth, rows);
+    }
+
+    /**
+     * Copies clipped rows of a fully opaque bitmap straight into the context.
+     */
+    private void blitOpaque(int[] src, int srcIndex, int srcWidth, int dstIndex, int spanWidth, int rows)
+    {
+        for (int row = 0; row < rows; row++)
+        {
+            System.arraycopy(src, srcIndex, data, dstIndex, spanWidth);
+            srcIndex += srcWidth;
+            dstIndex += width;
+        }
+    }
+
+    /**
+     * Copies opaque pixels, skips fully transparent pixels and
+     * alpha composites everything in between.
+     */
+    private void blitAlphaTest(int[] src, int srcIndex, int srcWidth, int dstIndex, int spanWidth, int rows)
+    {
+        int[] data = this.data;
+        for (int row = 0; row < rows; row++)
+        {
+            for (int i = 0; i < spanWidth; i++)
+            {
+                int pixel = src[srcIndex + i];
+                int pixelAlpha = pixel >>> 24;
+                if (pixelAlpha == 255) data[dstIndex + i] = pixel;
+                else if (pixelAlpha != 0) data[dstIndex + i] = Color.sourceOver(data[dstIndex + i], pixel, pixelAlpha);
+            }
+            srcIndex += srcWidth;
+            dstIndex += width;
+        }
+    }
+
+    /**
+     * Alpha composites every pixel with its own alpha scaled by a global alpha (0 - 255).
+     */
+    private void blitAlphaBlend(int[] src, int srcIndex, int srcWidth, int dstIndex, int spanWidth, int rows, int globalAlpha)
+    {
+        int[] data = this.data;
+        for (int row = 0; row < rows; row++)
+        {
+            for (int i = 0; i < spanWidth; i++)
+            {
+                int pixel = src[srcIndex + i];
+                int pixelAlpha = Color.div255((pixel >>> 24) * globalAlpha);
+                if (pixelAlpha != 0) data[dstIndex + i] = Color.sourceOver(data[dstIndex + i], pixel, pixelAlpha);
+            }
+            srcIndex += srcWidth;
+            dstIndex += width;
+        }
+    }
+
+    /**
+     * Composites every pixel, overlays the tint color by its alpha and
+     * finally applies the global alpha (0 - 255).
+     */
+    private void blitTinted(int[] src, int srcIndex, int srcWidth, int dstIndex, int spanWidth, int rows, int globalAlpha, int tintColor)
+    {
+        int[] data = this.data;
+        int tintAlpha = tintColor >>> 24;
+        for (int row = 0; row < rows; row++)
+        {
+            for (int i = 0; i < spanWidth; i++)
+            {
+                int pixel = src[srcIndex + i];
+                int pixelAlpha = pixel >>> 24;
+                if (pixelAlpha == 0) continue;
+
+                int dst = data[dstIndex + i];
+                if (pixelAlpha != 255) pixel = Color.sourceOver(dst, pixel, pixelAlpha);
+                pixel = Color.sourceOver(pixel, tintColor, tintAlpha);
+                data[dstIndex + i] = globalAlpha == 255 ? pixel : Color.sourceOver(dst, pixel, globalAlpha);
+            }
+            srcIndex += srcWidth;
+            dstIndex += width;
+        }
+    }
+
+    /**
+     * Combines every pixel with the context through a non-default blend mode.
+     * The tint color is overlaid on the source first and the source alpha is
+     * scaled by the global alpha (0 - 255).
+     */
+    private void blitBlendMode(int[] src, int srcIndex, int srcWidth, int dstIndex, int spanWidth, int rows, int globalAlpha, int tintColor, int blendMode)
+    {
+        int[] data = this.data;
+        int tintAlpha = tintColor >>> 24;
+        for (int row = 0; row < rows; row++)
         {
-            for (int yPos = yStart; yPos < yEnd; yPos++)
+            for (int i = 0; i < spanWidth; i++)
             {
-                int index = yPos * width + xPos;
-                if (index < 0 || index > data.length - 1) continue;
-
-                int bmpIndex = (yPos - yStart) * scaled.getWidth() + (xPos - xStart);
-                int pixel = scaled.getData()[bmpIndex];
-                int pixelAlpha = ((pixel >> 24) & 0xFF);
-                if (pixelAlpha <= 0) continue;
-                if (pixelAlpha != 255) pixel = Color.tint(data[index], pixel);
-                if (tintColor != 0) pixel = Color.tint(pixel, tintColor);
-                if (alpha < 1f)
-                {
-                    int[] rgba = Color.fromPixelInt(pixel);
-                    pixel = Color.tint(data[index], Color.toPixelInt(rgba[0], rgba[1], rgba[2], (int) (alpha * 255f)));
-                }
-
-                data[index] = pixel;
+                int pixel = src[srcIndex + i];
+                int pixelAlpha = Color.div255((pixel >>> 24) * globalAlpha);
+                if (pixelAlpha == 0) continue;
+
+                if (tintColor != 0) pixel = Color.sourceOver(pixel, tintColor, tintAlpha);
+                data[dstIndex + i] = Color.blend(blendMode, data[dstIndex + i], pixel, pixelAlpha);
             }
+            srcIndex += srcWidth;
+            dstIndex += width;
         }
     }
 
@@ -197,32 +535,22 @@ public class Context
      */
     public void renderFilledRectangle(int x, int y, int width, int height, int color)
     {
-        int xStart = x;
-        int yStart = y;
-        int xEnd = xStart + width;
-        int yEnd = yStart + height;
-
-        if (xStart < 0) xStart = 0;
-        if (yStart < 0) yStart = 0;
-        if (xEnd > this.width) xEnd = this.width;
-        if (yEnd > this.height) yEnd = this.height;
-        if (xStart >= this.width || yStart >= this.height || xEnd < 0 || yEnd < 0) return;
+        fillSpans(x, y, x + width, y + height, color, Color.BLEND_NORMAL);
+    }
 
-        for (int xPos = xStart; xPos < xEnd; xPos++)
-        {
-            for (int yPos = yStart; yPos < yEnd; yPos++)
-            {
-                int index = yPos * this.width + xPos;
-                if (index < 0 || index > data.length - 1) continue;
-                if (((color >> 24) & 0xFF) == 255)
-                {
-                    data[index] = color;
-                } else if (((color >> 24) & 0xFF) > 0)
-                {
-                    data[index] = Color.tint(data[index], color);
-                }
-            }
-        }
+    /**
+     * Fills a rectangle on-screen with a given color and blend mode.
+     *
+     * @param x         x-coordinate on screen
+     * @param y         y-coordinate on screen
+     * @param width     Width of rectangle
+     * @param height    Height of rectangle
+     * @param color     Color of rectangle (Use <code>Color.toPixelInt()</code>)
+     * @param blendMode Blend mode used to combine the color with the context.
+     */
+    public void renderFilledRectangle(int x, int y, int width, int height, int color, int blendMode)
+    {
+        fillSpans(x, y, x + width, y + height, color, blendMode);
     }
 
     /**
@@ -236,31 +564,53 @@ public class Context
      */
     public void renderFilledRectangle(float x, float y, float width, float height, int color)
     {
-        float xStart = x;
-        float yStart = y;
-        float xEnd = xStart + width;
-        float yEnd = yStart + height;
+        fillSpans((int) Math.max(x, 0), (int) Math.max(y, 0), (int) Math.ceil(x + width), (int) Math.ceil(y + height), color, Color.BLEND_NORMAL);
+    }
 
+    /**
+     * Fills the region [xStart, xEnd) x [yStart, yEnd) with a given color,
+     * or records the fill when draw calls are being recorded.
+     */
+    private void fillSpans(int xStart, int yStart, int xEnd, int yEnd, int color, int blendMode)
+    {
+        if ((color >>> 24) == 0) return;
+
+        markDrawn(xStart, yStart, xEnd, yEnd);
+        if (isRecording()) commands.addFill(xStart, yStart, xEnd, yEnd, color, blendMode, keyOf(null));
+        else rasterFill(xStart, yStart, xEnd, yEnd, color, blendMode, 0, height);
+    }
+
+    /**
+     * Fills the region [xStart, xEnd) x [yStart, yEnd) row by row with a given color,
+     * clipped to the context and to the rows [clipTop, clipBottom).
+     */
+    private void rasterFill(int xStart, int yStart, int xEnd, int yEnd, int color, int blendMode, int clipTop, int clipBottom)
+    {
+        int colorAlpha = color >>> 24;
         if (xStart < 0) xStart = 0;
-        if (yStart < 0) yStart = 0;
+        if (yStart < clipTop) yStart = clipTop;
         if (xEnd > this.width) xEnd = this.width;
-        if (yEnd > this.height) yEnd = this.height;
-        if (xStart >= this.width || yStart >= this.height || xEnd < 0 || yEnd < 0) return;
+        if (yEnd > clipBottom) yEnd = clipBottom;
+        if (xStart >= xEnd || yStart >= yEnd) return;
 
-        for (int xPos = (int) xStart; xPos < xEnd; xPos++)
+        int[] data = this.data;
+        for (int yPos = yStart; yPos < yEnd; yPos++)
         {
-            for (int yPos = (int) yStart; yPos < yEnd; yPos++)
+            int from = yPos * this.width + xStart;
+            int to = yPos * this.width + xEnd;
+            if (blendMode != Color.BLEND_NORMAL)
+            {
+                for (int index = from; index < to; index++) data[index] = Color.blend(blendMode, data[index], color, colorAlpha);
+                continue;
+            }
+
+            if (colorAlpha == 255)
             {
-                int index = yPos * this.width + xPos;
-                if (index < 0 || index > data.length - 1) continue;
-                if (((color >> 24) & 0xFF) == 255)
-                {
-                    data[index] = color;
-                } else if (((color >> 24) & 0xFF) > 0)
-                {
-                    data[index] = Color.tint(data[index], color);
-                }
+                Arrays.fill(data, from, to, color);
+                continue;
             }
+
+            for (int index = from; index < to; index++) data[index] = Color.sourceOver(data[index], color, colorAlpha);
         }
     }
 
@@ -299,24 +649,14 @@ public class Context
         if (xEnd > this.width) xEnd = this.width;
         if (yEnd > this.height) yEnd = this.height;
 
-        for (int xPos = xStart; xPos < xEnd; xPos++)
-        {
-            for (int yPos = yStart; yPos < yEnd; yPos++)
-            {
-                int index = yPos * this.width + xPos;
-                if (index < 0 || index > data.length - 1) continue;
-                if (xPos == xStart || xPos == xEnd - 1 || yPos == yStart || yPos == yEnd - 1)
-                {
-                    if (((color >> 24) & 0xFF) == 255)
-                    {
-                        data[index] = color;
-                    } else if (((color >> 24) & 0xFF) > 0)
-                    {
-                        data[index] = Color.tint(data[index], color);
-                    }
-                }
-            }
-        }
+        int xLast = (int) Math.ceil(xEnd) - 1;
+        int yLast = (int) Math.ceil(yEnd) - 1;
+        if (xLast < xStart || yLast < yStart) return;
+
+        fillSpans(xStart, yStart, xLast + 1, yStart + 1, color, Color.BLEND_NORMAL);
+        if (yLast > yStart) fillSpans(xStart, yLast, xLast + 1, yLast + 1, color, Color.BLEND_NORMAL);
+        fillSpans(xStart, yStart + 1, xStart + 1, yLast, color, Color.BLEND_NORMAL);
+        if (xLast > xStart) fillSpans(xLast, yStart + 1, xLast + 1, yLast, color, Color.BLEND_NORMAL);
     }
 
     /**
@@ -402,17 +742,266 @@ public class Context
      */
     public void blitPixel(int x, int y, int color)
     {
-        if (x < 0 || x > width - 1 || y < 0 || y >= height - 1)
+        if (x < 0 || x > width - 1 || y < 0 || y > height - 1)
             return;
-        if (((color >> 24) & 0xFF) == 255)
+
+        fillSpans(x, y, x + 1, y + 1, color, Color.BLEND_NORMAL);
+    }
+
+    /**
+     * Rasterizes every draw call recorded since the last flush and forgets them.
+     * In deferred mode the calls are sorted first. With more than one raster
+     * thread, the context is split into horizontal bands which are rasterized
+     * concurrently. Does nothing when draw calls are drawn immediately.
+     */
+    public void flush()
+    {
+        if (commands.count == 0) return;
+
+        commands.sort();
+
+        if (rasterThreads > 1 && height >= MIN_BAND_HEIGHT * 2)
+        {
+            int bandHeight = Math.max(MIN_BAND_HEIGHT, (height + rasterThreads - 1) / rasterThreads);
+            rasterPool.invoke(new RasterBand(0, height, bandHeight));
+        } else
+        {
+            rasterCommands(0, height);
+        }
+
+        commands.reset();
+    }
+
+    /**
+     * Rasterizes every recorded draw call, clipped to the rows [clipTop, clipBottom).
+     */
+    private void rasterCommands(int clipTop, int clipBottom)
+    {
+        DrawCommandBuffer commands = this.commands;
+        int[] order = commands.order;
+        for (int n = 0; n < commands.count; n++)
+        {
+            int i = order[n];
+            if (commands.y[i] >= clipBottom || commands.y2[i] <= clipTop) continue;
+
+            switch (commands.type[i])
+            {
+                case DrawCommandBuffer.CLEAR:
+                    rasterClear(commands.x[i], commands.y[i], commands.x2[i], commands.y2[i],
+                            commands.color[i], clipTop, clipBottom);
+                    break;
+                case DrawCommandBuffer.BITMAP:
+                    rasterBitmap(commands.bitmap[i], commands.x[i], commands.y[i], commands.alpha[i],
+                            commands.color[i], commands.blend[i], clipTop, clipBottom);
+                    break;
+                case DrawCommandBuffer.FILL:
+                    rasterFill(commands.x[i], commands.y[i], commands.x2[i], commands.y2[i],
+                            commands.color[i], commands.blend[i], clipTop, clipBottom);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * A horizontal band of the context which splits itself until it is
+     * at most one band high, then rasterizes the recorded draw calls.
+     */
+    @SuppressWarnings("serial")
+    private class RasterBand extends RecursiveAction
+    {
+        private final int top, bottom, bandHeight;
+
+        private RasterBand(int top, int bottom, int bandHeight)
         {
-            data[y * width + x] = color;
-        } else if (((color >> 24) & 0xFF) > 0)
+            this.top = top;
+            this.bottom = bottom;
+            this.bandHeight = bandHeight;
+        }
+
+        @Override
+        protected void compute()
         {
-            data[y * width + x] = Color.tint(data[y * width + x], color);
+            if (bottom - top <= bandHeight)
+            {
+                rasterCommands(top, bottom);
+                return;
+            }
+
+            int middle = top + (bottom - top) / bandHeight / 2 * bandHeight;
+            if (middle == top) middle += bandHeight;
+            invokeAll(new RasterBand(top, middle, bandHeight), new RasterBand(middle, bottom, bandHeight));
         }
     }
 
+    /**
+     * Sets the number of threads used to rasterize draw calls. With more than one
+     * thread, draw calls are recorded and only rasterized, in parallel horizontal
+     * bands, when {@link #flush()} is called. The output is identical to drawing
+     * serially. Pending draw calls are flushed before the change.
+     *
+     * @param threads Number of raster threads (1 draws immediately).
+     */
+    public void setRasterThreads(int threads)
+    {
+        if (threads < 1) threads = 1;
+        flush();
+
+        if (rasterPool != null && rasterPool.getParallelism() != threads)
+        {
+            rasterPool.shutdown();
+            rasterPool = null;
+        }
+        if (threads > 1 && rasterPool == null) rasterPool = new ForkJoinPool(threads);
+
+        this.rasterThreads = threads;
+    }
+
+    /**
+     * @return Number of threads used to rasterize draw calls.
+     */
+    public int getRasterThreads()
+    {
+        return rasterThreads;
+    }
+
+    /**
+     * @return Whether draw calls are recorded until {@link #flush()} instead of drawn immediately.
+     */
+    public boolean isRecording()
+    {
+        return deferred || rasterThreads > 1;
+    }
+
+    /**
+     * Switches deferred mode on or off. In deferred mode draw calls are
+     * recorded with the current layer and sort key, then sorted and
+     * rasterized by {@link #flush()}. Pending draw calls are flushed before
+     * the change.
+     *
+     * @param deferred Deferred mode flag.
+     */
+    public void setDeferred(boolean deferred)
+    {
+        flush();
+        this.deferred = deferred;
+    }
+
+    /**
+     * @return Deferred mode flag.
+     */
+    public boolean isDeferred()
+    {
+        return deferred;
+    }
+
+    /**
+     * Sets the layer of subsequent deferred draw calls. Lower layers are drawn
+     * first. Ignored outside deferred mode.
+     *
+     * @param layer Draw layer (clamped to -32768 - 32767).
+     */
+    public void setLayer(int layer)
+    {
+        this.layer = layer;
+    }
+
+    /**
+     * @return Layer of subsequent deferred draw calls.
+     */
+    public int getLayer()
+    {
+        return layer;
+    }
+
+    /**
+     * Sets the order of subsequent deferred draw calls within their layer, e.g.
+     * the y-coordinate of an object for y-sorting. Lower keys are drawn first.
+     * Ignored outside deferred mode.
+     *
+     * @param sortKey Sort key (clamped to -32768 - 32767).
+     */
+    public void setSortKey(int sortKey)
+    {
+        this.sortKey = sortKey;
+    }
+
+    /**
+     * @return Sort key of subsequent deferred draw calls.
+     */
+    public int getSortKey()
+    {
+        return sortKey;
+    }
+
+    /**
+     * Sets whether deferred draw calls with the same layer and sort key are
+     * grouped by source bitmap. This reorders such calls, so only enable it
+     * when calls that overlap are separated by layer or sort key.
+     *
+     * @param bitmapBatching Bitmap batching flag.
+     */
+    public void setBitmapBatching(boolean bitmapBatching)
+    {
+        this.bitmapBatching = bitmapBatching;
+    }
+
+    /**
+     * @return Bitmap batching flag.
+     */
+    public boolean isBitmapBatching()
+    {
+        return bitmapBatching;
+    }
+
+    /**
+     * Enables or disables dirty tracking. While enabled, {@link #clear()}
+     * only clears the regions drawn during the previous frame and
+     * {@link #getDirtyRegion()} covers just the pixels changed this frame, so
+     * the present path can copy only those. A frame whose drawn area exceeds
+     * the dirty threshold falls back to a full clear and present.
+     * <p>
+     * This pays off when large parts of the context are left at the clear
+     * color, such as menus where only text and a cursor are drawn.
+     *
+     * @param dirtyTracking Dirty tracking flag.
+     */
+    public void setDirtyTracking(boolean dirtyTracking)
+    {
+        this.dirtyTracking = dirtyTracking;
+        drawn.setFull();
+        dirty.setFull();
+    }
+
+    /**
+     * @return Dirty tracking flag.
+     */
+    public boolean isDirtyTracking()
+    {
+        return dirtyTracking;
+    }
+
+    /**
+     * Sets the fraction of the context area above which a frame is redrawn
+     * and presented in full.
+     *
+     * @param threshold Fraction of the context area (0f - 1f).
+     */
+    public void setDirtyThreshold(float threshold)
+    {
+        drawn.setThreshold(threshold);
+        previousDrawn.setThreshold(threshold);
+        dirty.setThreshold(threshold);
+    }
+
+    /**
+     * @return The regions changed during the current frame. Full when dirty
+     * tracking is disabled.
+     */
+    public DirtyRegion getDirtyRegion()
+    {
+        return dirty;
+    }
+
     /**
      * Sets the current font used for drawing text.
      *
@@ -432,7 +1021,8 @@ public class Context
     }
 
     /**
-     * @return Pixel color data of the context.
+     * @return Pixel color data of the context. Recorded draw calls only
+     * appear after {@link #flush()}.
      */
     public int[] getPixels()
     {
@@ -471,6 +1061,7 @@ public class Context
      */
     public void setClearColor(int color)
     {
+        if (color != clearColor) drawn.setFull();
         this.clearColor = color;
     }
 }
@@ -0,0 +1,245 @@
+package TransmuteCore.Graphics;
+
+/**
+ * {@code DirtyRegion} is a small set of rectangles covering the pixels of a
+ * canvas that changed during a frame.
+ * <br>
+ * Rectangles are kept in primitive arrays and reused between frames. When the
+ * covered area exceeds a threshold fraction of the canvas, or too many
+ * rectangles have been added, the region degrades to "full", meaning the whole
+ * canvas should be treated as changed.
+ */
+public class DirtyRegion
+{
+    /**
+     * Maximum number of separate rectangles kept before merging
+     */
+    public static final int MAX_RECTANGLES = 32;
+
+    private final int canvasWidth, canvasHeight; //Dimensions of the tracked canvas
+    private float threshold; //Fraction of the canvas area above which the region becomes full
+
+    private final int[] x0 = new int[MAX_RECTANGLES]; //Left edges
+    private final int[] y0 = new int[MAX_RECTANGLES]; //Top edges
+    private final int[] x1 = new int[MAX_RECTANGLES]; //Right edges (exclusive)
+    private final int[] y1 = new int[MAX_RECTANGLES]; //Bottom edges (exclusive)
+    private int count; //Number of rectangles
+    private long area; //Sum of the rectangle areas (overlaps counted twice)
+    private boolean full; //Whether the whole canvas is dirty
+
+    /**
+     * Creates an empty dirty region for a canvas of given dimensions.
+     *
+     * @param canvasWidth  Width of the canvas, in pixels.
+     * @param canvasHeight Height of the canvas, in pixels.
+     * @param threshold    Fraction of the canvas area (0f - 1f) above which the region becomes full.
+     */
+    public DirtyRegion(int canvasWidth, int canvasHeight, float threshold)
+    {
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Adds the rectangle [xStart, xEnd) x [yStart, yEnd), clipped to the canvas.
+     *
+     * @param xStart Left edge.
+     * @param yStart Top edge.
+     * @param xEnd   Right edge (exclusive).
+     * @param yEnd   Bottom edge (exclusive).
+     */
+    public void add(int xStart, int yStart, int xEnd, int yEnd)
+    {
+        if (full) return;
+
+        if (xStart < 0) xStart = 0;
+        if (yStart < 0) yStart = 0;
+        if (xEnd > canvasWidth) xEnd = canvasWidth;
+        if (yEnd > canvasHeight) yEnd = canvasHeight;
+        if (xStart >= xEnd || yStart >= yEnd) return;
+
+        for (int i = 0; i < count; i++)
+        {
+            if (xStart >= x0[i] && yStart >= y0[i] && xEnd <= x1[i] && yEnd <= y1[i]) return;
+        }
+
+        if (count == MAX_RECTANGLES)
+        {
+            mergeInto(closest(xStart, yStart, xEnd, yEnd), xStart, yStart, xEnd, yEnd);
+        } else
+        {
+            x0[count] = xStart;
+            y0[count] = yStart;
+            x1[count] = xEnd;
+            y1[count] = yEnd;
+            count++;
+            area += (long) (xEnd - xStart) * (yEnd - yStart);
+        }
+
+        if (area > (long) (threshold * canvasWidth * canvasHeight)) setFull();
+    }
+
+    /**
+     * Adds every rectangle of another region.
+     *
+     * @param region Region to add.
+     */
+    public void add(DirtyRegion region)
+    {
+        if (region.full)
+        {
+            setFull();
+            return;
+        }
+
+        for (int i = 0; i < region.count; i++) add(region.x0[i], region.y0[i], region.x1[i], region.y1[i]);
+    }
+
+    /**
+     * Replaces the contents of this region with those of another region.
+     *
+     * @param region Region to copy.
+     */
+    public void set(DirtyRegion region)
+    {
+        reset();
+        add(region);
+    }
+
+    /**
+     * Marks the whole canvas as dirty.
+     */
+    public void setFull()
+    {
+        full = true;
+        count = 1;
+        x0[0] = 0;
+        y0[0] = 0;
+        x1[0] = canvasWidth;
+        y1[0] = canvasHeight;
+        area = (long) canvasWidth * canvasHeight;
+    }
+
+    /**
+     * Empties the region.
+     */
+    public void reset()
+    {
+        full = false;
+        count = 0;
+        area = 0;
+    }
+
+    /**
+     * Finds the rectangle whose bounding box with a given rectangle grows the least.
+     */
+    private int closest(int xStart, int yStart, int xEnd, int yEnd)
+    {
+        int best = 0;
+        long bestGrowth = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++)
+        {
+            long merged = (long) (Math.max(xEnd, x1[i]) - Math.min(xStart, x0[i])) * (Math.max(yEnd, y1[i]) - Math.min(yStart, y0[i]));
+            long growth = merged - (long) (x1[i] - x0[i]) * (y1[i] - y0[i]);
+            if (growth < bestGrowth)
+            {
+                bestGrowth = growth;
+                best = i;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Grows a rectangle to the bounding box of itself and a given rectangle.
+     */
+    private void mergeInto(int i, int xStart, int yStart, int xEnd, int yEnd)
+    {
+        area -= (long) (x1[i] - x0[i]) * (y1[i] - y0[i]);
+        x0[i] = Math.min(x0[i], xStart);
+        y0[i] = Math.min(y0[i], yStart);
+        x1[i] = Math.max(x1[i], xEnd);
+        y1[i] = Math.max(y1[i], yEnd);
+        area += (long) (x1[i] - x0[i]) * (y1[i] - y0[i]);
+    }
+
+    /**
+     * @return Whether the whole canvas is dirty.
+     */
+    public boolean isFull()
+    {
+        return full;
+    }
+
+    /**
+     * @return Whether nothing is dirty.
+     */
+    public boolean isEmpty()
+    {
+        return count == 0;
+    }
+
+    /**
+     * @return Number of rectangles in the region.
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+    /**
+     * @param i Index of the rectangle.
+     * @return Left edge of a rectangle.
+     */
+    public int getX0(int i)
+    {
+        return x0[i];
+    }
+
+    /**
+     * @param i Index of the rectangle.
+     * @return Top edge of a rectangle.
+     */
+    public int getY0(int i)
+    {
+        return y0[i];
+    }
+
+    /**
+     * @param i Index of the rectangle.
+     * @return Right edge (exclusive) of a rectangle.
+     */
+    public int getX1(int i)
+    {
+        return x1[i];
+    }
+
+    /**
+     * @param i Index of the rectangle.
+     * @return Bottom edge (exclusive) of a rectangle.
+     */
+    public int getY1(int i)
+    {
+        return y1[i];
+    }
+
+    /**
+     * Sets the fraction of the canvas area above which the region becomes full.
+     *
+     * @param threshold Fraction of the canvas area (0f - 1f).
+     */
+    public void setThreshold(float threshold)
+    {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return Fraction of the canvas area above which the region becomes full.
+     */
+    public float getThreshold()
+    {
+        return threshold;
+    }
+}
@@ -0,0 +1,273 @@
+package TransmuteCore.Graphics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code DrawCommandBuffer} records the draw calls issued to a {@link Context}
+ * so they can be rasterized later, for example in parallel horizontal bands.
+ * <br>
+ * Commands are stored as parallel primitive arrays which grow as needed and
+ * are reused from frame to frame, so recording does not allocate once the
+ * buffer has reached its working size.
+ * <p>
+ * Each command carries a 48-bit sort key made of its layer, its sort key and a
+ * per-frame handle of its source bitmap (16 bits each, most significant first).
+ * {@link #sort()} orders the commands by that key with a stable LSD radix sort,
+ * so commands with equal keys keep their submission order.
+ */
+class DrawCommandBuffer
+{
+    static final byte CLEAR = 0x0; //Fills a rectangle, ignoring alpha
+    static final byte BITMAP = 0x1; //Draws a (pre-scaled) bitmap
+    static final byte FILL = 0x2; //Fills a rectangle
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int RADIX_BITS = 8;
+    private static final int KEY_BITS = 48;
+
+    private static final AtomicInteger frames = new AtomicInteger(); //Source of unique per-frame bitmap stamps
+
+    int count; //Number of recorded commands
+    byte[] type = new byte[INITIAL_CAPACITY]; //Command type
+    int[] x = new int[INITIAL_CAPACITY]; //x-coordinate, or left edge of a fill
+    int[] y = new int[INITIAL_CAPACITY]; //y-coordinate, or top edge of a fill
+    int[] x2 = new int[INITIAL_CAPACITY]; //Right edge (exclusive) of the command
+    int[] y2 = new int[INITIAL_CAPACITY]; //Bottom edge (exclusive) of the command
+    int[] color = new int[INITIAL_CAPACITY]; //Fill color, or tint color of a bitmap
+    int[] alpha = new int[INITIAL_CAPACITY]; //Global alpha (0 - 255)
+    byte[] blend = new byte[INITIAL_CAPACITY]; //Blend mode
+    Bitmap[] bitmap = new Bitmap[INITIAL_CAPACITY]; //Source bitmap of bitmap commands
+    long[] key = new long[INITIAL_CAPACITY]; //Layer, sort key and bitmap handle
+    int[] order = new int[INITIAL_CAPACITY]; //Execution order of the commands after sort()
+    private int[] scratch = new int[INITIAL_CAPACITY]; //Radix sort work space
+    private final int[] histogram = new int[1 << RADIX_BITS];
+
+    private boolean ordered = true; //Whether the keys were submitted in non-decreasing order
+    private int frame = frames.incrementAndGet(); //Stamp identifying bitmap handles of this frame
+    private int handles; //Number of bitmap handles handed out this frame
+
+    /**
+     * Records a command that overwrites the region [xStart, xEnd) x [yStart, yEnd)
+     * with a given color. Clears always sort before every other command.
+     *
+     * @param xStart     Left edge.
+     * @param yStart     Top edge.
+     * @param xEnd       Right edge (exclusive).
+     * @param yEnd       Bottom edge (exclusive).
+     * @param clearColor Color to fill the region with.
+     */
+    void addClear(int xStart, int yStart, int xEnd, int yEnd, int clearColor)
+    {
+        int i = next(CLEAR, 0L);
+        x[i] = xStart;
+        y[i] = yStart;
+        x2[i] = xEnd;
+        y2[i] = yEnd;
+        color[i] = clearColor;
+    }
+
+    /**
+     * Records a bitmap draw.
+     *
+     * @param scaled      Bitmap already scaled to its final size.
+     * @param x           x-coordinate on screen.
+     * @param y           y-coordinate on screen.
+     * @param globalAlpha Global alpha (0 - 255).
+     * @param tintColor   Tint color, or 0 for none.
+     * @param blendMode   Blend mode.
+     */
+    void addBitmap(Bitmap scaled, int x, int y, int globalAlpha, int tintColor, int blendMode)
+    {
+        addBitmap(scaled, x, y, globalAlpha, tintColor, blendMode, 0L);
+    }
+
+    /**
+     * Records a bitmap draw with a given sort key.
+     *
+     * @param scaled      Bitmap already scaled to its final size.
+     * @param x           x-coordinate on screen.
+     * @param y           y-coordinate on screen.
+     * @param globalAlpha Global alpha (0 - 255).
+     * @param tintColor   Tint color, or 0 for none.
+     * @param blendMode   Blend mode.
+     * @param sortKey     Sort key, see {@link #key(int, int, int)}.
+     */
+    void addBitmap(Bitmap scaled, int x, int y, int globalAlpha, int tintColor, int blendMode, long sortKey)
+    {
+        int i = next(BITMAP, sortKey);
+        this.x[i] = x;
+        this.y[i] = y;
+        this.x2[i] = x + scaled.getWidth();
+        this.y2[i] = y + scaled.getHeight();
+        this.alpha[i] = globalAlpha;
+        this.color[i] = tintColor;
+        this.blend[i] = (byte) blendMode;
+        this.bitmap[i] = scaled;
+    }
+
+    /**
+     * Records a rectangle fill of the region [xStart, xEnd) x [yStart, yEnd).
+     *
+     * @param xStart    Left edge.
+     * @param yStart    Top edge.
+     * @param xEnd      Right edge (exclusive).
+     * @param yEnd      Bottom edge (exclusive).
+     * @param color     Fill color.
+     * @param blendMode Blend mode.
+     */
+    void addFill(int xStart, int yStart, int xEnd, int yEnd, int color, int blendMode)
+    {
+        addFill(xStart, yStart, xEnd, yEnd, color, blendMode, 0L);
+    }
+
+    /**
+     * Records a rectangle fill of the region [xStart, xEnd) x [yStart, yEnd) with a given sort key.
+     *
+     * @param xStart    Left edge.
+     * @param yStart    Top edge.
+     * @param xEnd      Right edge (exclusive).
+     * @param yEnd      Bottom edge (exclusive).
+     * @param color     Fill color.
+     * @param blendMode Blend mode.
+     * @param sortKey   Sort key, see {@link #key(int, int, int)}.
+     */
+    void addFill(int xStart, int yStart, int xEnd, int yEnd, int color, int blendMode, long sortKey)
+    {
+        int i = next(FILL, sortKey);
+        this.x[i] = xStart;
+        this.y[i] = yStart;
+        this.x2[i] = xEnd;
+        this.y2[i] = yEnd;
+        this.color[i] = color;
+        this.blend[i] = (byte) blendMode;
+    }
+
+    /**
+     * Forgets every recorded command, keeping the allocated storage.
+     */
+    void reset()
+    {
+        Arrays.fill(bitmap, 0, count, null);
+        count = 0;
+        ordered = true;
+        handles = 0;
+        frame = frames.incrementAndGet();
+    }
+
+    /**
+     * Packs a layer, a sort key and a bitmap handle into a command sort key.
+     * Layer and sort key are clamped to the range of a short.
+     *
+     * @param layer        Draw layer, lower layers are drawn first.
+     * @param sortKey      Order within the layer, e.g. the y-coordinate for y-sorting.
+     * @param bitmapHandle Handle from {@link #handleOf(Bitmap)}, or 0.
+     * @return The packed 48-bit sort key.
+     */
+    static long key(int layer, int sortKey, int bitmapHandle)
+    {
+        long l = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, layer)) - Short.MIN_VALUE;
+        long k = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sortKey)) - Short.MIN_VALUE;
+        return (l << 32) | (k << 16) | bitmapHandle;
+    }
+
+    /**
+     * Supplies a small per-frame handle for a bitmap, the same for every
+     * command of this frame drawing that bitmap. The handle is stored on the
+     * bitmap itself so the lookup does not allocate. Handles saturate at 0xFFFF,
+     * which only weakens batching.
+     *
+     * @param source Source bitmap.
+     * @return Handle of the bitmap in this frame (1 - 0xFFFF).
+     */
+    int handleOf(Bitmap source)
+    {
+        if (source.batchFrame != frame)
+        {
+            source.batchFrame = frame;
+            source.batchHandle = Math.min(++handles, 0xFFFF);
+        }
+
+        return source.batchHandle;
+    }
+
+    /**
+     * Fills {@link #order} with the command indices, stably sorted by key.
+     * The sort is skipped entirely when commands were submitted in key order,
+     * and radix passes are skipped for digits that all commands share.
+     */
+    void sort()
+    {
+        int[] order = this.order;
+        for (int i = 0; i < count; i++) order[i] = i;
+        if (ordered) return;
+
+        int[] scratch = this.scratch;
+        int[] histogram = this.histogram;
+        long[] key = this.key;
+        int mask = (1 << RADIX_BITS) - 1;
+
+        for (int shift = 0; shift < KEY_BITS; shift += RADIX_BITS)
+        {
+            Arrays.fill(histogram, 0);
+            for (int i = 0; i < count; i++) histogram[(int) (key[i] >>> shift) & mask]++;
+            if (histogram[(int) (key[0] >>> shift) & mask] == count) continue;
+
+            for (int i = 0, sum = 0; i < histogram.length; i++)
+            {
+                int bucket = histogram[i];
+                histogram[i] = sum;
+                sum += bucket;
+            }
+
+            for (int i = 0; i < count; i++)
+            {
+                int command = order[i];
+                scratch[histogram[(int) (key[command] >>> shift) & mask]++] = command;
+            }
+
+            int[] swap = order;
+            order = scratch;
+            scratch = swap;
+        }
+
+        this.order = order;
+        this.scratch = scratch;
+    }
+
+    /**
+     * Reserves the next command slot, growing the storage if needed.
+     *
+     * @param commandType Type of the command.
+     * @param sortKey     Sort key of the command.
+     * @return Index of the reserved slot.
+     */
+    private int next(byte commandType, long sortKey)
+    {
+        if (count == type.length) grow();
+        if (count > 0 && sortKey < key[count - 1]) ordered = false;
+        type[count] = commandType;
+        key[count] = sortKey;
+        return count++;
+    }
+
+    /**
+     * Doubles the capacity of every command array.
+     */
+    private void grow()
+    {
+        int capacity = type.length * 2;
+        type = Arrays.copyOf(type, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        x2 = Arrays.copyOf(x2, capacity);
+        y2 = Arrays.copyOf(y2, capacity);
+        color = Arrays.copyOf(color, capacity);
+        alpha = Arrays.copyOf(alpha, capacity);
+        blend = Arrays.copyOf(blend, capacity);
+        bitmap = Arrays.copyOf(bitmap, capacity);
+        key = Arrays.copyOf(key, capacity);
+        order = new int[capacity];
+        scratch = new int[capacity];
+    }
+}
@@ -79,6 +79,21 @@ public class Rectangle
         this.height = bounds.height;
     }
 
+    /**
+     * Method used to update the properties of the rectangle to those of another rectangle.
+     *
+     * @param r The rectangle to copy.
+     * @return This rectangle.
+     */
+    public Rectangle set(Rectangle r)
+    {
+        this.x = r.x;
+        this.y = r.y;
+        this.width = r.width;
+        this.height = r.height;
+        return this;
+    }
+
     /**
      * @return A rectangle object given this object's x, y, width and height
      */
@@ -87,10 +102,22 @@ public class Rectangle
         return new Rectangle(x, y, width, height);
     }
 
+    /**
+     * Copies this object's x, y, width and height into a given rectangle,
+     * which avoids allocating a new one.
+     *
+     * @param dest The rectangle to fill.
+     * @return The given rectangle.
+     */
+    public Rectangle getBounds(Rectangle dest)
+    {
+        return dest.set(this);
+    }
+
     /**
      * Determines whether or not this <code>Rectangle</code> and the specified
      * <code>Rectangle</code> intersect. Two rectangles intersect if
-     * their intersection is non-empty.
+     * their intersection is non-empty. Neither rectangle is modified.
      *
      * @param r the specified <code>Rectangle</code>
      * @return <code>true</code> if the specified <code>Rectangle</code>
@@ -99,20 +126,26 @@ public class Rectangle
      */
     public boolean intersects(Rectangle r)
     {
-        if (r.width <= 0 || r.height <= 0 || width <= 0 || height <= 0)
-        {
-            return false;
-        }
+        return intersects(r.x, r.y, r.width, r.height);
+    }
 
-        r.width += r.x;
-        r.height += r.y;
-        width += x;
-        height += y;
+    /**
+     * Determines whether or not this <code>Rectangle</code> and the specified
+     * rectangle intersect. Two rectangles intersect if their intersection is non-empty.
+     *
+     * @param x      The x-location of the specified rectangle.
+     * @param y      The y-location of the specified rectangle.
+     * @param width  The width of the specified rectangle.
+     * @param height The height of the specified rectangle.
+     * @return <code>true</code> if the specified rectangle and this
+     * <code>Rectangle</code> intersect; <code>false</code> otherwise.
+     */
+    public boolean intersects(int x, int y, float width, float height)
+    {
+        if (width <= 0 || height <= 0 || this.width <= 0 || this.height <= 0) return false;
 
-        return ((r.width < r.x || r.width > x) &&
-                (r.height < r.y || r.height > y) &&
-                (width < x || width > r.x) &&
-                (height < y || height > r.y));
+        return x < this.x + this.width && this.x < x + width &&
+                y < this.y + this.height && this.y < y + height;
     }
 
     /**
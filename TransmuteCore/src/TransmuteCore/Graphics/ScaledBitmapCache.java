@@ -0,0 +1,142 @@
+package TransmuteCore.Graphics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * {@code ScaledBitmapCache} holds scaled variants of bitmaps so that repeated
+ * scaled draws do not rebuild the scaled image every frame.
+ * <br>
+ * Source bitmaps are weakly referenced, so a cached variant lives exactly as
+ * long as the bitmap it was generated from. Each bitmap keeps at most
+ * {@link #MAX_VARIANTS} variants, evicting the least recently used one.
+ * <p>
+ * The cache assumes the pixel data of a source bitmap does not change after it
+ * has been drawn scaled. Call {@link #invalidate(Bitmap)} after editing one.
+ */
+public class ScaledBitmapCache
+{
+    /**
+     * Maximum number of scaled variants kept per source bitmap
+     */
+    public static final int MAX_VARIANTS = 4;
+
+    /**
+     * Scaled variants keyed by source bitmap, then by packed (width, height)
+     */
+    private static final Map<Bitmap, Map<Long, Bitmap>> cache = new WeakHashMap<>();
+
+    /**
+     * Number of lookups served from the cache
+     */
+    private static long hits;
+
+    /**
+     * Number of lookups that had to generate a scaled bitmap
+     */
+    private static long misses;
+
+    /**
+     * Supplies a scaled version of a bitmap, generating and caching it if needed.
+     *
+     * @param bitmap Source bitmap.
+     * @param scale  Scaling ratio (1.0f is 1:1 ratio).
+     * @return The scaled version of the bitmap.
+     */
+    public static Bitmap get(Bitmap bitmap, float scale)
+    {
+        if (scale == 1.0f) return bitmap;
+
+        return get(bitmap, (int) ((float) bitmap.getWidth() * scale), (int) ((float) bitmap.getHeight() * scale));
+    }
+
+    /**
+     * Supplies a version of a bitmap scaled to a given dimension, generating and caching it if needed.
+     *
+     * @param bitmap Source bitmap.
+     * @param width  Width of the scaled bitmap.
+     * @param height Height of the scaled bitmap.
+     * @return The scaled version of the bitmap.
+     */
+    public static synchronized Bitmap get(Bitmap bitmap, int width, int height)
+    {
+        if (width == bitmap.getWidth() && height == bitmap.getHeight()) return bitmap;
+
+        Map<Long, Bitmap> variants = cache.get(bitmap);
+        if (variants == null)
+        {
+            variants = new LinkedHashMap<Long, Bitmap>(MAX_VARIANTS + 1, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Bitmap> eldest)
+                {
+                    return size() > MAX_VARIANTS;
+                }
+            };
+            cache.put(bitmap, variants);
+        }
+
+        Long key = ((long) width << 32) | (height & 0xFFFFFFFFL);
+        Bitmap scaled = variants.get(key);
+        if (scaled != null)
+        {
+            hits++;
+            return scaled;
+        }
+
+        misses++;
+        scaled = bitmap.getScaled(width, height);
+        variants.put(key, scaled);
+        return scaled;
+    }
+
+    /**
+     * Drops every cached variant of a bitmap. Must be called after
+     * the pixel data of a bitmap drawn with scaling has been modified.
+     *
+     * @param bitmap Source bitmap.
+     */
+    public static synchronized void invalidate(Bitmap bitmap)
+    {
+        cache.remove(bitmap);
+    }
+
+    /**
+     * Drops every cached variant and resets the hit/miss counters.
+     */
+    public static synchronized void clear()
+    {
+        cache.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * @return Number of lookups served from the cache.
+     */
+    public static synchronized long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * @return Number of lookups that had to generate a scaled bitmap.
+     */
+    public static synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * @return Number of source bitmaps that currently hold cached variants.
+     */
+    public static synchronized int size()
+    {
+        return cache.size();
+    }
+
+    private ScaledBitmapCache()
+    {
+    }
+}
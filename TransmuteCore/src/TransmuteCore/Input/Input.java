@@ -30,12 +30,15 @@ public class Input implements KeyListener, MouseListener, MouseMotionListener
     }
 
     /**
-     * The constructor that sets up input.
+     * The constructor that sets up input. A headless engine has no
+     * window to listen to, so no input is received.
      *
      * @param gameEngine The game engine object.
      */
     public Input(TransmuteCore gameEngine)
     {
+        if (gameEngine.getGameWindow() == null) return;
+
         gameEngine.getGameWindow().getCanvas().addKeyListener(this);
         gameEngine.getGameWindow().getCanvas().addMouseListener(this);
         gameEngine.getGameWindow().getCanvas().addMouseMotionListener(this);
@@ -120,31 +120,24 @@ public abstract class Level implements Updatable, Renderable
      * @param radius The distance from the given mob to the edge of the circle.
      * @return The list of mobs in a given radius.
      */
-    public synchronized List<Mob> getMobs(Mob m, int radius)
+    public List<Mob> getMobs(Mob m, int radius)
     {
-        List<Mob> result = new ArrayList<>();
-        int mx = m.getX();
-        int my = m.getY();
-
-        for (int i = 0; i < objManager.objectList.size(); i++)
-        {
-            Object object = objManager.objectList.get(i);
-
-            if (object.equals(m)) continue;
-
-            if (object instanceof Mob)
-            {
-                Mob mob = (Mob) object;
-                int x = mob.getX();
-                int y = mob.getY();
-                int dx = Math.abs(x - mx);
-                int dy = Math.abs(y - my);
-                double distance = Math.sqrt((dx * dx) + (dy * dy));
-                if (distance <= radius) result.add(mob);
-            }
-        }
+        return getMobs(m, radius, new ArrayList<>());
+    }
 
-        return result;
+    /**
+     * Method grabs the mobs in a given radius into a caller-supplied list,
+     * which avoids allocating a list per query.
+     *
+     * @param m      The central mob.
+     * @param radius The distance from the given mob to the edge of the circle.
+     * @param result The list to fill, cleared first.
+     * @return The given list.
+     */
+    public synchronized List<Mob> getMobs(Mob m, int radius, List<Mob> result)
+    {
+        result.clear();
+        return objManager.getGrid().queryRadius(m.getX(), m.getY(), radius, m, Mob.class, result);
     }
 
     /**
@@ -154,29 +147,51 @@ public abstract class Level implements Updatable, Renderable
      * @param radius The distance from the given object to the edge of the circle.
      * @return The list of objects in a given radius.
      */
-    public synchronized List<Object> getObjects(Object obj, int radius)
+    public List<Object> getObjects(Object obj, int radius)
     {
-        List<Object> result = new ArrayList<>();
-        int ox = obj.getX();
-        int oy = obj.getY();
-
-        for (int i = 0; i < objManager.objectList.size(); i++)
-        {
-            Object object = objManager.objectList.get(i);
+        return getObjects(obj, radius, new ArrayList<>());
+    }
 
-            if (object.equals(obj) || object instanceof Mob) continue;
+    /**
+     * Method grabs the objects which are not mobs in a given radius into a
+     * caller-supplied list, which avoids allocating a list per query.
+     *
+     * @param obj    The central object.
+     * @param radius The distance from the given object to the edge of the circle.
+     * @param result The list to fill, cleared first.
+     * @return The given list.
+     */
+    public synchronized List<Object> getObjects(Object obj, int radius, List<Object> result)
+    {
+        result.clear();
+        objManager.getGrid().queryRadius(obj.getX(), obj.getY(), radius, obj, Object.class, result);
 
-            int x = object.getX();
-            int y = object.getY();
-            int dx = Math.abs(x - ox);
-            int dy = Math.abs(y - oy);
-            double distance = Math.sqrt((dx * dx) + (dy * dy));
-            if (distance <= radius) result.add(object);
+        int kept = 0;
+        for (int i = 0; i < result.size(); i++)
+        {
+            if (!(result.get(i) instanceof Mob)) result.set(kept++, result.get(i));
         }
+        while (result.size() > kept) result.remove(result.size() - 1);
 
         return result;
     }
 
+    /**
+     * Method grabs the objects located within a given rectangle into a caller-supplied list.
+     *
+     * @param x      The x-location of the rectangle.
+     * @param y      The y-location of the rectangle.
+     * @param width  The width of the rectangle.
+     * @param height The height of the rectangle.
+     * @param result The list to fill, cleared first.
+     * @return The given list.
+     */
+    public synchronized List<Object> getObjects(int x, int y, int width, int height, List<Object> result)
+    {
+        result.clear();
+        return objManager.getGrid().queryRectangle(x, y, width, height, null, Object.class, result);
+    }
+
     /**
      * Method used to set the x and y offsets.
      *
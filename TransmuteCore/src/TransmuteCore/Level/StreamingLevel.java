@@ -0,0 +1,721 @@
+package TransmuteCore.Level;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import TransmuteCore.GameEngine.Manager;
+import TransmuteCore.GameEngine.TransmuteCore;
+import TransmuteCore.Objects.Object;
+import TransmuteCore.System.Error;
+
+/**
+ * {@code StreamingLevel} is a tiled level too large to be held in memory as a whole.
+ * <br>
+ * The tiles are stored in a chunk file, written with {@link #write(TiledLevel, String, int)},
+ * as square chunks of palette indices. Every update, the chunks around the camera
+ * and around the level's objects are loaded on a background thread, and the least
+ * recently used chunks beyond {@link #setMaxResidentChunks(int)} are evicted,
+ * writing back the ones modified through {@link #setTile(int, int, int)}.
+ * <p>
+ * {@link #getTile(int, int)} keeps the contract of {@link TiledLevel}: the tile of
+ * a chunk that is not resident yet is read by the calling thread, so rendering,
+ * collision and path finding always see the whole level. Tiles may be read from
+ * any thread; the level is modified and streamed from the game loop thread only.
+ * <p>
+ * File layout (big-endian): {@code "TCL"}, version (short), width, height,
+ * chunk size (ints), index size in bytes (byte), palette size (int), the tile key
+ * of every palette entry up to the palette capacity (ints), then every chunk row
+ * by row, each holding {@code chunkSize * chunkSize} palette indices row by row,
+ * padded with index 0 past the edges of the level.
+ */
+public class StreamingLevel extends TiledLevel
+{
+    /**
+     * Default width and height of a chunk, in tiles
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64;
+
+    /**
+     * Default maximum number of chunks kept in memory
+     */
+    public static final int DEFAULT_MAX_RESIDENT = 256;
+
+    static final byte[] HEADER = "TCL".getBytes();
+    static final short VERSION = 0x0100;
+    private static final int HEADER_SIZE = 3 + 2 + 4 + 4 + 4 + 1 + 4; //Bytes before the palette
+
+    private FileChannel channel; //Channel of the chunk file
+    private String filePath; //Path of the chunk file
+    private int chunkSize; //Width and height of a chunk, in tiles
+    private int columns, rows; //Number of chunks across and down the level
+    private int indexBytes; //Size of a palette index in the file (1 or 2 bytes)
+    private int paletteSize; //Number of palette entries
+    private int[] paletteKeys; //Tile key of every palette index, up to the palette capacity
+    private Map<Integer, Integer> paletteIndices; //Palette index of every tile key
+    private long dataOffset; //Position of the first chunk in the file
+    private AtomicReferenceArray<Chunk> resident; //Resident chunks, null where not loaded
+    private Set<Integer> pending; //Chunks queued for loading
+    private AtomicIntegerArray versions; //Number of times each chunk was evicted, so loads that overlapped an eviction are discarded
+    private boolean paletteDirty; //Whether the palette changed since the header was written
+
+    private volatile Tile[] paletteTiles; //Tile of every palette index, or null if outdated
+    private int[] residentChunks = new int[64]; //Indices of the resident chunks, guarded by the level along with loading and eviction
+    private int residentCount; //Number of resident chunks
+    private int maxResident = DEFAULT_MAX_RESIDENT; //Resident chunks kept before evicting
+    private int streamRadius = 1; //Chunks loaded past the camera's view and around objects
+    private final AtomicLong clock = new AtomicLong(); //Number of chunk uses, stamping the chunks in order of use
+    private long passStart; //Clock at the start of the current streaming pass
+    private ExecutorService loader; //Background chunk loader
+
+    /**
+     * A chunk of palette indices read from the chunk file.
+     */
+    private static class Chunk
+    {
+        private final byte[] bytes; //Palette indices if the file stores them in bytes
+        private final short[] shorts; //Palette indices if the file stores them in shorts
+        private volatile long used; //Clock of the chunk's last use
+        private boolean dirty; //Whether the chunk was modified since it was read
+
+        private Chunk(byte[] bytes, short[] shorts)
+        {
+            this.bytes = bytes;
+            this.shorts = shorts;
+        }
+
+        private int indexAt(int cell)
+        {
+            return bytes != null ? bytes[cell] & 0xFF : shorts[cell] & 0xFFFF;
+        }
+    }
+
+    /**
+     * Opens a level from a chunk file. The file stays open until {@link #close()}.
+     *
+     * @param filePath The path to the chunk file on disk.
+     */
+    public StreamingLevel(String filePath)
+    {
+        super(filePath);
+    }
+
+    /**
+     * Reads the header and palette of a chunk file.
+     * NOTE: The file must have been written by {@link #write(TiledLevel, String, int)}.
+     *
+     * @param filePath The path to the chunk file on disk.
+     */
+    @Override
+    public void load(String filePath)
+    {
+        try
+        {
+            this.filePath = filePath;
+            channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(header, 0);
+            byte[] magic = new byte[HEADER.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, HEADER) || header.getShort() != VERSION)
+            {
+                new Error("[StreamingLevel]: [" + filePath + "] is not a chunk file of version " + VERSION + ".");
+                return;
+            }
+
+            width = header.getInt();
+            height = header.getInt();
+            chunkSize = header.getInt();
+            indexBytes = header.get();
+            paletteSize = header.getInt();
+
+            ByteBuffer palette = ByteBuffer.allocate(getPaletteCapacity(indexBytes) * 4);
+            readFully(palette, HEADER_SIZE);
+            paletteKeys = new int[getPaletteCapacity(indexBytes)];
+            palette.asIntBuffer().get(paletteKeys);
+            dataOffset = HEADER_SIZE + palette.capacity();
+        } catch (IOException e)
+        {
+            new Error(Error.FileNotFoundException("StreamingLevel", filePath));
+            return;
+        }
+
+        paletteIndices = new HashMap<>();
+        for (int i = 0; i < paletteSize; i++) paletteIndices.put(paletteKeys[i], i);
+
+        columns = (width + chunkSize - 1) / chunkSize;
+        rows = (height + chunkSize - 1) / chunkSize;
+        resident = new AtomicReferenceArray<>(columns * rows);
+        pending = ConcurrentHashMap.newKeySet();
+        versions = new AtomicIntegerArray(columns * rows);
+    }
+
+    /**
+     * Streams the chunks around the camera and the level's objects in, evicts
+     * the least recently used chunks, then updates the level.
+     *
+     * @param manager The engine manager object.
+     * @param delta   Time elapsed between each frame.
+     */
+    @Override
+    public void update(Manager manager, double delta)
+    {
+        stream();
+        super.update(manager, delta);
+    }
+
+    /**
+     * Requests the chunks around the camera and the level's objects, then
+     * evicts the least recently used chunks that were not requested.
+     */
+    private void stream()
+    {
+        passStart = clock.incrementAndGet();
+
+        int chunkPixels = chunkSize * getTileSize();
+        if (chunkPixels > 0)
+        {
+            int scale = Math.max(1, TransmuteCore.getScale());
+            int viewWidth = TransmuteCore.getWidth() / scale, viewHeight = TransmuteCore.getHeight() / scale;
+            request(Math.floorDiv(xOffset, chunkPixels) - streamRadius, Math.floorDiv(yOffset, chunkPixels) - streamRadius,
+                    Math.floorDiv(xOffset + viewWidth, chunkPixels) + streamRadius, Math.floorDiv(yOffset + viewHeight, chunkPixels) + streamRadius);
+
+            for (Object obj : objManager.objectList)
+            {
+                int cx = Math.floorDiv(obj.getX(), chunkPixels), cy = Math.floorDiv(obj.getY(), chunkPixels);
+                request(cx - streamRadius, cy - streamRadius, cx + streamRadius, cy + streamRadius);
+            }
+        }
+
+        synchronized (this)
+        {
+            while (residentCount > maxResident)
+            {
+                if (!evictChunk(passStart, -1)) break;
+            }
+        }
+    }
+
+    /**
+     * Marks the resident chunks of a range as used and queues the others for loading.
+     */
+    private void request(int cxStart, int cyStart, int cxEnd, int cyEnd)
+    {
+        for (int cy = Math.max(0, cyStart); cy <= Math.min(rows - 1, cyEnd); cy++)
+        {
+            for (int cx = Math.max(0, cxStart); cx <= Math.min(columns - 1, cxEnd); cx++)
+            {
+                int index = cx + cy * columns;
+                Chunk chunk = resident.get(index);
+                if (chunk != null) chunk.used = clock.incrementAndGet();
+                else if (pending.add(index)) getLoader().execute(() ->
+                {
+                    try
+                    {
+                        if (resident.get(index) == null) loadChunk(index);
+                    } finally
+                    {
+                        pending.remove(index);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Drops the least recently used chunk last used before a given clock,
+     * writing it back to the file first if it was modified.
+     *
+     * @param before Clock before which the chunk must have been last used.
+     * @param keep   Index of a chunk that must not be dropped, or -1.
+     * @return Weather or not a chunk was dropped.
+     */
+    private boolean evictChunk(long before, int keep)
+    {
+        int oldest = -1;
+        for (int i = 0; i < residentCount; i++)
+        {
+            Chunk chunk = resident.get(residentChunks[i]);
+            if (chunk.used >= before || residentChunks[i] == keep) continue;
+            if (oldest < 0 || chunk.used < resident.get(residentChunks[oldest]).used) oldest = i;
+        }
+        if (oldest < 0) return false;
+
+        int index = residentChunks[oldest];
+        Chunk chunk = resident.get(index);
+        if (chunk.dirty) writeChunk(index, chunk);
+        resident.set(index, null);
+        versions.incrementAndGet(index);
+        residentChunks[oldest] = residentChunks[--residentCount];
+        return true;
+    }
+
+    /**
+     * Reads a chunk from the file and makes it resident, unless another thread did so first.
+     * The file is read without holding the level, and the read is discarded and
+     * repeated if the chunk was evicted meanwhile, as it may have been modified
+     * and written back while being read.
+     *
+     * @return The resident chunk.
+     */
+    private Chunk loadChunk(int index)
+    {
+        int cells = chunkSize * chunkSize;
+        while (true)
+        {
+            int version = versions.get(index);
+            ByteBuffer buffer = ByteBuffer.allocate(cells * indexBytes);
+            try
+            {
+                readFully(buffer, dataOffset + (long) index * buffer.capacity());
+            } catch (IOException e)
+            {
+                new Error("[StreamingLevel]: Chunk " + index + " of [" + filePath + "] could not be read.");
+                return null;
+            }
+
+            Chunk chunk;
+            if (indexBytes == 1)
+            {
+                chunk = new Chunk(buffer.array(), null);
+            } else
+            {
+                short[] shorts = new short[cells];
+                buffer.asShortBuffer().get(shorts);
+                chunk = new Chunk(null, shorts);
+            }
+
+            synchronized (this)
+            {
+                Chunk current = resident.get(index);
+                if (current != null) return current;
+                if (versions.get(index) != version) continue;
+
+                chunk.used = clock.incrementAndGet();
+                resident.set(index, chunk);
+                if (residentCount == residentChunks.length) residentChunks = Arrays.copyOf(residentChunks, residentCount * 2);
+                residentChunks[residentCount++] = index;
+                return chunk;
+            }
+        }
+    }
+
+    /**
+     * Writes a modified chunk back to the file.
+     */
+    private void writeChunk(int index, Chunk chunk)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(chunkSize * chunkSize * indexBytes);
+        if (chunk.bytes != null) buffer.put(chunk.bytes);
+        else buffer.asShortBuffer().put(chunk.shorts);
+        buffer.rewind();
+
+        try
+        {
+            writeFully(buffer, dataOffset + (long) index * buffer.capacity());
+        } catch (IOException e)
+        {
+            new Error("[StreamingLevel]: Chunk " + index + " of [" + filePath + "] could not be written.");
+            return;
+        }
+        chunk.dirty = false;
+    }
+
+    /**
+     * Supplies the chunk holding a location, reading it on the calling thread if it is not resident.
+     */
+    private Chunk chunkAt(int x, int y)
+    {
+        int index = x / chunkSize + y / chunkSize * columns;
+        Chunk chunk = resident.get(index);
+        if (chunk == null) return loadResident(index);
+
+        chunk.used = clock.incrementAndGet();
+        return chunk;
+    }
+
+    /**
+     * Reads a chunk on the calling thread, then evicts the least recently used
+     * chunks other than it beyond the maximum, so reading across the level, e.g.
+     * by a search or a snapshot, does not keep every chunk it visits in memory.
+     *
+     * @return The resident chunk.
+     */
+    private Chunk loadResident(int index)
+    {
+        Chunk chunk = loadChunk(index);
+        synchronized (this)
+        {
+            while (residentCount > maxResident)
+            {
+                if (!evictChunk(Long.MAX_VALUE, index)) break;
+            }
+        }
+
+        return chunk;
+    }
+
+    /**
+     * Supplies the palette index stored at a location.
+     */
+    private int paletteIndexAt(int x, int y)
+    {
+        return chunkAt(x, y).indexAt(x % chunkSize + y % chunkSize * chunkSize);
+    }
+
+    @Override
+    public Tile getTile(int x, int y)
+    {
+        if (x < 0 || x >= width || y < 0 || y >= height) return null;
+
+        Tile[] tiles = paletteTiles;
+        if (tiles == null)
+        {
+            tiles = new Tile[paletteSize];
+            for (int i = 0; i < tiles.length; i++) tiles[i] = getMappedTile(paletteKeys[i]);
+            paletteTiles = tiles;
+        }
+
+        int index = paletteIndexAt(x, y);
+        return index < tiles.length ? tiles[index] : getMappedTile(paletteKeys[index]);
+    }
+
+    /**
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     * @return Weather or not the location holds a solid tile (false outside the level).
+     */
+    @Override
+    public boolean isSolid(int x, int y)
+    {
+        Tile tile = getTile(x, y);
+        return tile != null && tile.isSolid();
+    }
+
+    /**
+     * Not available, as the level is never held in memory as a whole; searches
+     * look up the tiles of the chunks they visit instead.
+     *
+     * @return null.
+     */
+    @Override
+    public long[] getWalkableCells()
+    {
+        return null;
+    }
+
+    @Override
+    public int getTileKey(int x, int y)
+    {
+        return paletteKeys[paletteIndexAt(x, y)];
+    }
+
+    /**
+     * Sets the tile at a given location. The chunk holding it is written back to
+     * the file when it is evicted, or on {@link #flush()}.
+     *
+     * @param x   x-coordinate of the tile.
+     * @param y   y-coordinate of the tile.
+     * @param key The key of the tile, as given to {@link #addTile(int, Tile)}.
+     */
+    @Override
+    public void setTile(int x, int y, int key)
+    {
+        if (x < 0 || x >= width || y < 0 || y >= height) return;
+
+        Integer index = paletteIndices.get(key);
+        if (index == null)
+        {
+            if (paletteSize == getPaletteCapacity(indexBytes))
+            {
+                new Error("[StreamingLevel]: The palette of [" + filePath + "] cannot hold more than " + paletteSize + " tile keys.");
+                return;
+            }
+
+            index = paletteSize;
+            paletteKeys[paletteSize++] = key;
+            paletteIndices.put(key, index);
+            paletteTiles = null;
+            paletteDirty = true;
+        }
+
+        synchronized (this)
+        {
+            //Under the lock, so the chunk cannot be evicted before it is marked dirty
+            Chunk chunk = chunkAt(x, y);
+            int cell = x % chunkSize + y % chunkSize * chunkSize;
+            if (chunk.bytes != null) chunk.bytes[cell] = (byte) (int) index;
+            else chunk.shorts[cell] = (short) (int) index;
+            chunk.dirty = true;
+        }
+        invalidateTile(x, y);
+        fireTileChanged(x, y);
+    }
+
+    /**
+     * Not supported, as the level is never held in memory as a whole.
+     * Use {@link #write(TiledLevel, String, int)} to create a chunk file instead.
+     */
+    @Override
+    public void setData(int[] keys)
+    {
+        new Error("[StreamingLevel]: The tiles of a streaming level cannot be replaced as a whole.");
+    }
+
+    /**
+     * Supplies a copy of the tile key of every location, row by row.
+     * NOTE: This reads the whole level and should only be used for small levels or tools.
+     *
+     * @return The tile keys of the level.
+     */
+    @Override
+    public int[] getData()
+    {
+        int[] keys = new int[width * height];
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++) keys[x + y * width] = getTileKey(x, y);
+        }
+
+        return keys;
+    }
+
+    @Override
+    public int getPaletteSize()
+    {
+        return paletteSize;
+    }
+
+    @Override
+    public void addTile(int index, Tile tile)
+    {
+        paletteTiles = null;
+        super.addTile(index, tile);
+    }
+
+    /**
+     * Writes every modified resident chunk and the palette back to the file.
+     */
+    public void flush()
+    {
+        synchronized (this)
+        {
+            for (int i = 0; i < residentCount; i++)
+            {
+                Chunk chunk = resident.get(residentChunks[i]);
+                if (chunk.dirty) writeChunk(residentChunks[i], chunk);
+            }
+        }
+
+        if (!paletteDirty) return;
+
+        ByteBuffer palette = ByteBuffer.allocate(4 + paletteKeys.length * 4);
+        palette.putInt(paletteSize);
+        palette.asIntBuffer().put(paletteKeys);
+        palette.rewind();
+        try
+        {
+            writeFully(palette, HEADER_SIZE - 4);
+        } catch (IOException e)
+        {
+            new Error("[StreamingLevel]: The palette of [" + filePath + "] could not be written.");
+            return;
+        }
+        paletteDirty = false;
+    }
+
+    /**
+     * Flushes the level, stops the background loader and closes the chunk file.
+     */
+    public void close()
+    {
+        if (loader != null) loader.shutdown();
+        flush();
+        try
+        {
+            channel.close();
+        } catch (IOException e)
+        {
+            new Error("[StreamingLevel]: [" + filePath + "] could not be closed.");
+        }
+    }
+
+    /**
+     * Writes a level to a chunk file which can then be opened as a {@code StreamingLevel}.
+     * Palette indices are stored in bytes if the level holds at most 256 distinct
+     * tile keys, otherwise in shorts.
+     *
+     * @param level     The level to write.
+     * @param filePath  The path to the chunk file on disk.
+     * @param chunkSize Width and height of a chunk, in tiles (e.g. {@code DEFAULT_CHUNK_SIZE}).
+     */
+    public static void write(TiledLevel level, String filePath, int chunkSize)
+    {
+        int width = level.getWidth(), height = level.getHeight();
+        Map<Integer, Integer> indices = new HashMap<>();
+        int[] keys = new int[MAX_PALETTE_SIZE];
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int key = level.getTileKey(x, y);
+                if (indices.containsKey(key)) continue;
+
+                keys[indices.size()] = key;
+                indices.put(key, indices.size());
+            }
+        }
+
+        int indexBytes = indices.size() <= 256 ? 1 : 2;
+        int columns = (width + chunkSize - 1) / chunkSize, rows = (height + chunkSize - 1) / chunkSize;
+
+        try (FileChannel out = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + getPaletteCapacity(indexBytes) * 4);
+            header.put(HEADER).putShort(VERSION).putInt(width).putInt(height).putInt(chunkSize)
+                    .put((byte) indexBytes).putInt(indices.size());
+            for (int i = 0; i < getPaletteCapacity(indexBytes); i++) header.putInt(keys[i]);
+            header.flip();
+            while (header.hasRemaining()) out.write(header);
+
+            ByteBuffer chunk = ByteBuffer.allocate(chunkSize * chunkSize * indexBytes);
+            for (int cy = 0; cy < rows; cy++)
+            {
+                for (int cx = 0; cx < columns; cx++)
+                {
+                    chunk.clear();
+                    for (int y = cy * chunkSize; y < (cy + 1) * chunkSize; y++)
+                    {
+                        for (int x = cx * chunkSize; x < (cx + 1) * chunkSize; x++)
+                        {
+                            int index = x < width && y < height ? indices.get(level.getTileKey(x, y)) : 0;
+                            if (indexBytes == 1) chunk.put((byte) index);
+                            else chunk.putShort((short) index);
+                        }
+                    }
+                    chunk.flip();
+                    while (chunk.hasRemaining()) out.write(chunk);
+                }
+            }
+        } catch (IOException e)
+        {
+            new Error("[StreamingLevel]: [" + filePath + "] could not be written.");
+        }
+    }
+
+    /**
+     * Supplies the number of palette entries a file can hold for a given index size.
+     */
+    private static int getPaletteCapacity(int indexBytes)
+    {
+        return indexBytes == 1 ? 256 : MAX_PALETTE_SIZE;
+    }
+
+    /**
+     * Fills a buffer from a given position of the chunk file.
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of file");
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Writes a buffer at a given position of the chunk file.
+     */
+    private void writeFully(ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining()) channel.write(buffer, position + buffer.position());
+    }
+
+    /**
+     * @return The background chunk loader, created on first use.
+     */
+    private ExecutorService getLoader()
+    {
+        if (loader == null)
+        {
+            loader = Executors.newSingleThreadExecutor(runnable ->
+            {
+                Thread thread = new Thread(runnable, "StreamingLevel loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return loader;
+    }
+
+    /**
+     * Sets the maximum number of chunks kept in memory. Chunks requested around
+     * the camera and objects during the current update are not evicted by it, so
+     * the limit may be exceeded temporarily; chunks read on demand, e.g. by a
+     * search, evict the least recently used ones to stay within it.
+     *
+     * @param maxResident Maximum number of resident chunks.
+     */
+    public void setMaxResidentChunks(int maxResident)
+    {
+        this.maxResident = maxResident;
+    }
+
+    /**
+     * @return The maximum number of chunks kept in memory.
+     */
+    public int getMaxResidentChunks()
+    {
+        return maxResident;
+    }
+
+    /**
+     * @return The number of chunks currently in memory.
+     */
+    public int getResidentChunkCount()
+    {
+        return residentCount;
+    }
+
+    /**
+     * Sets how many chunks are loaded ahead past the edges of the camera's view
+     * and around every object of the level.
+     *
+     * @param streamRadius Radius, in chunks.
+     */
+    public void setStreamRadius(int streamRadius)
+    {
+        this.streamRadius = streamRadius;
+    }
+
+    /**
+     * @return How many chunks are loaded ahead around the camera and objects.
+     */
+    public int getStreamRadius()
+    {
+        return streamRadius;
+    }
+
+    /**
+     * @return Width and height of a chunk, in tiles.
+     */
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+}
@@ -20,6 +20,25 @@ public class Tile implements Updatable
 {
     public static final int TILE_SIZE = 64; //The default size of a tile
 
+    /**
+     * Whether each tile class draws with the render method of {@code Tile}, only
+     * then drawing its sprite and nothing else
+     */
+    private static final ClassValue<Boolean> DRAWS_SPRITE = new ClassValue<Boolean>()
+    {
+        @Override
+        protected Boolean computeValue(Class<?> type)
+        {
+            try
+            {
+                return type.getMethod("render", Manager.class, Context.class, int.class, int.class).getDeclaringClass() == Tile.class;
+            } catch (NoSuchMethodException e)
+            {
+                return false;
+            }
+        }
+    };
+
     public static Manager manager; //The game manager object
     private Sprite sprite; //The sprite attached to the tile
     private List<Sprite> frames = new ArrayList<>(); //The list of animation frames for this tile
@@ -89,6 +108,21 @@ public class Tile implements Updatable
         if (isAnimated()) animation.update();
     }
 
+    /**
+     * Updates the tile at one location of a level. Only called for the locations
+     * registered with {@code TiledLevel.addActiveCell()}, once per tick each, letting
+     * a shared tile keep state per location.
+     *
+     * @param manager The engine manager object.
+     * @param delta   Time elapsed between each frame.
+     * @param level   The level holding the tile.
+     * @param x       The x-coordinate of the tile.
+     * @param y       The y-coordinate of the tile.
+     */
+    public void updateCell(Manager manager, double delta, TiledLevel level, int x, int y)
+    {
+    }
+
     /**
      * Renders the tile to the screen at a given x and y coordinate.
      * Method that MUST be called in order for the tile to be rendered.
@@ -159,6 +193,11 @@ public class Tile implements Updatable
     }
 
     /**
+     * Supplies whether the tile blocks movement. A {@code TiledLevel} caches this
+     * per location, so a subclass whose solidity changes (e.g. a door) must call
+     * {@link TiledLevel#invalidateSolidity(int, int)} for each location it is
+     * placed in, or {@link TiledLevel#invalidateSolidity()}, after it changes.
+     *
      * @return Weather or not the tile is solid.
      */
     public boolean isSolid()
@@ -174,6 +213,19 @@ public class Tile implements Updatable
         return false;
     }
 
+    /**
+     * Supplies whether the tile always looks like its sprite, which lets a
+     * {@code TiledLevel} pre-render it into cached chunks instead of drawing it every frame.
+     * Tiles of a subclass overriding {@code render()} are drawn every frame,
+     * unless it overrides this method as well.
+     *
+     * @return Weather or not the tile can be pre-rendered.
+     */
+    public boolean isStatic()
+    {
+        return !isAnimated() && sprite != null && DRAWS_SPRITE.get(getClass());
+    }
+
     /**
      * Sets the game manager object.
      *
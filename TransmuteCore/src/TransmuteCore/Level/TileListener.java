@@ -0,0 +1,28 @@
+package TransmuteCore.Level;
+
+/**
+ * {@code TileListener} is notified when the tiles of a {@link TiledLevel} change,
+ * e.g. so path-finders can repair their state instead of polling the level.
+ * <br>
+ * Listeners are called on the thread modifying the level, right after the change.
+ */
+public interface TileListener
+{
+    /**
+     * Called after the tile at a given location was set. The tile, and so its
+     * solidity, may or may not differ from the previous one.
+     *
+     * @param level The level whose tile was set.
+     * @param x     x-coordinate of the tile.
+     * @param y     y-coordinate of the tile.
+     */
+    void tileChanged(TiledLevel level, int x, int y);
+
+    /**
+     * Called after any number of tiles changed at once, e.g. when the tiles of
+     * the level were replaced or a tile key was mapped to another tile.
+     *
+     * @param level The level whose tiles changed.
+     */
+    void tilesChanged(TiledLevel level);
+}
@@ -1,24 +1,76 @@
 package TransmuteCore.Level;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
 import TransmuteCore.GameEngine.TransmuteCore;
 import TransmuteCore.GameEngine.Manager;
 import TransmuteCore.Graphics.Bitmap;
+import TransmuteCore.Graphics.Color;
 import TransmuteCore.Graphics.Context;
+import TransmuteCore.System.Error;
 import TransmuteCore.System.Asset.Asset;
+import TransmuteCore.System.Profiler;
 import TransmuteCore.System.Asset.Type.Images.Image;
 
 public class TiledLevel extends Level
 {
+    /**
+     * Width and height of a cached chunk, in tiles
+     */
+    public static final int CHUNK_SIZE = 16;
+
+    /**
+     * Maximum number of pre-rendered chunk pixels kept in memory (64 MiB), beyond
+     * which the least recently drawn chunks are dropped. Chunks drawn in the
+     * current frame are always kept, even when they alone exceed it
+     */
+    public static final int MAX_CHUNK_PIXELS = 1 << 24;
+
+    /**
+     * Maximum number of distinct tile keys in a level
+     */
+    public static final int MAX_PALETTE_SIZE = 1 << 16;
+
     private int tileSize;
-    private int[] tileArray;
     private Map<Integer, Tile> tileMap = new HashMap<>();
 
+    private byte[] tileBytes; //Palette index of every location while the palette holds at most 256 keys
+    private short[] tileShorts; //Palette index of every location once the palette holds more than 256 keys
+    private int[] paletteKeys; //Tile key of every palette index
+    private int paletteSize; //Number of palette entries
+    private Map<Integer, Integer> paletteIndices; //Palette index of every tile key
+    private Tile[] paletteTiles; //Tile of every palette index (null if unmapped), or null if outdated
+    private BitSet solid; //Solidity of every location, or null if outdated
+    private long[] walkable; //Bitset of the locations holding a tile that is not solid, or null if outdated
+
+    private boolean chunkCaching = true; //Whether static tiles are drawn from pre-rendered chunks
+    private int chunkColumns, chunkRows; //Number of chunks across and down the level
+    private Bitmap[] chunks; //Pre-rendered static tiles of each chunk, or null if not rendered
+    private int[][] liveCells; //Cell indices of the tiles of each chunk drawn every frame
+    private long[] chunkUsed; //Frame in which each chunk was last drawn
+    private int[] chunkPrev, chunkNext; //Neighbours of each pre-rendered chunk in draw order, or -1 at either end
+    private int leastRecent = -1, mostRecent = -1; //Ends of the draw order, or -1 if no chunk is pre-rendered
+    private long cachedPixels; //Number of pre-rendered chunk pixels in memory
+    private long frame; //Number of frames rendered with chunk caching
+
+    private Tile[] distinctTiles; //Every distinct tile instance of 'tileMap', or null if outdated
+    private int[] activeCells = new int[16]; //Cell indices of the tiles updated per location
+    private int activeCount; //Number of active cells
+    private BitSet activeSet = new BitSet(); //Membership of the active cells
+    private boolean updatingCells; //Whether the active cells are being updated
+    private boolean staleCells; //Whether cells were removed while being updated
+    private List<TileListener> tileListeners; //Listeners notified of tile changes, or null if none was added
+
     public TiledLevel(int width, int height)
     {
         super(width, height);
+        setData(new int[width * height]);
     }
 
     public TiledLevel(String filePath)
@@ -35,8 +87,8 @@ public class TiledLevel extends Level
     @Override
     public void load(String filePath)
     {
-        if (!Asset.cropFileExtension(filePath).equalsIgnoreCase(".png") ||
-                !Asset.cropFileExtension(filePath).equalsIgnoreCase(".jpg") ||
+        if (!Asset.cropFileExtension(filePath).equalsIgnoreCase(".png") &&
+                !Asset.cropFileExtension(filePath).equalsIgnoreCase(".jpg") &&
                 !Asset.cropFileExtension(filePath).equalsIgnoreCase(".jpeg"))
         {
             new Error("[TiledLevel]: The inputted file does not have the correct file-extension.\n"
@@ -45,76 +97,695 @@ public class TiledLevel extends Level
         }
 
         Bitmap bmp = Image.getAsBitmap(Image.load(TiledLevel.class, filePath));
-        tileArray = bmp.getData();
         width = bmp.getWidth();
         height = bmp.getHeight();
+        setData(bmp.getData());
     }
 
-    @Override
-    public void update(Manager manager, double delta)
+    /**
+     * Replaces every tile of the level. The distinct keys are remapped to a dense
+     * palette and each location stores its palette index in a byte, or in a short
+     * once the level holds more than 256 distinct keys.
+     *
+     * @param keys The tile key of every location, row by row ({@code width * height} keys).
+     */
+    public void setData(int[] keys)
     {
-        for (int x = 0; x < width; x++)
+        if (keys.length != width * height)
+        {
+            new Error("[TiledLevel]: Expected " + width * height + " tile keys but received " + keys.length + ".");
+            return;
+        }
+
+        tileBytes = new byte[keys.length];
+        tileShorts = null;
+        paletteKeys = new int[16];
+        paletteSize = 0;
+        paletteIndices = new HashMap<>();
+
+        int lastKey = 0, lastIndex = -1;
+        for (int i = 0; i < keys.length; i++)
         {
-            for (int y = 0; y < height; y++)
+            if (lastIndex < 0 || keys[i] != lastKey)
             {
-                getTile(x, y).update(manager, delta);
+                lastKey = keys[i];
+                lastIndex = paletteIndexOf(lastKey);
             }
+
+            if (tileShorts != null) tileShorts[i] = (short) lastIndex;
+            else tileBytes[i] = (byte) lastIndex;
+        }
+
+        paletteTiles = null;
+        solid = null;
+        walkable = null;
+        invalidateChunks();
+        fireTilesChanged();
+    }
+
+    /**
+     * Supplies the palette index of a tile key, adding the key to the palette if
+     * needed and widening the storage to shorts once the palette outgrows bytes.
+     */
+    private int paletteIndexOf(int key)
+    {
+        Integer index = paletteIndices.get(key);
+        if (index != null) return index;
+
+        if (paletteSize == MAX_PALETTE_SIZE)
+        {
+            new Error("[TiledLevel]: A level cannot hold more than " + MAX_PALETTE_SIZE + " distinct tile keys.");
+            return 0;
         }
 
+        if (paletteSize == 256)
+        {
+            tileShorts = new short[tileBytes.length];
+            for (int i = 0; i < tileBytes.length; i++) tileShorts[i] = (short) (tileBytes[i] & 0xFF);
+            tileBytes = null;
+        }
+
+        if (paletteSize == paletteKeys.length) paletteKeys = Arrays.copyOf(paletteKeys, paletteSize * 2);
+        paletteKeys[paletteSize] = key;
+        paletteIndices.put(key, paletteSize);
+        paletteTiles = null;
+        return paletteSize++;
+    }
+
+    /**
+     * Supplies the palette index stored at a location.
+     */
+    private int paletteIndexAt(int cell)
+    {
+        return tileBytes != null ? tileBytes[cell] & 0xFF : tileShorts[cell] & 0xFFFF;
+    }
+
+    /**
+     * Resolves the tile of every palette index.
+     */
+    private void resolvePaletteTiles()
+    {
+        Tile[] tiles = new Tile[paletteSize];
+        for (int i = 0; i < paletteSize; i++) tiles[i] = tileMap.get(paletteKeys[i]);
+        paletteTiles = tiles;
+    }
+
+    /**
+     * Updates every distinct tile once, since tiles are shared between all the
+     * locations they are placed at, then the tiles of every active cell through
+     * {@link Tile#updateCell(Manager, double, TiledLevel, int, int)}.
+     * The cost depends on the number of tile types and active cells, not on the level size.
+     *
+     * @param manager The engine manager object.
+     * @param delta   Time elapsed between each frame.
+     */
+    @Override
+    public void update(Manager manager, double delta)
+    {
+        if (distinctTiles == null)
+        {
+            Map<Tile, Boolean> distinct = new IdentityHashMap<>();
+            for (Tile tile : tileMap.values()) distinct.put(tile, Boolean.TRUE);
+            distinctTiles = distinct.keySet().toArray(new Tile[0]);
+        }
+
+        for (Tile tile : distinctTiles) tile.update(manager, delta);
+
+        updatingCells = true;
+        for (int i = 0, count = activeCount; i < count; i++)
+        {
+            int cell = activeCells[i];
+            if (!activeSet.get(cell)) continue;
+
+            Tile tile = getTile(cell % width, cell / width);
+            if (tile != null) tile.updateCell(manager, delta, this, cell % width, cell / width);
+        }
+        updatingCells = false;
+        if (staleCells) compactActiveCells();
+
         super.update(manager, delta);
     }
 
+    /**
+     * Drops the active cells removed during an update, along with duplicates
+     * of cells removed and added again during the same update.
+     */
+    private void compactActiveCells()
+    {
+        int kept = 0;
+        for (int i = 0; i < activeCount; i++)
+        {
+            int cell = activeCells[i];
+            if (!activeSet.get(cell)) continue;
+
+            activeSet.clear(cell);
+            activeCells[kept++] = cell;
+        }
+
+        activeCount = kept;
+        for (int i = 0; i < activeCount; i++) activeSet.set(activeCells[i]);
+        staleCells = false;
+    }
+
+    /**
+     * Registers a location whose tile has to be updated individually every tick,
+     * e.g. a tile keeping state per location such as a door or a growing crop.
+     * Locations added while the active cells are being updated are first updated on the next tick.
+     *
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     */
+    public void addActiveCell(int x, int y)
+    {
+        if (x < 0 || x >= width || y < 0 || y >= height) return;
+
+        int cell = x + y * width;
+        if (activeSet.get(cell)) return;
+
+        if (activeCount == activeCells.length) activeCells = Arrays.copyOf(activeCells, activeCount * 2);
+        activeCells[activeCount++] = cell;
+        activeSet.set(cell);
+    }
+
+    /**
+     * Unregisters a location added with {@link #addActiveCell(int, int)}.
+     * May be called while the active cells are being updated, in which case
+     * the location is not updated again.
+     *
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     */
+    public void removeActiveCell(int x, int y)
+    {
+        if (x < 0 || x >= width || y < 0 || y >= height) return;
+
+        int cell = x + y * width;
+        if (!activeSet.get(cell)) return;
+
+        activeSet.clear(cell);
+        if (updatingCells)
+        {
+            staleCells = true;
+            return;
+        }
+
+        for (int i = 0; i < activeCount; i++)
+        {
+            if (activeCells[i] != cell) continue;
+
+            activeCells[i] = activeCells[--activeCount];
+            return;
+        }
+    }
+
+    /**
+     * @return The number of locations whose tile is updated individually every tick.
+     */
+    public int getActiveCellCount()
+    {
+        return activeCount;
+    }
+
     @Override
     public void render(Manager manager, Context ctx)
     {
+        Profiler.begin(Profiler.LEVEL);
         int xStart = Math.max(0, xOffset / tileSize);
-        int xEnd = Math.min(width, xOffset + TransmuteCore.getWidth() / TransmuteCore.getScale() / tileSize + 2);
+        int xEnd = Math.min(width, xOffset / tileSize + TransmuteCore.getWidth() / TransmuteCore.getScale() / tileSize + 2);
         int yStart = Math.max(0, yOffset / tileSize);
-        int yEnd = Math.min(height, yOffset + TransmuteCore.getHeight() / TransmuteCore.getScale() / tileSize + 2);
+        int yEnd = Math.min(height, yOffset / tileSize + TransmuteCore.getHeight() / TransmuteCore.getScale() / tileSize + 2);
+
+        if (chunkCaching) renderChunks(manager, ctx, xStart, yStart, xEnd, yEnd);
+        else renderTiles(manager, ctx, xStart, yStart, xEnd, yEnd);
+
+        super.render(manager, ctx);
+        Profiler.end(Profiler.LEVEL);
+    }
 
+    /**
+     * Draws every tile of the visible window individually.
+     */
+    private void renderTiles(Manager manager, Context ctx, int xStart, int yStart, int xEnd, int yEnd)
+    {
         for (int x = xStart; x < xEnd; x++)
         {
             for (int y = yStart; y < yEnd; y++)
             {
-                if (x < 0 || y < 0 || x >= width || y >= height) continue;
-
                 Tile tile = getTile(x, y);
                 if (tile == null) continue;
                 tile.render(manager, ctx, x * tile.getWidth() - xOffset, y * tile.getHeight() - yOffset);
             }
         }
+    }
 
-        super.render(manager, ctx);
+    /**
+     * Draws the visible window as whole pre-rendered chunks, followed by the
+     * tiles that have to be drawn every frame, such as animated ones.
+     */
+    private void renderChunks(Manager manager, Context ctx, int xStart, int yStart, int xEnd, int yEnd)
+    {
+        if (xStart >= xEnd || yStart >= yEnd) return;
+
+        int columns = (width + CHUNK_SIZE - 1) / CHUNK_SIZE, rows = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunks == null || chunkColumns != columns || chunkRows != rows)
+        {
+            chunkColumns = columns;
+            chunkRows = rows;
+            chunks = new Bitmap[columns * rows];
+            liveCells = new int[columns * rows][];
+            chunkUsed = new long[columns * rows];
+            chunkPrev = new int[columns * rows];
+            chunkNext = new int[columns * rows];
+            leastRecent = mostRecent = -1;
+            cachedPixels = 0;
+        }
+
+        frame++;
+        int cxStart = xStart / CHUNK_SIZE, cxEnd = (xEnd - 1) / CHUNK_SIZE;
+        int cyStart = yStart / CHUNK_SIZE, cyEnd = (yEnd - 1) / CHUNK_SIZE;
+        int chunkPixels = CHUNK_SIZE * tileSize;
+
+        for (int cy = cyStart; cy <= cyEnd; cy++)
+        {
+            for (int cx = cxStart; cx <= cxEnd; cx++)
+            {
+                int chunk = cx + cy * chunkColumns;
+                if (chunks[chunk] == null) renderChunk(cx, cy);
+                else unlinkChunk(chunk);
+                linkChunk(chunk);
+                chunkUsed[chunk] = frame;
+                ctx.renderBitmap(chunks[chunk], cx * chunkPixels - xOffset, cy * chunkPixels - yOffset);
+            }
+        }
+
+        for (int cy = cyStart; cy <= cyEnd; cy++)
+        {
+            for (int cx = cxStart; cx <= cxEnd; cx++)
+            {
+                for (int cell : liveCells[cx + cy * chunkColumns])
+                {
+                    int x = cell % width, y = cell / width;
+                    if (x < xStart || x >= xEnd || y < yStart || y >= yEnd) continue;
+
+                    Tile tile = getTile(x, y);
+                    tile.render(manager, ctx, x * tile.getWidth() - xOffset, y * tile.getHeight() - yOffset);
+                }
+            }
+        }
+
+        while (cachedPixels > MAX_CHUNK_PIXELS)
+        {
+            if (!evictChunk()) break;
+        }
+    }
+
+    /**
+     * Pre-renders the static tiles of a chunk into a bitmap by copying their
+     * sprite pixels, keeping partially transparent pixels as they are so drawing
+     * the chunk gives the same result as drawing the tiles. Tiles that are not
+     * static are recorded to be drawn every frame instead.
+     *
+     * @param cx Column of the chunk.
+     * @param cy Row of the chunk.
+     */
+    private void renderChunk(int cx, int cy)
+    {
+        int cellX = cx * CHUNK_SIZE, cellY = cy * CHUNK_SIZE;
+        int columns = Math.min(CHUNK_SIZE, width - cellX), rows = Math.min(CHUNK_SIZE, height - cellY);
+        int chunkWidth = columns * tileSize, chunkHeight = rows * tileSize;
+        int originX = cellX * tileSize, originY = cellY * tileSize;
+        int[] pixels = new int[chunkWidth * chunkHeight];
+        int[] live = new int[columns * rows];
+        int liveCount = 0;
+
+        for (int y = cellY; y < cellY + rows; y++)
+        {
+            for (int x = cellX; x < cellX + columns; x++)
+            {
+                Tile tile = getTile(x, y);
+                if (tile == null) continue;
+                if (!tile.isStatic())
+                {
+                    live[liveCount++] = x + y * width;
+                    continue;
+                }
+
+                Bitmap sprite = tile.getSprite();
+                int[] source = sprite.getData();
+                int spriteWidth = sprite.getWidth();
+                int xPos = x * tile.getWidth() - originX, yPos = y * tile.getHeight() - originY;
+                int xFrom = Math.max(0, -xPos), xTo = Math.min(spriteWidth, chunkWidth - xPos);
+                int yFrom = Math.max(0, -yPos), yTo = Math.min(sprite.getHeight(), chunkHeight - yPos);
+
+                for (int row = yFrom; row < yTo; row++)
+                {
+                    int src = row * spriteWidth, dst = (yPos + row) * chunkWidth + xPos;
+                    for (int col = xFrom; col < xTo; col++)
+                    {
+                        int pixel = source[src + col];
+                        if ((pixel >>> 24) == 0) continue;
+
+                        int under = pixels[dst + col];
+                        pixels[dst + col] = (under >>> 24) == 0 ? pixel : Color.sourceOver(under, pixel);
+                    }
+                }
+            }
+        }
+
+        int chunk = cx + cy * chunkColumns;
+        chunks[chunk] = new Bitmap(pixels, chunkWidth, chunkHeight);
+        liveCells[chunk] = Arrays.copyOf(live, liveCount);
+        cachedPixels += pixels.length;
+    }
+
+    /**
+     * Appends a chunk to the most recent end of the draw order.
+     */
+    private void linkChunk(int chunk)
+    {
+        chunkPrev[chunk] = mostRecent;
+        chunkNext[chunk] = -1;
+        if (mostRecent >= 0) chunkNext[mostRecent] = chunk;
+        else leastRecent = chunk;
+        mostRecent = chunk;
+    }
+
+    /**
+     * Removes a chunk from the draw order.
+     */
+    private void unlinkChunk(int chunk)
+    {
+        int prev = chunkPrev[chunk], next = chunkNext[chunk];
+        if (prev >= 0) chunkNext[prev] = next;
+        else leastRecent = next;
+        if (next >= 0) chunkPrev[next] = prev;
+        else mostRecent = prev;
+    }
+
+    /**
+     * Drops a pre-rendered chunk, which must be in memory.
+     */
+    private void dropChunk(int chunk)
+    {
+        unlinkChunk(chunk);
+        cachedPixels -= chunks[chunk].getData().length;
+        chunks[chunk] = null;
+        liveCells[chunk] = null;
+    }
+
+    /**
+     * Drops the least recently drawn chunk, unless it was drawn this frame.
+     *
+     * @return Weather or not a chunk was dropped.
+     */
+    private boolean evictChunk()
+    {
+        if (leastRecent < 0 || chunkUsed[leastRecent] == frame) return false;
+
+        dropChunk(leastRecent);
+        return true;
+    }
+
+    /**
+     * Discards the pre-rendered chunk holding a given tile, so it is rendered
+     * again when next drawn. Must be called after the appearance of a static
+     * tile at that location changes without the tile itself being replaced.
+     *
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     */
+    public void invalidateTile(int x, int y)
+    {
+        if (chunks == null || x < 0 || x >= width || y < 0 || y >= height) return;
+
+        int chunk = x / CHUNK_SIZE + y / CHUNK_SIZE * chunkColumns;
+        if (chunks[chunk] == null) return;
+
+        dropChunk(chunk);
+    }
+
+    /**
+     * Discards every pre-rendered chunk.
+     */
+    public void invalidateChunks()
+    {
+        chunks = null;
+        liveCells = null;
+        chunkUsed = null;
+        chunkPrev = chunkNext = null;
+        leastRecent = mostRecent = -1;
+        cachedPixels = 0;
+    }
+
+    /**
+     * Sets the tile at a given location, updating the pre-rendered chunk holding it.
+     *
+     * @param x   x-coordinate of the tile.
+     * @param y   y-coordinate of the tile.
+     * @param key The key of the tile, as given to {@link #addTile(int, Tile)}.
+     */
+    public void setTile(int x, int y, int key)
+    {
+        if (x < 0 || x >= width || y < 0 || y >= height) return;
+
+        int cell = x + y * width;
+        int index = paletteIndexOf(key);
+        if (tileShorts != null) tileShorts[cell] = (short) index;
+        else tileBytes[cell] = (byte) index;
+
+        refreshSolidity(x, y);
+        invalidateTile(x, y);
+        fireTileChanged(x, y);
+    }
+
+    /**
+     * Reads the solidity of the tile at a given location again, e.g. after a door
+     * opened, and notifies the tile listeners. Solidity is cached from
+     * {@link Tile#isSolid()}, so this must be called whenever it changes without
+     * the tile being replaced.
+     *
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     */
+    public void invalidateSolidity(int x, int y)
+    {
+        if (x < 0 || x >= width || y < 0 || y >= height) return;
+
+        refreshSolidity(x, y);
+        fireTileChanged(x, y);
+    }
+
+    /**
+     * Reads the solidity of every tile again and notifies the tile listeners,
+     * e.g. after {@link Tile#isSolid()} changed for a tile placed in many locations.
+     */
+    public void invalidateSolidity()
+    {
+        solid = null;
+        walkable = null;
+        fireTilesChanged();
+    }
+
+    /**
+     * Updates the cached solidity of a location from its tile.
+     */
+    private void refreshSolidity(int x, int y)
+    {
+        int cell = x + y * width;
+        Tile tile = getTile(x, y);
+        if (solid != null) solid.set(cell, tile != null && tile.isSolid());
+        if (walkable != null)
+        {
+            if (tile != null && !tile.isSolid()) walkable[cell >>> 6] |= 1L << cell;
+            else walkable[cell >>> 6] &= ~(1L << cell);
+        }
+    }
+
+    /**
+     * Sets whether static tiles are drawn from pre-rendered chunks of
+     * {@code CHUNK_SIZE} x {@code CHUNK_SIZE} tiles instead of one by one.
+     *
+     * @param chunkCaching Chunk caching flag.
+     */
+    public void setChunkCaching(boolean chunkCaching)
+    {
+        this.chunkCaching = chunkCaching;
+        if (!chunkCaching) invalidateChunks();
+    }
+
+    /**
+     * @return Weather or not static tiles are drawn from pre-rendered chunks.
+     */
+    public boolean isChunkCaching()
+    {
+        return chunkCaching;
     }
 
     public void addTile(int index, Tile tile)
     {
         tileMap.put(index, tile);
+        distinctTiles = null;
+        paletteTiles = null;
+        solid = null;
+        walkable = null;
+        invalidateChunks();
+        fireTilesChanged();
+    }
+
+    /**
+     * Adds a listener notified after tiles of the level change, e.g. a
+     * path-finder repairing its state.
+     *
+     * @param listener The listener to add.
+     */
+    public void addTileListener(TileListener listener)
+    {
+        if (tileListeners == null) tileListeners = new ArrayList<>();
+        if (!tileListeners.contains(listener)) tileListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addTileListener(TileListener)}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeTileListener(TileListener listener)
+    {
+        if (tileListeners != null) tileListeners.remove(listener);
+    }
+
+    /**
+     * Notifies the tile listeners that the tile at a given location was set.
+     *
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     */
+    protected void fireTileChanged(int x, int y)
+    {
+        if (tileListeners == null) return;
+
+        for (int i = 0; i < tileListeners.size(); i++) tileListeners.get(i).tileChanged(this, x, y);
+    }
+
+    /**
+     * Notifies the tile listeners that any number of tiles changed at once.
+     */
+    protected void fireTilesChanged()
+    {
+        if (tileListeners == null) return;
+
+        for (int i = 0; i < tileListeners.size(); i++) tileListeners.get(i).tilesChanged(this);
+    }
+
+    /**
+     * @param key The key of the tile, as given to {@link #addTile(int, Tile)}.
+     * @return The tile mapped to a given key, or null if the key is unmapped.
+     */
+    protected Tile getMappedTile(int key)
+    {
+        return tileMap.get(key);
     }
 
     public Tile getTile(int x, int y)
     {
         if (x < 0 || x >= width || y < 0 || y >= height) return null;
 
-        Tile tile = null;
+        if (paletteTiles == null) resolvePaletteTiles();
+        return paletteTiles[paletteIndexAt(x + y * width)];
+    }
 
-        int key = tileArray[x + y * width];
-        if (tileMap.containsKey(key))
+    /**
+     * Supplies whether the tile at a given location is solid, from a bitset
+     * computed once from {@link Tile#isSolid()} of the tiles placed in the level
+     * and refreshed by {@link #invalidateSolidity(int, int)}.
+     *
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     * @return Weather or not the location holds a solid tile (false outside the level).
+     */
+    public boolean isSolid(int x, int y)
+    {
+        if (x < 0 || x >= width || y < 0 || y >= height) return false;
+
+        if (solid == null)
         {
-            tile = tileMap.get(key);
+            if (paletteTiles == null) resolvePaletteTiles();
+            boolean[] solidIndices = new boolean[paletteSize];
+            for (int i = 0; i < paletteSize; i++) solidIndices[i] = paletteTiles[i] != null && paletteTiles[i].isSolid();
+
+            BitSet cells = new BitSet(width * height);
+            for (int cell = 0; cell < width * height; cell++)
+            {
+                if (solidIndices[paletteIndexAt(cell)]) cells.set(cell);
+            }
+            solid = cells;
         }
 
-        return tile;
+        return solid.get(x + y * width);
     }
 
+    /**
+     * Supplies the locations holding a tile that is not solid as a bitset by cell
+     * ({@code x + y * width}), computed once and kept up to date as tiles are set,
+     * so searches can test locations without looking their tiles up. The bitset
+     * is shared with the level and must not be modified.
+     *
+     * @return Bitset of the walkable locations, or null if the level does not hold its tiles in memory.
+     */
+    public long[] getWalkableCells()
+    {
+        if (walkable == null)
+        {
+            if (paletteTiles == null) resolvePaletteTiles();
+            boolean[] walkableIndices = new boolean[paletteSize];
+            for (int i = 0; i < paletteSize; i++) walkableIndices[i] = paletteTiles[i] != null && !paletteTiles[i].isSolid();
+
+            long[] cells = new long[(width * height + 63) >>> 6];
+            for (int cell = 0; cell < width * height; cell++)
+            {
+                if (walkableIndices[paletteIndexAt(cell)]) cells[cell >>> 6] |= 1L << cell;
+            }
+            walkable = cells;
+        }
+
+        return walkable;
+    }
+
+    /**
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     * @return The key of the tile at a given location.
+     */
+    public int getTileKey(int x, int y)
+    {
+        return paletteKeys[paletteIndexAt(x + y * width)];
+    }
+
+    /**
+     * Supplies a copy of the tile key of every location, row by row.
+     * Use {@link #setTile(int, int, int)} or {@link #setData(int[])} to modify the level.
+     *
+     * @return The tile keys of the level.
+     */
     public int[] getData()
     {
-        return tileArray;
+        int[] keys = new int[width * height];
+        for (int cell = 0; cell < keys.length; cell++) keys[cell] = paletteKeys[paletteIndexAt(cell)];
+        return keys;
+    }
+
+    /**
+     * @return The number of distinct tile keys in the level.
+     */
+    public int getPaletteSize()
+    {
+        return paletteSize;
     }
 
     public void setTileSize(int tileSize)
     {
         this.tileSize = tileSize;
+        invalidateChunks();
     }
 
     public int getTileSize()
@@ -99,7 +99,42 @@ public class Bounds implements Cortex
      */
     public Rectangle getBounds(int xOffset, int yOffset)
     {
-        return new Rectangle(bounds.x + xOffset, bounds.y + yOffset, bounds.width * scale, bounds.height * scale);
+        return getBounds(xOffset, yOffset, new Rectangle());
+    }
+
+    /**
+     * Method used to grab the rectangular collision bounds based on a (width, height)
+     * offset into a given rectangle, which avoids allocating a new one.
+     *
+     * @param xOffset The width-offset of the object.
+     * @param yOffset The height-offset of the object.
+     * @param dest    The rectangle to fill.
+     * @return The given rectangle.
+     */
+    public Rectangle getBounds(int xOffset, int yOffset, Rectangle dest)
+    {
+        dest.setBounds(bounds.x + xOffset, bounds.y + yOffset, bounds.width, bounds.height, scale);
+        return dest;
+    }
+
+    /**
+     * Method used to check weather or not these collision bounds, moved by a
+     * (width, height) offset, intersect other collision bounds.
+     *
+     * @param other   The other collision bounds.
+     * @param xOffset The width-offset applied to these bounds.
+     * @param yOffset The height-offset applied to these bounds.
+     * @return Weather or not the collision bounds intersect.
+     */
+    public boolean intersects(Bounds other, int xOffset, int yOffset)
+    {
+        float width = bounds.width * scale, height = bounds.height * scale;
+        float otherWidth = other.bounds.width * other.scale, otherHeight = other.bounds.height * other.scale;
+        if (width <= 0 || height <= 0 || otherWidth <= 0 || otherHeight <= 0) return false;
+
+        int x = bounds.x + xOffset, y = bounds.y + yOffset;
+        return x < other.bounds.x + otherWidth && other.bounds.x < x + width &&
+                y < other.bounds.y + otherHeight && other.bounds.y < y + height;
     }
 
     /**
@@ -178,7 +213,7 @@ public class Bounds implements Cortex
     }
 
     /**
-     * Initializes the bounding rectangle.
+     * Initializes the bounding rectangle, updating the existing one in place.
      *
      * @param x The x-location of the rectangle.
      * @param y The y-location of the rectangle.
@@ -187,7 +222,8 @@ public class Bounds implements Cortex
      */
     public void setBounds(int x, int y, float width, float height)
     {
-        this.bounds = new Rectangle(x, y, width, height);
+        if (bounds == null) bounds = new Rectangle();
+        bounds.setBounds(x, y, width, height, 1.0f);
     }
 
     @Override
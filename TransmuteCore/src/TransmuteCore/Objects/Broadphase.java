@@ -0,0 +1,305 @@
+package TransmuteCore.Objects;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@code Broadphase} finds colliding objects using sweep-and-prune.
+ * <br>
+ * The collision bounds of every object are copied into primitive arrays kept
+ * sorted by their left edge. Since objects move little between two ticks, an
+ * object whose bounds changed is moved into place by insertion, which is close
+ * to constant time. {@link #findPairs()} then sweeps the sorted bounds once per
+ * tick to produce every overlapping pair, and {@link #isColliding(Object, int, int)}
+ * only tests the objects whose horizontal extent can reach the queried bounds.
+ * <p>
+ * Two objects collide when their bounds overlap and each one's collision layer
+ * is in the other's collision mask. Bounds are compared field by field, so
+ * neither the sweep nor the queries allocate.
+ */
+public class Broadphase
+{
+    private static final int INITIAL_CAPACITY = 64;
+
+    private Object[] objects = new Object[INITIAL_CAPACITY]; //Indexed objects, sorted by left edge
+    private int[] minX = new int[INITIAL_CAPACITY]; //Left edge of every entry
+    private int[] minY = new int[INITIAL_CAPACITY]; //Top edge of every entry
+    private float[] maxX = new float[INITIAL_CAPACITY]; //Right edge (exclusive) of every entry
+    private float[] maxY = new float[INITIAL_CAPACITY]; //Bottom edge (exclusive) of every entry
+    private int count; //Number of indexed objects
+    private float maxWidth; //Upper bound of the width of every entry
+
+    private Object[] pairA = new Object[INITIAL_CAPACITY]; //First object of every colliding pair
+    private Object[] pairB = new Object[INITIAL_CAPACITY]; //Second object of every colliding pair
+    private int pairCount; //Number of colliding pairs found by the last sweep
+
+    /**
+     * Adds an object. An object can only be indexed by one broadphase at a time.
+     *
+     * @param obj The object to add.
+     */
+    public void add(Object obj)
+    {
+        if (obj.broadphase == this) return;
+        if (obj.broadphase != null) obj.broadphase.remove(obj);
+
+        if (count == objects.length)
+        {
+            int capacity = count * 2;
+            objects = Arrays.copyOf(objects, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxY = Arrays.copyOf(maxY, capacity);
+        }
+
+        int entry = count++;
+        objects[entry] = obj;
+        obj.broadphase = this;
+        obj.broadphaseEntry = entry;
+        update(obj);
+    }
+
+    /**
+     * Removes an object.
+     *
+     * @param obj The object to remove.
+     */
+    public void remove(Object obj)
+    {
+        if (obj.broadphase != this) return;
+
+        int entry = obj.broadphaseEntry;
+        int moved = count - entry - 1;
+        System.arraycopy(objects, entry + 1, objects, entry, moved);
+        System.arraycopy(minX, entry + 1, minX, entry, moved);
+        System.arraycopy(minY, entry + 1, minY, entry, moved);
+        System.arraycopy(maxX, entry + 1, maxX, entry, moved);
+        System.arraycopy(maxY, entry + 1, maxY, entry, moved);
+        objects[--count] = null;
+        for (int i = entry; i < count; i++) objects[i].broadphaseEntry = i;
+
+        obj.broadphase = null;
+        obj.broadphaseEntry = -1;
+    }
+
+    /**
+     * Copies the current collision bounds of an object and moves its entry
+     * back into left-edge order.
+     *
+     * @param obj The object whose bounds may have changed.
+     */
+    public void update(Object obj)
+    {
+        if (obj.broadphase != this) return;
+
+        int entry = obj.broadphaseEntry;
+        Bounds bounds = obj.bounds;
+        if (bounds == null || bounds.bounds == null)
+        {
+            minX[entry] = Integer.MAX_VALUE;
+            minY[entry] = Integer.MAX_VALUE;
+            maxX[entry] = Integer.MIN_VALUE;
+            maxY[entry] = Integer.MIN_VALUE;
+        } else
+        {
+            float width = bounds.bounds.width * bounds.getScale(), height = bounds.bounds.height * bounds.getScale();
+            minX[entry] = bounds.bounds.x;
+            minY[entry] = bounds.bounds.y;
+            maxX[entry] = width > 0 && height > 0 ? bounds.bounds.x + width : Integer.MIN_VALUE;
+            maxY[entry] = width > 0 && height > 0 ? bounds.bounds.y + height : Integer.MIN_VALUE;
+            if (width > maxWidth) maxWidth = width;
+        }
+
+        while (entry > 0 && minX[entry - 1] > minX[entry])
+        {
+            swap(entry - 1, entry);
+            entry--;
+        }
+        while (entry < count - 1 && minX[entry + 1] < minX[entry])
+        {
+            swap(entry, entry + 1);
+            entry++;
+        }
+    }
+
+    /**
+     * Re-indexes a list of objects from scratch, e.g. after it was modified directly.
+     *
+     * @param objectList The objects to index.
+     */
+    public void rebuild(List<Object> objectList)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            objects[i].broadphase = null;
+            objects[i].broadphaseEntry = -1;
+            objects[i] = null;
+        }
+        count = 0;
+        maxWidth = 0;
+
+        for (Object obj : objectList) add(obj);
+    }
+
+    /**
+     * Sweeps the sorted bounds, storing every pair of colliding objects.
+     * Called once per tick, after every object was updated.
+     *
+     * @return The number of colliding pairs.
+     */
+    public int findPairs()
+    {
+        pairCount = 0;
+        float width = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            if (maxX[i] - minX[i] > width) width = maxX[i] - minX[i];
+
+            Object a = objects[i];
+            for (int j = i + 1; j < count && minX[j] < maxX[i]; j++)
+            {
+                if (minY[j] >= maxY[i] || minY[i] >= maxY[j] || maxX[j] <= minX[i]) continue;
+
+                Object b = objects[j];
+                if (!canCollide(a, b)) continue;
+
+                if (pairCount == pairA.length)
+                {
+                    pairA = Arrays.copyOf(pairA, pairCount * 2);
+                    pairB = Arrays.copyOf(pairB, pairCount * 2);
+                }
+                pairA[pairCount] = a;
+                pairB[pairCount] = b;
+                pairCount++;
+            }
+        }
+
+        Arrays.fill(pairA, pairCount, pairA.length, null);
+        Arrays.fill(pairB, pairCount, pairB.length, null);
+        maxWidth = width;
+        return pairCount;
+    }
+
+    /**
+     * Supplies whether the bounds of an object, moved by an offset, would overlap
+     * the bounds of another object it can collide with. The object itself is
+     * tested with its current bounds; the others with their bounds as of their
+     * last {@link #update(Object)}.
+     *
+     * @param obj     The object to test.
+     * @param xOffset The x-offset applied to the object's bounds.
+     * @param yOffset The y-offset applied to the object's bounds.
+     * @return Weather or not the moved bounds overlap another object.
+     */
+    public boolean isColliding(Object obj, int xOffset, int yOffset)
+    {
+        Bounds bounds = obj.bounds;
+        if (bounds == null || bounds.bounds == null) return false;
+
+        float width = bounds.bounds.width * bounds.getScale(), height = bounds.bounds.height * bounds.getScale();
+        if (width <= 0 || height <= 0) return false;
+
+        int left = bounds.bounds.x + xOffset, top = bounds.bounds.y + yOffset;
+        float right = left + width, bottom = top + height;
+
+        for (int i = lowerBound(left - maxWidth); i < count && minX[i] < right; i++)
+        {
+            if (maxX[i] <= left || minY[i] >= bottom || maxY[i] <= top) continue;
+
+            Object other = objects[i];
+            if (other != obj && canCollide(obj, other)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Supplies whether two objects' collision layers and masks let them collide.
+     *
+     * @param a An object.
+     * @param b Another object.
+     * @return Weather or not each object's layer is in the other's mask.
+     */
+    public static boolean canCollide(Object a, Object b)
+    {
+        return (a.getCollisionLayer() & b.getCollisionMask()) != 0 && (b.getCollisionLayer() & a.getCollisionMask()) != 0;
+    }
+
+    /**
+     * Supplies the first entry whose left edge is at least a given value.
+     */
+    private int lowerBound(float left)
+    {
+        int low = 0, high = count;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (minX[middle] < left) low = middle + 1;
+            else high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * Exchanges two adjacent entries.
+     */
+    private void swap(int i, int j)
+    {
+        Object object = objects[i];
+        objects[i] = objects[j];
+        objects[j] = object;
+        objects[i].broadphaseEntry = i;
+        objects[j].broadphaseEntry = j;
+
+        int edge = minX[i];
+        minX[i] = minX[j];
+        minX[j] = edge;
+        edge = minY[i];
+        minY[i] = minY[j];
+        minY[j] = edge;
+
+        float far = maxX[i];
+        maxX[i] = maxX[j];
+        maxX[j] = far;
+        far = maxY[i];
+        maxY[i] = maxY[j];
+        maxY[j] = far;
+    }
+
+    /**
+     * @return The number of colliding pairs found by the last sweep.
+     */
+    public int getPairCount()
+    {
+        return pairCount;
+    }
+
+    /**
+     * @param pair Index of the pair.
+     * @return The first object of a colliding pair.
+     */
+    public Object getPairA(int pair)
+    {
+        return pairA[pair];
+    }
+
+    /**
+     * @param pair Index of the pair.
+     * @return The second object of a colliding pair.
+     */
+    public Object getPairB(int pair)
+    {
+        return pairB[pair];
+    }
+
+    /**
+     * @return The number of indexed objects.
+     */
+    public int size()
+    {
+        return count;
+    }
+}
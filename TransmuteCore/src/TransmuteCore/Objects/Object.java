@@ -32,6 +32,12 @@ public abstract class Object implements Updatable, Renderable
     protected Bounds bounds; //The object collision bounds
 
     private boolean isRemoved = false; //Weather or not the object was removed from a level
+    SpatialGrid grid; //The spatial grid indexing the object, if any
+    int gridSlot = -1; //The slot of the object in its spatial grid
+    Broadphase broadphase; //The broadphase indexing the object's collision bounds, if any
+    int broadphaseEntry = -1; //The entry of the object in its broadphase
+    private int collisionLayer = 0x1; //The collision layers the object belongs to
+    private int collisionMask = ~0; //The collision layers the object collides with
 
     public Object(Manager manager, String name, int type, Sprite sprite, Tuple2i location, float scale)
     {
@@ -120,6 +126,8 @@ public abstract class Object implements Updatable, Renderable
 
     /**
      * Method used to check weather or not an object is colliding with another object.
+     * The object is never tested against itself, and only against objects it can
+     * collide with according to the collision layers and masks.
      *
      * @param xOffset The x-offset of the object.
      * @param yOffset The y-offset of the object.
@@ -127,17 +135,60 @@ public abstract class Object implements Updatable, Renderable
      */
     protected boolean isCollidingWithObject(int xOffset, int yOffset)
     {
-        for (Object object : manager.getObjectManager().objectList)
-        {
-            if (object.name.equalsIgnoreCase(this.name)) continue;
+        ObjectManager objectManager = manager.getObjectManager();
+        objectManager.refreshBroadphase();
+        return objectManager.getBroadphase().isColliding(this, xOffset, yOffset);
+    }
 
-            if (object.bounds != null && this.bounds != null)
-            {
-                if (object.bounds.getBounds(0, 0).intersects(this.bounds.getBounds(xOffset, yOffset))) return true;
-            }
-        }
+    /**
+     * Sets the collision layers the object belongs to, as a bit mask.
+     *
+     * @param collisionLayer The collision layers (e.g. {@code 0x1}).
+     */
+    public void setCollisionLayer(int collisionLayer)
+    {
+        this.collisionLayer = collisionLayer;
+    }
+
+    /**
+     * @return The collision layers the object belongs to.
+     */
+    public int getCollisionLayer()
+    {
+        return collisionLayer;
+    }
 
-        return false;
+    /**
+     * Sets the collision layers the object collides with, as a bit mask.
+     *
+     * @param collisionMask The collision layers (e.g. {@code ~0} for all).
+     */
+    public void setCollisionMask(int collisionMask)
+    {
+        this.collisionMask = collisionMask;
+    }
+
+    /**
+     * @return The collision layers the object collides with.
+     */
+    public int getCollisionMask()
+    {
+        return collisionMask;
+    }
+
+    /**
+     * Method that MUST be called after changing the location of the object outside
+     * of an update, so spatial queries and collision checks made before the next
+     * update find it at its new location.
+     */
+    protected void moved()
+    {
+        if (grid != null) grid.update(this);
+        if (broadphase != null)
+        {
+            if (bounds != null) bounds.update(manager, 0);
+            broadphase.update(this);
+        }
     }
 
     /**
@@ -4,9 +4,11 @@ import TransmuteCore.GameEngine.Interfaces.Renderable;
 import TransmuteCore.GameEngine.Interfaces.Updatable;
 import TransmuteCore.GameEngine.Manager;
 import TransmuteCore.Graphics.Context;
+import TransmuteCore.System.Profiler;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 /**
  * {@code ObjectManager} is a object handler class.
@@ -16,6 +18,8 @@ import java.util.List;
 public class ObjectManager implements Updatable, Renderable
 {
     public List<Object> objectList = new ArrayList<>(); //The list of objects
+    private final SpatialGrid grid = new SpatialGrid(SpatialGrid.DEFAULT_CELL_SIZE); //The objects indexed by location
+    private final Broadphase broadphase = new Broadphase(); //The objects indexed by collision bounds
 
     /**
      * Method used to add a object to the list
@@ -25,6 +29,8 @@ public class ObjectManager implements Updatable, Renderable
     public void add(Object obj)
     {
         objectList.add(obj);
+        grid.add(obj);
+        broadphase.add(obj);
     }
 
     /**
@@ -35,23 +41,93 @@ public class ObjectManager implements Updatable, Renderable
     public void remove(Object obj)
     {
         objectList.remove(obj);
+        grid.remove(obj);
+        broadphase.remove(obj);
     }
 
     @Override
     public void update(Manager manager, double delta)
     {
+        refreshBroadphase();
         for (Object obj : objectList)
         {
             obj.update(manager, delta);
+            broadphase.update(obj);
         }
+        refreshGrid();
+        broadphase.findPairs();
+        Profiler.count(Profiler.OBJECTS_UPDATED, objectList.size());
+    }
+
+    /**
+     * Re-buckets the objects that moved, re-indexing every object if the list
+     * was modified without {@link #add(Object)} or {@link #remove(Object)}.
+     */
+    public void refreshGrid()
+    {
+        if (grid.size() != objectList.size())
+        {
+            grid.clear();
+            for (Object obj : objectList) grid.add(obj);
+            return;
+        }
+
+        grid.refresh();
+    }
+
+    /**
+     * Re-indexes every object's collision bounds if the list was modified
+     * without {@link #add(Object)} or {@link #remove(Object)}.
+     */
+    public void refreshBroadphase()
+    {
+        if (broadphase.size() != objectList.size()) broadphase.rebuild(objectList);
+    }
+
+    /**
+     * Supplies every pair of objects whose collision bounds overlapped at the end
+     * of the last update, and which collide according to their collision layers and masks.
+     *
+     * @param action Called with both objects of each pair.
+     */
+    public void forEachCollision(BiConsumer<Object, Object> action)
+    {
+        for (int pair = 0; pair < broadphase.getPairCount(); pair++) action.accept(broadphase.getPairA(pair), broadphase.getPairB(pair));
+    }
+
+    /**
+     * @return The number of pairs of colliding objects found by the last update.
+     */
+    public int getCollisionCount()
+    {
+        return broadphase.getPairCount();
+    }
+
+    /**
+     * @return The broadphase indexing the objects by collision bounds, whose
+     * colliding pairs are found once per update.
+     */
+    public Broadphase getBroadphase()
+    {
+        return broadphase;
+    }
+
+    /**
+     * @return The spatial grid indexing the objects by location.
+     */
+    public SpatialGrid getGrid()
+    {
+        return grid;
     }
 
     @Override
     public void render(Manager manager, Context ctx)
     {
+        Profiler.begin(Profiler.OBJECTS);
         for (Object obj : objectList)
         {
             obj.render(manager, ctx);
         }
+        Profiler.end(Profiler.OBJECTS);
     }
 }
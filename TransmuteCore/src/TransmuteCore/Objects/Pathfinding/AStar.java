@@ -1,34 +1,33 @@
 package TransmuteCore.Objects.Pathfinding;
 
-import TransmuteCore.Level.Tile;
 import TransmuteCore.Level.TiledLevel;
 import TransmuteCore.Units.Vector2i;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 /**
  * A* (pronounced as "A star") is a computer algorithm that is widely used in
  * path-finding and graph traversal, the process of plotting an efficiently
  * directed path between multiple points, called nodes.
+ * <br>
+ * The search runs over the cells of a {@link TiledLevel}, moving to any of the
+ * 8 neighbouring walkable tiles, straight moves costing 1 and diagonal moves
+ * costing the square root of 2, guided by the octile distance. Levels holding
+ * their tiles in memory are searched through their bitset of walkable tiles
+ * ({@link TiledLevel#getWalkableCells()}) rather than tile by tile. Its working state
+ * lives in a per-thread {@link SearchContext}, so an {@code AStar} can be shared
+ * between threads as long as the level is not modified during a search.
  */
 public class AStar
 {
-    private static final int SEARCH_AREA = 3 * 3; //The search area within the level. Represents a small portion of the level.
-    private List<Node> open = new ArrayList<>(); //The list of possible Nodes that may reach the destination.
-    private List<Node> closed = new ArrayList<>(); //The list of already looked at Nodes.
-    private TiledLevel level; //The level associated with this search.
+    static final double DIAGONAL_COST = Math.sqrt(2); //The cost of a diagonal move
+    static final int[] X_DIRECTIONS = {1, -1, 0, 0, 1, 1, -1, -1}; //x-change of each move, straight moves first
+    static final int[] Y_DIRECTIONS = {0, 0, 1, -1, 1, -1, 1, -1}; //y-change of each move, straight moves first
 
-    /**
-     * Compares two Nodes based on f-cost.
-     */
-    private Comparator<Node> nodeComparator = (a, b) ->
-    {
-        if (a.f() < b.f()) return 1;
-        else if (a.f() > b.f()) return -1;
-        return 0;
-    };
+    protected TiledLevel level; //The level associated with this search.
+    private boolean cornerCutting; //Weather or not diagonal moves may pass a solid tile's corner
+    long[] walkable; //Bitset of the walkable tiles searched instead of the level's, or null
 
     public AStar(TiledLevel level)
     {
@@ -40,110 +39,214 @@ public class AStar
      *
      * @param start The starting location.
      * @param goal  The destination.
-     * @return The fastest path from a starting point to a given destination.
+     * @return The fastest path from a starting point to a given destination,
+     * from the destination back to the location after the start, or an empty
+     * list if the destination cannot be reached.
      */
     public List<Node> findPath(Vector2i start, Vector2i goal)
     {
-        List<Node> path = new ArrayList<>();
-        Node current = new Node(level, start, null);
+        int width = level.getWidth(), height = level.getHeight();
+        if (!isInside(start.x, start.y) || !isWalkable(goal.x, goal.y)) return new ArrayList<>();
 
-        open.add(current);
+        long[] cells = walkable != null ? walkable : level.getWalkableCells();
+        SearchContext context = SearchContext.get();
+        context.prepare(width * height);
+        int goalCell = goal.x + goal.y * width;
+        context.open(start.x + start.y * width, 0, getHeuristic(start.x, start.y, goal.x, goal.y), -1);
 
-        while (open.size() > 0)
+        while (!context.isEmpty())
         {
-            open.sort(nodeComparator);
-
-            current = open.get(0);
+            int cell = context.pop();
+            if (cell == goalCell) return buildPath(context, cell);
 
-            if (current.location.equals(goal))
+            int x = cell % width, y = cell / width;
+            double g = context.getG(cell);
+            for (int direction = 0; direction < X_DIRECTIONS.length; direction++)
             {
-                while (current.parent != null)
+                int dx = X_DIRECTIONS[direction], dy = Y_DIRECTIONS[direction];
+                int nx = x + dx, ny = y + dy;
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+
+                int neighbour = nx + ny * width;
+                if (context.isClosed(neighbour)) continue;
+                if (cells == null)
+                {
+                    if (!canMove(x, y, dx, dy)) continue;
+                } else
                 {
-                    path.add(current);
-                    current = current.parent;
+                    //canMove, testing the bitset directly
+                    if (!isSet(cells, neighbour)) continue;
+                    if (dx != 0 && dy != 0 && !cornerCutting && (!isSet(cells, cell + dx) || !isSet(cells, cell + dy * width))) continue;
                 }
 
-                open.clear();
-                closed.clear();
+                double cost = g + (dx != 0 && dy != 0 ? DIAGONAL_COST : 1);
+                context.open(neighbour, cost, cost + getHeuristic(nx, ny, goal.x, goal.y), cell);
             }
-
-            open.remove(current);
-            closed.add(current);
-
-            sort(current, goal);
         }
 
-        return path;
+        return new ArrayList<>();
     }
 
     /**
-     * Calculates a low-cost path given the current Node and the target.
+     * Supplies whether a single move from a walkable tile is possible: the target
+     * tile must be walkable and, unless corner cutting is enabled, a diagonal
+     * move requires both tiles it passes between to be walkable.
      *
-     * @param current The current Node in question.
-     * @param goal    The target or destination.
+     * @param x  x-coordinate of the tile moved from.
+     * @param y  y-coordinate of the tile moved from.
+     * @param dx x-change of the move (-1, 0 or 1).
+     * @param dy y-change of the move (-1, 0 or 1).
+     * @return Weather or not the move is possible.
      */
-    private void sort(Node current, Vector2i goal)
+    public boolean canMove(int x, int y, int dx, int dy)
     {
-        for (int i = 0; i < SEARCH_AREA; i++)
-        {
-            if (i == 4) continue;
+        if (!isWalkable(x + dx, y + dy)) return false;
+        if (dx == 0 || dy == 0 || cornerCutting) return true;
 
-            int xi = current.location.x; //x-initial
-            int yi = current.location.y; //y-initial
+        return isWalkable(x + dx, y) && isWalkable(x, y + dy);
+    }
 
-            int xf = (i % 3) - 1; //x-final
-            int yf = (i / 3) - 1; //y-final
+    /**
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     * @return Weather or not a tile exists at a location and is not solid.
+     */
+    public boolean isWalkable(int x, int y)
+    {
+        if (!isInside(x, y)) return false;
+        long[] cells = walkable != null ? walkable : level.getWalkableCells();
+        if (cells != null) return isSet(cells, x + y * level.getWidth());
 
-            int xChange = xi + xf;
-            int yChange = yi + yf;
+        return level.getTile(x, y) != null && !level.isSolid(x, y);
+    }
 
-            Tile tile = current.level.getTile(xChange, yChange);
-            Vector2i tileVector = new Vector2i(xChange, yChange);
+    /**
+     * @return Weather or not a cell is set in a bitset of cells.
+     */
+    static boolean isSet(long[] cells, int cell)
+    {
+        return (cells[cell >>> 6] & (1L << cell)) != 0;
+    }
 
-            if (tile == null) continue;
-            if (tile.isSolid()) continue;
+    /**
+     * @return Weather or not a location is within the level.
+     */
+    boolean isInside(int x, int y)
+    {
+        return x >= 0 && y >= 0 && x < level.getWidth() && y < level.getHeight();
+    }
 
-            double g = current.getG() +
-                    (getDistance(current.location, tileVector) == 1 ? 1 : 0.95);
-            double h = getDistance(tileVector, goal);
+    /**
+     * Calculates the octile distance between two locations: the cost of the
+     * shortest path between them on an empty grid.
+     *
+     * @return The estimated cost from one location to another.
+     */
+    static double getHeuristic(int x, int y, int goalX, int goalY)
+    {
+        int dx = Math.abs(x - goalX), dy = Math.abs(y - goalY);
+        return Math.max(dx, dy) + (DIAGONAL_COST - 1) * Math.min(dx, dy);
+    }
 
-            Node node = new Node(level, tileVector, current, g, h);
+    /**
+     * Copies the walkable tiles of a level into a bitset, which searches can
+     * use in place of the level.
+     *
+     * @param level The level.
+     * @return Bitset of the walkable tiles, by cell.
+     */
+    static long[] takeSnapshot(TiledLevel level)
+    {
+        long[] current = level.getWalkableCells();
+        if (current != null) return current.clone();
 
-            if (contains(closed, tileVector) && g >= node.getG()) continue;
-            if (!contains(open, tileVector) || g < node.getG()) open.add(node);
+        int width = level.getWidth(), cells = width * level.getHeight();
+        long[] walkable = new long[(cells + 63) >>> 6];
+        for (int cell = 0; cell < cells; cell++)
+        {
+            int x = cell % width, y = cell / width;
+            if (level.getTile(x, y) != null && !level.isSolid(x, y)) walkable[cell >>> 6] |= 1L << cell;
         }
+
+        return walkable;
     }
 
     /**
-     * Calculates the distance between two vectors.
+     * Creates the Nodes of a path by following the parents of the reached cells
+     * back from a given cell.
      *
-     * @param start The starting point.
-     * @param goal  The ending point or destination.
-     * @return The distance between two vectors.
+     * @param context The search context holding the parents.
+     * @param cell    The last cell of the path.
+     * @return The path, from the given cell back to the cell after the start.
      */
-    private double getDistance(Vector2i start, Vector2i goal)
+    List<Node> buildPath(SearchContext context, int cell)
     {
-        double xChange = start.x - goal.x;
-        double yChange = start.y - goal.y;
+        int length = 0;
+        for (int c = cell; c >= 0; c = context.getParent(c)) length++;
+
+        int[] cells = new int[length];
+        double[] costs = new double[length];
+        for (int c = cell, i = length - 1; c >= 0; c = context.getParent(c), i--)
+        {
+            cells[i] = c;
+            costs[i] = context.getG(c);
+        }
 
-        return Math.sqrt(xChange * xChange + yChange * yChange);
+        return createPath(level, cells, costs, length);
     }
 
     /**
-     * Checks if a given list contains a specific vector.
+     * Creates the Nodes of a path given its cells in order.
      *
-     * @param list     The list of Nodes in question.
-     * @param vector2i The specific vector to look for.
-     * @return Weather or not the given list contains a specific vector.
+     * @param level  The level the cells belong to.
+     * @param cells  The cells of the path, the first one being the start.
+     * @param costs  The g-cost of each cell.
+     * @param length The number of cells of the path.
+     * @return The path, from the last cell back to the cell after the start.
      */
-    private boolean contains(List<Node> list, Vector2i vector2i)
+    static List<Node> createPath(TiledLevel level, int[] cells, double[] costs, int length)
     {
-        for (Node n : list)
+        int width = level.getWidth();
+        List<Node> path = new ArrayList<>(Math.max(0, length - 1));
+        if (length == 0) return path;
+
+        Node parent = new Node(level, new Vector2i(cells[0] % width, cells[0] / width), null);
+        Node[] nodes = new Node[length - 1];
+        for (int i = 1; i < length; i++)
         {
-            if (n.location.equals(vector2i)) return true;
+            parent = new Node(level, new Vector2i(cells[i] % width, cells[i] / width), parent, costs[i], 0);
+            nodes[i - 1] = parent;
         }
+        for (int i = nodes.length - 1; i >= 0; i--) path.add(nodes[i]);
 
-        return false;
+        return path;
+    }
+
+    /**
+     * Sets whether diagonal moves may pass the corner of a solid tile. Disabled
+     * by default, as mobs moving one axis at a time cannot follow such moves.
+     *
+     * @param cornerCutting Corner cutting flag.
+     */
+    public void setCornerCutting(boolean cornerCutting)
+    {
+        this.cornerCutting = cornerCutting;
+    }
+
+    /**
+     * @return Weather or not diagonal moves may pass the corner of a solid tile.
+     */
+    public boolean isCornerCutting()
+    {
+        return cornerCutting;
+    }
+
+    /**
+     * @return The number of tiles expanded by the last search of the calling thread.
+     */
+    public int getExpandedCount()
+    {
+        return SearchContext.get().expanded;
     }
 
     /**
@@ -0,0 +1,527 @@
+package TransmuteCore.Objects.Pathfinding;
+
+import TransmuteCore.Level.TileListener;
+import TransmuteCore.Level.TiledLevel;
+import TransmuteCore.Units.Vector2i;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * D* Lite is an incremental planner for a mob heading to a fixed destination
+ * over a {@link TiledLevel} whose tiles change while it moves.
+ * <br>
+ * The search runs backwards, from the destination to the mob, with the same
+ * moves and costs as {@link AStar}, and keeps its cost to the destination of
+ * every tile it expanded between calls. When tiles change solidity, only the
+ * costs that depended on them are repaired, which is usually a small part of
+ * the work of a new search, and the next path is read from the repaired costs.
+ * <p>
+ * The planner searches its own snapshot of the walkable tiles, which learns
+ * about changes through {@link TileListener}: register the planner with
+ * {@link TiledLevel#addTileListener(TileListener)}, and remove it once the
+ * mob no longer needs it. Changes are applied by the next
+ * {@link #findPath(Vector2i)}; replacing the level's tiles as a whole or moving
+ * the destination starts the search over.
+ * <p>
+ * Each planner holds about 40 bytes per tile of the level (2.6 MB for a
+ * 256 x 256 level), so it suits a few mobs with long-lived destinations; many
+ * mobs sharing one destination are better served by a {@link FlowField}. A
+ * planner must only be used by one thread at a time.
+ */
+public class DStarLite implements TileListener
+{
+    private static final double UNREACHABLE = Double.POSITIVE_INFINITY;
+    private static final double TOLERANCE = 1e-9; //Difference below which keys are considered equal, as sums of diagonal costs are rounded
+
+    private TiledLevel level; //The level associated with this planner
+    private AStar aStar; //Supplies the moves over the snapshot
+    private int goalX, goalY; //The destination
+    private int startX, startY; //The start of the current search
+    private int lastX, lastY; //The start of the previous search
+
+    private boolean initialized; //Weather or not the costs were set up for the destination
+    private double km; //Sum of the heuristic distances the start moved by since the search started
+    private double[] g; //Cost to the destination of each tile, as last expanded
+    private double[] rhs; //Cost to the destination of each tile, from the costs of its neighbours
+    private int[] heapIndices; //Position of each queued tile in the heap, or -1
+    private int[] heap; //Queued tiles, as a binary heap
+    private double[] heapKeys; //Primary key of the tile at each heap position
+    private double[] heapTies; //Secondary key of the tile at each heap position
+    private int heapSize; //Number of queued tiles
+
+    private int[] changes = new int[16]; //Tiles set since the last search
+    private int changeCount; //Number of tiles set since the last search
+    private int expanded; //Number of tiles expanded by the last search
+
+    /**
+     * Creates a planner heading to a destination. Nothing is searched until the
+     * first call to {@link #findPath(Vector2i)}.
+     *
+     * @param level The level to search.
+     * @param goal  The destination.
+     */
+    public DStarLite(TiledLevel level, Vector2i goal)
+    {
+        this.level = level;
+        aStar = new AStar(level);
+        goalX = goal.x;
+        goalY = goal.y;
+    }
+
+    /**
+     * Calculates the fastest path from a starting point to the destination,
+     * repairing the costs affected by the tiles changed since the last call.
+     *
+     * @param start The starting location, usually the mob's current one.
+     * @return The fastest path from the starting point to the destination,
+     * from the destination back to the location after the start, or an empty
+     * list if the destination cannot be reached.
+     */
+    public List<Node> findPath(Vector2i start)
+    {
+        expanded = 0;
+        startX = start.x;
+        startY = start.y;
+        int width = level.getWidth();
+        if (!initialized || g.length != width * level.getHeight()) initialize();
+        else
+        {
+            //Queued keys stay lower bounds as long as km grows by the distance the start moved
+            km += AStar.getHeuristic(lastX, lastY, startX, startY);
+            lastX = startX;
+            lastY = startY;
+            applyChanges();
+        }
+
+        if (!aStar.isInside(start.x, start.y) || !aStar.isWalkable(goalX, goalY) || (start.x == goalX && start.y == goalY))
+            return new ArrayList<>();
+
+        //A start on a solid tile is left through its neighbours, whose costs must be known
+        if (aStar.isWalkable(start.x, start.y)) computeShortestPath(start.x + start.y * width);
+        else
+        {
+            for (int direction = 0; direction < AStar.X_DIRECTIONS.length; direction++)
+            {
+                int dx = AStar.X_DIRECTIONS[direction], dy = AStar.Y_DIRECTIONS[direction];
+                if (aStar.canMove(start.x, start.y, dx, dy)) computeShortestPath(start.x + dx + (start.y + dy) * width);
+            }
+        }
+
+        return buildPath(start.x, start.y);
+    }
+
+    /**
+     * Starts the search over from the destination, on a new snapshot of the level.
+     */
+    private void initialize()
+    {
+        int cells = level.getWidth() * level.getHeight();
+        if (g == null || g.length != cells)
+        {
+            g = new double[cells];
+            rhs = new double[cells];
+            heapIndices = new int[cells];
+            heap = new int[cells];
+            heapKeys = new double[cells];
+            heapTies = new double[cells];
+        }
+
+        aStar.walkable = AStar.takeSnapshot(level);
+        Arrays.fill(g, UNREACHABLE);
+        Arrays.fill(rhs, UNREACHABLE);
+        Arrays.fill(heapIndices, -1);
+        heapSize = 0;
+        km = 0;
+        lastX = startX;
+        lastY = startY;
+        changeCount = 0;
+        initialized = true;
+
+        if (aStar.isInside(goalX, goalY))
+        {
+            int goal = goalX + goalY * level.getWidth();
+            rhs[goal] = computeRhs(goal);
+            updateTile(goal);
+        }
+    }
+
+    /**
+     * Copies the tiles set since the last search into the snapshot, and
+     * requeues the tiles whose moves they affect: the tiles themselves and
+     * their neighbours, whose diagonal moves may pass their corners.
+     */
+    private void applyChanges()
+    {
+        if (changeCount == 0) return;
+
+        int width = level.getWidth();
+        long[] walkable = aStar.walkable;
+        for (int i = 0; i < changeCount; i++)
+        {
+            int cell = changes[i];
+            boolean now = isLevelWalkable(cell % width, cell / width);
+            if (now == ((walkable[cell >>> 6] & (1L << cell)) != 0)) continue;
+
+            walkable[cell >>> 6] ^= 1L << cell;
+            int x = cell % width, y = cell / width;
+            for (int ny = y - 1; ny <= y + 1; ny++)
+            {
+                for (int nx = x - 1; nx <= x + 1; nx++)
+                {
+                    if (!aStar.isInside(nx, ny)) continue;
+
+                    int neighbour = nx + ny * width;
+                    rhs[neighbour] = computeRhs(neighbour);
+                    updateTile(neighbour);
+                }
+            }
+        }
+        changeCount = 0;
+    }
+
+    /**
+     * Expands queued tiles until the cost of a target tile is final.
+     *
+     * @param target The tile whose cost is needed.
+     */
+    private void computeShortestPath(int target)
+    {
+        int width = level.getWidth();
+        while (heapSize > 0)
+        {
+            double targetKey = getKey(target), targetTie = Math.min(g[target], rhs[target]);
+            if (!isLess(heapKeys[0], heapTies[0], targetKey + TOLERANCE, targetTie) && rhs[target] == g[target]) break;
+
+            int cell = heap[0];
+            double oldKey = heapKeys[0], oldTie = heapTies[0];
+            double newKey = getKey(cell), newTie = Math.min(g[cell], rhs[cell]);
+            if (isLess(oldKey, oldTie, newKey, newTie))
+            {
+                //Queued before the start moved, the key is outdated
+                siftDown(0, cell, newKey, newTie);
+                continue;
+            }
+
+            expanded++;
+            int x = cell % width, y = cell / width;
+            if (g[cell] > rhs[cell])
+            {
+                g[cell] = rhs[cell];
+                remove(cell);
+                for (int direction = 0; direction < AStar.X_DIRECTIONS.length; direction++)
+                {
+                    int dx = AStar.X_DIRECTIONS[direction], dy = AStar.Y_DIRECTIONS[direction];
+                    int nx = x + dx, ny = y + dy;
+                    if (!aStar.isWalkable(nx, ny) || !aStar.canMove(nx, ny, -dx, -dy)) continue;
+
+                    int neighbour = nx + ny * width;
+                    double cost = g[cell] + (dx != 0 && dy != 0 ? AStar.DIAGONAL_COST : 1);
+                    if (cost < rhs[neighbour])
+                    {
+                        rhs[neighbour] = cost;
+                        updateTile(neighbour);
+                    }
+                }
+            } else
+            {
+                double oldG = g[cell];
+                g[cell] = UNREACHABLE;
+                for (int direction = 0; direction < AStar.X_DIRECTIONS.length; direction++)
+                {
+                    int dx = AStar.X_DIRECTIONS[direction], dy = AStar.Y_DIRECTIONS[direction];
+                    int nx = x + dx, ny = y + dy;
+                    if (!aStar.isWalkable(nx, ny)) continue;
+
+                    int neighbour = nx + ny * width;
+                    if (rhs[neighbour] == oldG + (dx != 0 && dy != 0 ? AStar.DIAGONAL_COST : 1))
+                    {
+                        rhs[neighbour] = computeRhs(neighbour);
+                        updateTile(neighbour);
+                    }
+                }
+                rhs[cell] = computeRhs(cell);
+                updateTile(cell);
+            }
+        }
+    }
+
+    /**
+     * Supplies the cost of a tile to the destination through the cheapest of its neighbours.
+     */
+    private double computeRhs(int cell)
+    {
+        int width = level.getWidth();
+        int x = cell % width, y = cell / width;
+        if (!aStar.isWalkable(x, y)) return UNREACHABLE;
+        if (x == goalX && y == goalY) return 0;
+
+        double best = UNREACHABLE;
+        for (int direction = 0; direction < AStar.X_DIRECTIONS.length; direction++)
+        {
+            int dx = AStar.X_DIRECTIONS[direction], dy = AStar.Y_DIRECTIONS[direction];
+            if (!aStar.canMove(x, y, dx, dy)) continue;
+
+            double cost = g[x + dx + (y + dy) * width] + (dx != 0 && dy != 0 ? AStar.DIAGONAL_COST : 1);
+            if (cost < best) best = cost;
+        }
+
+        return best;
+    }
+
+    /**
+     * Queues a tile whose costs disagree, with its current key, or removes it
+     * from the queue once they agree.
+     */
+    private void updateTile(int cell)
+    {
+        if (g[cell] != rhs[cell])
+        {
+            double key = getKey(cell), tie = Math.min(g[cell], rhs[cell]);
+            int index = heapIndices[cell];
+            if (index < 0)
+            {
+                siftUp(heapSize++, cell, key, tie);
+            } else
+            {
+                siftUp(index, cell, key, tie);
+                siftDown(heapIndices[cell], cell, key, tie);
+            }
+        } else if (heapIndices[cell] >= 0)
+        {
+            remove(cell);
+        }
+    }
+
+    /**
+     * Supplies the primary key of a tile: its cost to the destination plus the
+     * heuristic distance from the start, corrected for the moves of the start.
+     */
+    private double getKey(int cell)
+    {
+        int width = level.getWidth();
+        return Math.min(g[cell], rhs[cell]) + AStar.getHeuristic(startX, startY, cell % width, cell / width) + km;
+    }
+
+    /**
+     * Follows the cheapest moves from a starting point to the destination.
+     */
+    private List<Node> buildPath(int startX, int startY)
+    {
+        int width = level.getWidth();
+        int[] cells = new int[16];
+        double[] costs = new double[16];
+        int length = 1;
+        cells[0] = startX + startY * width;
+
+        int x = startX, y = startY;
+        int limit = g.length;
+        while (x != goalX || y != goalY)
+        {
+            int best = -1;
+            double bestCost = UNREACHABLE, bestStep = 0;
+            for (int direction = 0; direction < AStar.X_DIRECTIONS.length; direction++)
+            {
+                int dx = AStar.X_DIRECTIONS[direction], dy = AStar.Y_DIRECTIONS[direction];
+                if (!aStar.canMove(x, y, dx, dy)) continue;
+
+                double step = dx != 0 && dy != 0 ? AStar.DIAGONAL_COST : 1;
+                double cost = g[x + dx + (y + dy) * width] + step;
+                if (cost < bestCost)
+                {
+                    best = direction;
+                    bestCost = cost;
+                    bestStep = step;
+                }
+            }
+            if (best < 0 || length > limit) return new ArrayList<>();
+
+            //A tile whose key ties with the start's may be left queued with an outdated cost
+            int next = x + AStar.X_DIRECTIONS[best] + (y + AStar.Y_DIRECTIONS[best]) * width;
+            if (g[next] != rhs[next])
+            {
+                computeShortestPath(next);
+                continue;
+            }
+
+            x += AStar.X_DIRECTIONS[best];
+            y += AStar.Y_DIRECTIONS[best];
+            if (length == cells.length)
+            {
+                cells = Arrays.copyOf(cells, length * 2);
+                costs = Arrays.copyOf(costs, length * 2);
+            }
+            cells[length] = x + y * width;
+            costs[length] = costs[length - 1] + bestStep;
+            length++;
+        }
+
+        return AStar.createPath(level, cells, costs, length);
+    }
+
+    /**
+     * Moves the destination, starting the search over with the next call to
+     * {@link #findPath(Vector2i)}.
+     *
+     * @param x x-coordinate of the destination.
+     * @param y y-coordinate of the destination.
+     */
+    public void setGoal(int x, int y)
+    {
+        if (x == goalX && y == goalY) return;
+
+        goalX = x;
+        goalY = y;
+        initialized = false;
+    }
+
+    /**
+     * @return The destination.
+     */
+    public Vector2i getGoal()
+    {
+        return new Vector2i(goalX, goalY);
+    }
+
+    @Override
+    public void tileChanged(TiledLevel level, int x, int y)
+    {
+        if (!initialized || level != this.level || !aStar.isInside(x, y)) return;
+
+        //Past a quarter of the tiles, starting over is cheaper than repairing
+        if (changeCount == changes.length)
+        {
+            if (changeCount * 4 >= g.length)
+            {
+                initialized = false;
+                return;
+            }
+            changes = Arrays.copyOf(changes, changeCount * 2);
+        }
+        changes[changeCount++] = x + y * level.getWidth();
+    }
+
+    @Override
+    public void tilesChanged(TiledLevel level)
+    {
+        if (level == this.level) initialized = false;
+    }
+
+    /**
+     * Sets whether diagonal moves may pass the corner of a solid tile, starting
+     * the search over with the next call to {@link #findPath(Vector2i)}.
+     *
+     * @param cornerCutting Corner cutting flag.
+     */
+    public void setCornerCutting(boolean cornerCutting)
+    {
+        if (cornerCutting == aStar.isCornerCutting()) return;
+
+        aStar.setCornerCutting(cornerCutting);
+        initialized = false;
+    }
+
+    /**
+     * @return Weather or not diagonal moves may pass the corner of a solid tile.
+     */
+    public boolean isCornerCutting()
+    {
+        return aStar.isCornerCutting();
+    }
+
+    /**
+     * @return The number of tiles expanded by the last call to {@link #findPath(Vector2i)}.
+     */
+    public int getExpandedCount()
+    {
+        return expanded;
+    }
+
+    /**
+     * @return The tiled-level the planner searches.
+     */
+    public TiledLevel getLevel()
+    {
+        return level;
+    }
+
+    /**
+     * @return Weather or not a tile of the level, rather than of the snapshot, is walkable.
+     */
+    private boolean isLevelWalkable(int x, int y)
+    {
+        return level.getTile(x, y) != null && !level.isSolid(x, y);
+    }
+
+    /**
+     * Compares two keys, by primary key then by secondary key.
+     */
+    private static boolean isLess(double key, double tie, double otherKey, double otherTie)
+    {
+        return key < otherKey || (key == otherKey && tie < otherTie);
+    }
+
+    /**
+     * Removes a queued tile from the heap.
+     */
+    private void remove(int cell)
+    {
+        int index = heapIndices[cell];
+        heapIndices[cell] = -1;
+        int last = --heapSize;
+        if (index == last) return;
+
+        int moved = heap[last];
+        double key = heapKeys[last], tie = heapTies[last];
+        siftUp(index, moved, key, tie);
+        siftDown(heapIndices[moved], moved, key, tie);
+    }
+
+    /**
+     * Moves a tile up from a given heap position to its place.
+     */
+    private void siftUp(int index, int cell, double key, double tie)
+    {
+        while (index > 0)
+        {
+            int parent = (index - 1) >>> 1;
+            if (!isLess(key, tie, heapKeys[parent], heapTies[parent])) break;
+
+            place(index, heap[parent], heapKeys[parent], heapTies[parent]);
+            index = parent;
+        }
+
+        place(index, cell, key, tie);
+    }
+
+    /**
+     * Moves a tile down from a given heap position to its place.
+     */
+    private void siftDown(int index, int cell, double key, double tie)
+    {
+        while (true)
+        {
+            int child = 2 * index + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && isLess(heapKeys[child + 1], heapTies[child + 1], heapKeys[child], heapTies[child])) child++;
+            if (!isLess(heapKeys[child], heapTies[child], key, tie)) break;
+
+            place(index, heap[child], heapKeys[child], heapTies[child]);
+            index = child;
+        }
+
+        place(index, cell, key, tie);
+    }
+
+    /**
+     * Stores a tile at a heap position.
+     */
+    private void place(int index, int cell, double key, double tie)
+    {
+        heap[index] = cell;
+        heapKeys[index] = key;
+        heapTies[index] = tie;
+        heapIndices[cell] = index;
+    }
+}
@@ -0,0 +1,389 @@
+package TransmuteCore.Objects.Pathfinding;
+
+import TransmuteCore.Level.TileListener;
+import TransmuteCore.Level.TiledLevel;
+import TransmuteCore.Units.Vector2i;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * {@code FlowField} guides any number of agents towards a shared goal over a
+ * {@link TiledLevel}.
+ * <br>
+ * A single Dijkstra pass from the goal produces an integration field: the cost
+ * of the shortest path from every tile to the goal, with the same moves and
+ * costs as {@link AStar}. Every tile is then given the direction of its
+ * neighbour closest to the goal, so agents find their next move with a lookup
+ * rather than a search of their own. Rebuilds take a snapshot of the
+ * walkable tiles, which windows are searched against as well, and on large
+ * levels the directions are derived by several threads, each handling a band
+ * of rows.
+ * <p>
+ * When the goal moves by at most {@code maxDrift} tiles from the goal the
+ * field was built for, only a window around the new goal is recomputed:
+ * agents outside it follow the field towards the old goal, which lies inside
+ * the window, and are then led to the new goal. The field is rebuilt once the
+ * goal drifts further, or when the old goal cannot reach the new one within
+ * the window.
+ * <p>
+ * Registered as a {@link TileListener} of the level, the field is rebuilt by
+ * the next {@link #setGoal(int, int)} after tiles changed.
+ */
+public class FlowField implements TileListener
+{
+    /**
+     * Default distance, in tiles, the goal can move before the field is rebuilt
+     */
+    public static final int DEFAULT_MAX_DRIFT = 8;
+
+    private static final int PARALLEL_CELLS = 1 << 16; //Number of tiles from which directions are derived in parallel
+    private static final int BAND_ROWS = 64; //Rows of each band derived by one thread
+
+    private TiledLevel level; //The level associated with this field
+    private AStar aStar; //Search supplying the moves
+    private int maxDrift = DEFAULT_MAX_DRIFT; //Distance the goal can move before the field is rebuilt
+    private boolean stale; //Weather or not tiles changed since the field was rebuilt
+    private int goalX = -1, goalY = -1; //The current goal
+
+    private int baseX = -1, baseY = -1; //The goal the whole field was built for
+    private float[] costs; //Cost from every tile to the base goal
+    private byte[] directions; //Direction of every tile towards the base goal, or -1
+
+    private boolean windowed; //Weather or not the window around the current goal is in use
+    private int windowX, windowY, windowWidth, windowHeight; //Bounds of the window
+    private float[] windowCosts = new float[0]; //Cost from every tile of the window to the current goal
+    private byte[] windowDirections = new byte[0]; //Direction of every tile of the window towards the current goal, or -1
+
+    public FlowField(TiledLevel level)
+    {
+        this.level = level;
+        aStar = new AStar(level);
+    }
+
+    /**
+     * Moves the goal, recomputing only the window around it when it moved by
+     * at most {@code maxDrift} tiles since the field was last rebuilt. A goal
+     * outside the level cannot be reached from any tile, and always rebuilds
+     * the field.
+     *
+     * @param x x-coordinate of the goal.
+     * @param y y-coordinate of the goal.
+     */
+    public void setGoal(int x, int y)
+    {
+        if (x == goalX && y == goalY && costs != null && !stale) return;
+
+        goalX = x;
+        goalY = y;
+        if (costs == null || stale || costs.length != level.getWidth() * level.getHeight()
+                || !aStar.isInside(x, y) || !aStar.isInside(baseX, baseY)
+                || Math.max(Math.abs(x - baseX), Math.abs(y - baseY)) > maxDrift)
+        {
+            rebuild();
+            return;
+        }
+
+        windowed = false;
+        if (x != baseX || y != baseY)
+        {
+            buildWindow();
+            if (!windowed) rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the whole field towards the current goal, e.g. after tiles changed solidity.
+     */
+    public void rebuild()
+    {
+        int width = level.getWidth(), height = level.getHeight();
+        int cells = width * height;
+        if (costs == null || costs.length != cells)
+        {
+            costs = new float[cells];
+            directions = new byte[cells];
+        }
+
+        baseX = goalX;
+        baseY = goalY;
+        windowed = false;
+        stale = false;
+        aStar.walkable = AStar.takeSnapshot(level); //Kept, so windows are computed against the same tiles as the field
+        integrate(0, 0, width, height, costs);
+        derive(0, 0, width, height, costs, directions, cells >= PARALLEL_CELLS);
+    }
+
+    /**
+     * Recomputes the window around the current goal, which must lie within
+     * {@code maxDrift} tiles of the base goal, against the snapshot taken by
+     * the last rebuild. The window is only used if it holds the base goal
+     * and the base goal can reach the current one within it.
+     */
+    private void buildWindow()
+    {
+        int radius = maxDrift * 2;
+        windowX = Math.max(0, goalX - radius);
+        windowY = Math.max(0, goalY - radius);
+        windowWidth = Math.min(level.getWidth(), goalX + radius + 1) - windowX;
+        windowHeight = Math.min(level.getHeight(), goalY + radius + 1) - windowY;
+
+        if (baseX < windowX || baseY < windowY || baseX >= windowX + windowWidth || baseY >= windowY + windowHeight) return;
+
+        int cells = windowWidth * windowHeight;
+        if (windowCosts.length < cells)
+        {
+            windowCosts = new float[cells];
+            windowDirections = new byte[cells];
+        }
+
+        integrate(windowX, windowY, windowWidth, windowHeight, windowCosts);
+        if (windowCosts[(baseX - windowX) + (baseY - windowY) * windowWidth] == Float.POSITIVE_INFINITY) return;
+
+        derive(windowX, windowY, windowWidth, windowHeight, windowCosts, windowDirections, false);
+        windowed = true;
+    }
+
+    /**
+     * Computes the cost from every tile of an area to the current goal, moving
+     * only within the area.
+     *
+     * @param originX x-coordinate of the area.
+     * @param originY y-coordinate of the area.
+     * @param width   Width of the area.
+     * @param height  Height of the area.
+     * @param field   The costs, indexed by tile of the area.
+     */
+    private void integrate(int originX, int originY, int width, int height, float[] field)
+    {
+        Arrays.fill(field, 0, width * height, Float.POSITIVE_INFINITY);
+        if (!aStar.isWalkable(goalX, goalY)) return;
+
+        SearchContext context = SearchContext.get();
+        context.prepare(width * height);
+        context.open((goalX - originX) + (goalY - originY) * width, 0, 0, -1);
+
+        while (!context.isEmpty())
+        {
+            int cell = context.pop();
+            double g = context.getG(cell);
+            field[cell] = (float) g;
+
+            int x = originX + cell % width, y = originY + cell / width;
+            for (int direction = 0; direction < AStar.X_DIRECTIONS.length; direction++)
+            {
+                int dx = AStar.X_DIRECTIONS[direction], dy = AStar.Y_DIRECTIONS[direction];
+                int nx = x + dx, ny = y + dy;
+                if (nx < originX || ny < originY || nx >= originX + width || ny >= originY + height) continue;
+
+                int neighbour = (nx - originX) + (ny - originY) * width;
+                if (context.isClosed(neighbour) || !aStar.isWalkable(nx, ny) || !aStar.canMove(nx, ny, -dx, -dy)) continue;
+
+                double cost = g + (dx != 0 && dy != 0 ? AStar.DIAGONAL_COST : 1);
+                context.open(neighbour, cost, cost, cell);
+            }
+        }
+    }
+
+    /**
+     * Gives every tile of an area the direction of its neighbour with the
+     * lowest cost to the goal, counting the move to it.
+     *
+     * @param originX  x-coordinate of the area.
+     * @param originY  y-coordinate of the area.
+     * @param width    Width of the area.
+     * @param height   Height of the area.
+     * @param field    The costs, indexed by tile of the area.
+     * @param result   The directions, indexed by tile of the area.
+     * @param parallel Weather or not bands of rows are derived by several threads.
+     */
+    private void derive(int originX, int originY, int width, int height, float[] field, byte[] result, boolean parallel)
+    {
+        int bands = (height + BAND_ROWS - 1) / BAND_ROWS;
+        IntStream stream = IntStream.range(0, bands);
+        if (parallel) stream = stream.parallel();
+
+        stream.forEach(band ->
+        {
+            int end = Math.min(height, (band + 1) * BAND_ROWS);
+            for (int y = band * BAND_ROWS; y < end; y++)
+            {
+                for (int x = 0; x < width; x++)
+                {
+                    int cell = x + y * width;
+                    byte best = -1;
+                    float bestCost = Float.POSITIVE_INFINITY;
+                    if (field[cell] != Float.POSITIVE_INFINITY && field[cell] > 0)
+                    {
+                        for (int direction = 0; direction < AStar.X_DIRECTIONS.length; direction++)
+                        {
+                            int dx = AStar.X_DIRECTIONS[direction], dy = AStar.Y_DIRECTIONS[direction];
+                            int nx = x + dx, ny = y + dy;
+                            if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+
+                            float cost = field[nx + ny * width] + (dx != 0 && dy != 0 ? (float) AStar.DIAGONAL_COST : 1);
+                            if (cost < bestCost && aStar.canMove(originX + x, originY + y, dx, dy))
+                            {
+                                best = (byte) direction;
+                                bestCost = cost;
+                            }
+                        }
+                    }
+                    result[cell] = best;
+                }
+            }
+        });
+    }
+
+    @Override
+    public void tileChanged(TiledLevel level, int x, int y)
+    {
+        stale = true;
+    }
+
+    @Override
+    public void tilesChanged(TiledLevel level)
+    {
+        stale = true;
+    }
+
+    /**
+     * Supplies the direction an agent on a tile should move in to reach the goal.
+     *
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     * @return Index of the direction, or -1 on the goal or if the goal cannot be reached.
+     */
+    public int getDirection(int x, int y)
+    {
+        if (costs == null || !aStar.isInside(x, y)) return -1;
+
+        if (windowed && isInWindow(x, y))
+        {
+            int cell = (x - windowX) + (y - windowY) * windowWidth;
+            if (windowCosts[cell] != Float.POSITIVE_INFINITY) return windowDirections[cell];
+        }
+
+        return directions[x + y * level.getWidth()];
+    }
+
+    /**
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     * @return The x-change of the next move from a tile towards the goal (-1, 0 or 1).
+     */
+    public int getDirectionX(int x, int y)
+    {
+        int direction = getDirection(x, y);
+        return direction < 0 ? 0 : AStar.X_DIRECTIONS[direction];
+    }
+
+    /**
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     * @return The y-change of the next move from a tile towards the goal (-1, 0 or 1).
+     */
+    public int getDirectionY(int x, int y)
+    {
+        int direction = getDirection(x, y);
+        return direction < 0 ? 0 : AStar.Y_DIRECTIONS[direction];
+    }
+
+    /**
+     * Supplies the cost of the path the field leads an agent along, from a
+     * tile to the goal. While the window around a moved goal is in use, tiles
+     * outside it get the cost through the base goal, which is an upper bound.
+     *
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     * @return The cost, or infinity if the goal cannot be reached.
+     */
+    public double getCost(int x, int y)
+    {
+        if (costs == null || !aStar.isInside(x, y)) return Double.POSITIVE_INFINITY;
+
+        if (windowed)
+        {
+            if (isInWindow(x, y))
+            {
+                float cost = windowCosts[(x - windowX) + (y - windowY) * windowWidth];
+                if (cost != Float.POSITIVE_INFINITY) return cost;
+            }
+            return costs[x + y * level.getWidth()] + windowCosts[(baseX - windowX) + (baseY - windowY) * windowWidth];
+        }
+
+        return costs[x + y * level.getWidth()];
+    }
+
+    /**
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     * @return Weather or not the goal can be reached from a tile.
+     */
+    public boolean isReachable(int x, int y)
+    {
+        return getCost(x, y) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return Weather or not a tile lies within the window around the current goal.
+     */
+    private boolean isInWindow(int x, int y)
+    {
+        return x >= windowX && y >= windowY && x < windowX + windowWidth && y < windowY + windowHeight;
+    }
+
+    /**
+     * Sets the distance the goal can move before the field is rebuilt. Larger
+     * values recompute larger windows.
+     *
+     * @param maxDrift Distance in tiles, 0 to rebuild whenever the goal moves.
+     */
+    public void setMaxDrift(int maxDrift)
+    {
+        this.maxDrift = Math.max(0, maxDrift);
+    }
+
+    /**
+     * @return The distance the goal can move before the field is rebuilt, in tiles.
+     */
+    public int getMaxDrift()
+    {
+        return maxDrift;
+    }
+
+    /**
+     * Sets whether diagonal moves may pass the corner of a solid tile. Takes
+     * effect when the field is next rebuilt.
+     *
+     * @param cornerCutting Corner cutting flag.
+     */
+    public void setCornerCutting(boolean cornerCutting)
+    {
+        aStar.setCornerCutting(cornerCutting);
+    }
+
+    /**
+     * @return Weather or not diagonal moves may pass the corner of a solid tile.
+     */
+    public boolean isCornerCutting()
+    {
+        return aStar.isCornerCutting();
+    }
+
+    /**
+     * @return The current goal.
+     */
+    public Vector2i getGoal()
+    {
+        return new Vector2i(goalX, goalY);
+    }
+
+    /**
+     * @return The tiled-level the field covers.
+     */
+    public TiledLevel getLevel()
+    {
+        return level;
+    }
+}
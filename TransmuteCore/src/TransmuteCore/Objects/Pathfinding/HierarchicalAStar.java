@@ -0,0 +1,731 @@
+package TransmuteCore.Objects.Pathfinding;
+
+import TransmuteCore.Level.TileListener;
+import TransmuteCore.Level.TiledLevel;
+import TransmuteCore.Units.Vector2i;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@code HierarchicalAStar} finds long paths over a {@link TiledLevel} using
+ * hierarchical path-finding (HPA*).
+ * <br>
+ * The level is partitioned into square clusters. Wherever two neighbouring
+ * clusters share a run of walkable tiles along their border, an entrance is
+ * placed in it, made of a node on each side. Nodes of the same cluster are
+ * linked by the cost of the shortest path between them within the cluster,
+ * which is precomputed. A search only links the start and goal to the nodes
+ * of their clusters and runs A* over this abstract graph, producing a
+ * {@link HierarchicalPath} of waypoints which is refined into tiles one
+ * segment at a time, as it is followed.
+ * <p>
+ * Paths are near-optimal, typically within ten percent of the optimal cost
+ * on long paths, the detours being taken through entrances. When a tile changes
+ * solidity, {@link #invalidate(int, int)} marks its cluster for rebuilding,
+ * and only that cluster and the nodes and links of its neighbours are
+ * recomputed by the next {@link #update()}. Registered as a {@link TileListener}
+ * of the level, the search invalidates the tiles it is notified of itself.
+ * <p>
+ * Searches keep their working state per thread, so several threads can search
+ * at once. Searches and lazy refinements apply pending invalidations first,
+ * through {@link #update()}, which is synchronized: the first of them to run
+ * rebuilds the graph while the others wait for it. Invalidations must not
+ * overlap searches.
+ */
+public class HierarchicalAStar implements TileListener
+{
+    /**
+     * Default width and height of a cluster, in tiles
+     */
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    private static final int LARGE_ENTRANCE = 6; //Length from which an entrance gets a node at each end rather than one in the middle
+    private static final double UNREACHABLE = Double.POSITIVE_INFINITY;
+    private static final ThreadLocal<SearchContext> LOCAL = ThreadLocal.withInitial(SearchContext::new);
+
+    private TiledLevel level; //The level associated with this search
+    private AStar aStar; //Search supplying the moves and refining the paths within a cluster
+    private int clusterSize; //Width and height of a cluster, in tiles
+    private int clustersX, clustersY; //Number of clusters along each axis
+
+    private int[][] clusterNodes; //Nodes of each cluster
+    private int[] clusterNodeCounts; //Number of nodes of each cluster
+    private boolean[] dirty; //Weather or not each cluster must be rebuilt
+    private int[] dirtyClusters; //Clusters which must be rebuilt
+    private int dirtyCount; //Number of clusters which must be rebuilt
+
+    private int[] nodeCells = new int[0]; //Cell of each node
+    private int[] nodeClusters = new int[0]; //Cluster of each node, or -1 if the node is free
+    private int[][] edgeTargets = new int[0][]; //Nodes linked from each node
+    private double[][] edgeCosts = new double[0][]; //Cost of each link
+    private int[] edgeCounts = new int[0]; //Number of links of each node
+    private int nodeLimit; //Number of node identifiers in use, free or not
+    private int[] freeNodes = new int[0]; //Released node identifiers
+    private int freeCount; //Number of released node identifiers
+    private int nodeCount; //Number of nodes
+
+    private int[] affected = new int[0]; //Update in which each cluster was last affected
+    private int updateStamp; //Current update
+
+    /**
+     * Builds the abstract graph of a level using the default cluster size.
+     *
+     * @param level The level to search.
+     */
+    public HierarchicalAStar(TiledLevel level)
+    {
+        this(level, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Builds the abstract graph of a level.
+     *
+     * @param level       The level to search.
+     * @param clusterSize Width and height of a cluster, in tiles.
+     */
+    public HierarchicalAStar(TiledLevel level, int clusterSize)
+    {
+        this.level = level;
+        this.clusterSize = Math.max(2, clusterSize);
+        aStar = new AStar(level);
+
+        build();
+    }
+
+    /**
+     * Rebuilds the whole abstract graph from the level.
+     */
+    public void build()
+    {
+        clustersX = (level.getWidth() + clusterSize - 1) / clusterSize;
+        clustersY = (level.getHeight() + clusterSize - 1) / clusterSize;
+        int clusters = clustersX * clustersY;
+
+        clusterNodes = new int[clusters][4];
+        clusterNodeCounts = new int[clusters];
+        dirty = new boolean[clusters];
+        dirtyClusters = new int[clusters];
+        dirtyCount = 0;
+        affected = new int[clusters];
+        updateStamp = 0;
+
+        nodeLimit = 0;
+        freeCount = 0;
+        nodeCount = 0;
+
+        for (int cluster = 0; cluster < clusters; cluster++) connectBorders(cluster, false);
+        for (int cluster = 0; cluster < clusters; cluster++) connectCluster(cluster);
+    }
+
+    /**
+     * Marks the cluster of a tile for rebuilding, e.g. after the tile changed solidity.
+     *
+     * @param x x-coordinate of the tile.
+     * @param y y-coordinate of the tile.
+     */
+    public void invalidate(int x, int y)
+    {
+        if (!aStar.isInside(x, y)) return;
+
+        int cluster = x / clusterSize + (y / clusterSize) * clustersX;
+        if (dirty[cluster]) return;
+
+        dirty[cluster] = true;
+        dirtyClusters[dirtyCount++] = cluster;
+    }
+
+    @Override
+    public void tileChanged(TiledLevel level, int x, int y)
+    {
+        invalidate(x, y);
+    }
+
+    @Override
+    public void tilesChanged(TiledLevel level)
+    {
+        for (int cluster = 0; cluster < dirty.length; cluster++)
+        {
+            if (dirty[cluster]) continue;
+
+            dirty[cluster] = true;
+            dirtyClusters[dirtyCount++] = cluster;
+        }
+    }
+
+    /**
+     * Rebuilds the clusters marked by {@link #invalidate(int, int)}: their
+     * entrances, and the links of their nodes and of the nodes of their neighbours.
+     */
+    public synchronized void update()
+    {
+        if (dirtyCount == 0) return;
+
+        if (++updateStamp == 0)
+        {
+            Arrays.fill(affected, 0);
+            updateStamp = 1;
+        }
+
+        for (int i = 0; i < dirtyCount; i++)
+        {
+            int cluster = dirtyClusters[i];
+            markAffected(cluster);
+            int cx = cluster % clustersX, cy = cluster / clustersX;
+            if (cx > 0) markAffected(cluster - 1);
+            if (cx + 1 < clustersX) markAffected(cluster + 1);
+            if (cy > 0) markAffected(cluster - clustersX);
+            if (cy + 1 < clustersY) markAffected(cluster + clustersX);
+        }
+
+        for (int i = 0; i < dirtyCount; i++) releaseCluster(dirtyClusters[i]);
+        for (int i = 0; i < dirtyCount; i++) connectBorders(dirtyClusters[i], true);
+        for (int cluster = 0; cluster < affected.length; cluster++)
+        {
+            if (affected[cluster] == updateStamp) connectCluster(cluster);
+        }
+
+        for (int i = 0; i < dirtyCount; i++) dirty[dirtyClusters[i]] = false;
+        dirtyCount = 0;
+    }
+
+    /**
+     * Calculates a near-optimal path given a starting point and a destination,
+     * refining it completely.
+     *
+     * @param start The starting location.
+     * @param goal  The destination.
+     * @return The path from a starting point to a given destination, from the
+     * destination back to the location after the start, or an empty list if
+     * the destination cannot be reached.
+     */
+    public List<Node> findPath(Vector2i start, Vector2i goal)
+    {
+        return findHierarchicalPath(start, goal).getNodes();
+    }
+
+    /**
+     * Calculates the waypoints of a near-optimal path given a starting point
+     * and a destination; the tiles between them are only found when the
+     * segments of the returned path are requested.
+     *
+     * @param start The starting location.
+     * @param goal  The destination.
+     * @return The path, which is empty if the destination cannot be reached.
+     */
+    public HierarchicalPath findHierarchicalPath(Vector2i start, Vector2i goal)
+    {
+        update();
+
+        int width = level.getWidth();
+        SearchContext context = SearchContext.get();
+        if (!aStar.isInside(start.x, start.y) || !aStar.isWalkable(goal.x, goal.y) || start.equals(goal))
+        {
+            context.prepare(0);
+            return new HierarchicalPath(this, new int[0], 0);
+        }
+
+        int startCell = start.x + start.y * width, goalCell = goal.x + goal.y * width;
+        int startCluster = clusterOf(startCell), goalCluster = clusterOf(goalCell);
+
+        SearchContext local = LOCAL.get();
+        search(local, startCluster, startCell, -1);
+        double[] startCosts = getCosts(local, startCluster);
+        double direct = startCluster == goalCluster ? getCost(local, startCluster, goalCell) : UNREACHABLE;
+        search(local, goalCluster, goalCell, -1);
+        double[] goalCosts = getCosts(local, goalCluster);
+
+        int startNode = nodeLimit, goalNode = nodeLimit + 1;
+        context.prepare(nodeLimit + 2);
+        context.open(startNode, 0, AStar.getHeuristic(start.x, start.y, goal.x, goal.y), -1);
+
+        while (!context.isEmpty())
+        {
+            int node = context.pop();
+            if (node == goalNode) break;
+
+            double g = context.getG(node);
+            if (node == startNode)
+            {
+                for (int i = 0; i < clusterNodeCounts[startCluster]; i++)
+                    open(context, clusterNodes[startCluster][i], g + startCosts[i], node, goalCell);
+                if (direct != UNREACHABLE) context.open(goalNode, g + direct, g + direct, node);
+                continue;
+            }
+
+            for (int i = 0; i < edgeCounts[node]; i++) open(context, edgeTargets[node][i], g + edgeCosts[node][i], node, goalCell);
+            if (nodeClusters[node] == goalCluster)
+            {
+                double cost = goalCosts[indexOf(goalCluster, node)];
+                if (cost != UNREACHABLE) context.open(goalNode, g + cost, g + cost, node);
+            }
+        }
+
+        if (!context.isClosed(goalNode)) return new HierarchicalPath(this, new int[0], 0);
+
+        int length = 0;
+        for (int node = goalNode; node >= 0; node = context.getParent(node)) length++;
+
+        int[] waypoints = new int[length];
+        for (int node = goalNode, i = length - 1; node >= 0; node = context.getParent(node), i--)
+            waypoints[i] = node == startNode ? startCell : node == goalNode ? goalCell : nodeCells[node];
+
+        return new HierarchicalPath(this, waypoints, context.getG(goalNode));
+    }
+
+    /**
+     * Finds the tiles between two consecutive waypoints of a path, which are
+     * either in the same cluster or on both sides of an entrance.
+     *
+     * @param from Cell of the first waypoint.
+     * @param to   Cell of the second waypoint.
+     * @return The cells from the first waypoint to the second, or null if the
+     * second one is no longer reachable from the first.
+     */
+    int[] refine(int from, int to)
+    {
+        update();
+
+        int cluster = clusterOf(from);
+        if (cluster != clusterOf(to))
+        {
+            int width = level.getWidth();
+            int x = from % width, y = from / width;
+            return aStar.canMove(x, y, to % width - x, to / width - y) ? new int[]{from, to} : null;
+        }
+
+        SearchContext local = LOCAL.get();
+        search(local, cluster, from, to);
+
+        int target = toLocal(cluster, to);
+        if (!local.isClosed(target)) return null;
+
+        int length = 0;
+        for (int cell = target; cell >= 0; cell = local.getParent(cell)) length++;
+
+        int[] cells = new int[length];
+        for (int cell = target, i = length - 1; cell >= 0; cell = local.getParent(cell), i--) cells[i] = toGlobal(cluster, cell);
+
+        return cells;
+    }
+
+    /**
+     * Searches the tiles of a cluster from a given cell: towards a goal cell
+     * using A*, or, without a goal, every reachable tile using Dijkstra's algorithm.
+     *
+     * @param context  The context to search with, indexed by local cell.
+     * @param cluster  The cluster to search.
+     * @param start    The cell to start from.
+     * @param goal     The cell to reach, or -1 to reach every tile.
+     */
+    private void search(SearchContext context, int cluster, int start, int goal)
+    {
+        int width = level.getWidth();
+        int originX = (cluster % clustersX) * clusterSize, originY = (cluster / clustersX) * clusterSize;
+        int clusterWidth = Math.min(clusterSize, width - originX);
+        int clusterHeight = Math.min(clusterSize, level.getHeight() - originY);
+        int goalX = goal % width, goalY = goal / width;
+        int target = goal < 0 ? -1 : toLocal(cluster, goal);
+
+        context.prepare(clusterWidth * clusterHeight);
+        context.open(toLocal(cluster, start), 0, goal < 0 ? 0 : AStar.getHeuristic(start % width, start / width, goalX, goalY), -1);
+
+        while (!context.isEmpty())
+        {
+            int cell = context.pop();
+            if (cell == target) return;
+
+            int x = cell % clusterWidth, y = cell / clusterWidth;
+            double g = context.getG(cell);
+            for (int direction = 0; direction < AStar.X_DIRECTIONS.length; direction++)
+            {
+                int dx = AStar.X_DIRECTIONS[direction], dy = AStar.Y_DIRECTIONS[direction];
+                int nx = x + dx, ny = y + dy;
+                int neighbour = nx + ny * clusterWidth;
+                if (nx < 0 || ny < 0 || nx >= clusterWidth || ny >= clusterHeight || context.isClosed(neighbour)) continue;
+                if (!aStar.canMove(originX + x, originY + y, dx, dy)) continue;
+
+                double cost = g + (dx != 0 && dy != 0 ? AStar.DIAGONAL_COST : 1);
+                double h = goal < 0 ? 0 : AStar.getHeuristic(originX + nx, originY + ny, goalX, goalY);
+                context.open(neighbour, cost, cost + h, cell);
+            }
+        }
+    }
+
+    /**
+     * Opens a node of the abstract graph.
+     */
+    private void open(SearchContext context, int node, double g, int parent, int goalCell)
+    {
+        if (g == UNREACHABLE || context.isClosed(node)) return;
+
+        int width = level.getWidth();
+        int cell = nodeCells[node];
+        context.open(node, g, g + AStar.getHeuristic(cell % width, cell / width, goalCell % width, goalCell / width), parent);
+    }
+
+    /**
+     * Supplies the costs found by a search of a cluster to each of its nodes.
+     */
+    private double[] getCosts(SearchContext context, int cluster)
+    {
+        double[] costs = new double[clusterNodeCounts[cluster]];
+        for (int i = 0; i < costs.length; i++) costs[i] = getCost(context, cluster, nodeCells[clusterNodes[cluster][i]]);
+
+        return costs;
+    }
+
+    /**
+     * Supplies the cost found by a search of a cluster to one of its cells.
+     */
+    private double getCost(SearchContext context, int cluster, int cell)
+    {
+        int local = toLocal(cluster, cell);
+        return context.isClosed(local) ? context.getG(local) : UNREACHABLE;
+    }
+
+    /**
+     * Places the entrances along the borders of a cluster: with its right and
+     * bottom neighbours, and also its left and top ones if requested.
+     */
+    private void connectBorders(int cluster, boolean allSides)
+    {
+        int width = level.getWidth(), height = level.getHeight();
+        int cx = cluster % clustersX, cy = cluster / clustersX;
+        int originX = cx * clusterSize, originY = cy * clusterSize;
+        int clusterWidth = Math.min(clusterSize, width - originX);
+        int clusterHeight = Math.min(clusterSize, height - originY);
+
+        if (cx + 1 < clustersX)
+            connectBorder(cluster, cluster + 1, originX + clusterWidth - 1, originY, 0, 1, 1, 0, clusterHeight);
+        if (cy + 1 < clustersY)
+            connectBorder(cluster, cluster + clustersX, originX, originY + clusterHeight - 1, 1, 0, 0, 1, clusterWidth);
+        if (allSides && cx > 0)
+            connectBorder(cluster - 1, cluster, originX - 1, originY, 0, 1, 1, 0, clusterHeight);
+        if (allSides && cy > 0)
+            connectBorder(cluster - clustersX, cluster, originX, originY - 1, 1, 0, 0, 1, clusterWidth);
+    }
+
+    /**
+     * Places the entrances along the border between two clusters, walking the
+     * tiles on the side of the first one.
+     *
+     * @param first   The cluster on the left or top side.
+     * @param second  The cluster on the right or bottom side.
+     * @param x       x-coordinate of the first tile of the border, in the first cluster.
+     * @param y       y-coordinate of the first tile of the border, in the first cluster.
+     * @param stepX   x-change from one tile of the border to the next.
+     * @param stepY   y-change from one tile of the border to the next.
+     * @param crossX  x-change from a tile to the facing tile of the second cluster.
+     * @param crossY  y-change from a tile to the facing tile of the second cluster.
+     * @param length  Number of tiles along the border.
+     */
+    private void connectBorder(int first, int second, int x, int y, int stepX, int stepY, int crossX, int crossY, int length)
+    {
+        int width = level.getWidth();
+        int runStart = -1;
+        for (int i = 0; i <= length; i++)
+        {
+            int tx = x + i * stepX, ty = y + i * stepY;
+            boolean open = i < length && aStar.isWalkable(tx, ty) && aStar.isWalkable(tx + crossX, ty + crossY);
+            if (open)
+            {
+                if (runStart < 0) runStart = i;
+                continue;
+            }
+            if (runStart < 0) continue;
+
+            int run = i - runStart;
+            int[] positions = run < LARGE_ENTRANCE ? new int[]{runStart + run / 2} : new int[]{runStart, i - 1};
+            for (int position : positions)
+            {
+                int cell = x + position * stepX + (y + position * stepY) * width;
+                int facing = cell + crossX + crossY * width;
+                int a = nodeAt(first, cell), b = nodeAt(second, facing);
+                link(a, b, 1);
+                link(b, a, 1);
+            }
+            runStart = -1;
+        }
+    }
+
+    /**
+     * Links every pair of nodes of a cluster by the cost of the shortest path
+     * between them within the cluster.
+     */
+    private void connectCluster(int cluster)
+    {
+        int count = clusterNodeCounts[cluster];
+        int[] nodes = clusterNodes[cluster];
+        SearchContext local = LOCAL.get();
+
+        for (int i = 0; i < count - 1; i++)
+        {
+            search(local, cluster, nodeCells[nodes[i]], -1);
+            for (int j = i + 1; j < count; j++)
+            {
+                double cost = getCost(local, cluster, nodeCells[nodes[j]]);
+                if (cost == UNREACHABLE) continue;
+
+                link(nodes[i], nodes[j], cost);
+                link(nodes[j], nodes[i], cost);
+            }
+        }
+    }
+
+    /**
+     * Removes the links between the nodes of an affected cluster, to be recomputed.
+     */
+    private void markAffected(int cluster)
+    {
+        if (affected[cluster] == updateStamp) return;
+        affected[cluster] = updateStamp;
+
+        for (int i = 0; i < clusterNodeCounts[cluster]; i++)
+        {
+            int node = clusterNodes[cluster][i];
+            for (int e = edgeCounts[node] - 1; e >= 0; e--)
+            {
+                if (nodeClusters[edgeTargets[node][e]] == cluster) unlink(node, e);
+            }
+        }
+    }
+
+    /**
+     * Removes the nodes of a cluster being rebuilt, along with the nodes of its
+     * neighbours which are left without an entrance.
+     */
+    private void releaseCluster(int cluster)
+    {
+        for (int i = 0; i < clusterNodeCounts[cluster]; i++)
+        {
+            int node = clusterNodes[cluster][i];
+            for (int e = 0; e < edgeCounts[node]; e++)
+            {
+                int other = edgeTargets[node][e];
+                int back = indexOfLink(other, node);
+                if (back >= 0) unlink(other, back);
+            }
+            release(node);
+        }
+        clusterNodeCounts[cluster] = 0;
+
+        int cx = cluster % clustersX, cy = cluster / clustersX;
+        if (cx > 0) releaseUnlinked(cluster - 1);
+        if (cx + 1 < clustersX) releaseUnlinked(cluster + 1);
+        if (cy > 0) releaseUnlinked(cluster - clustersX);
+        if (cy + 1 < clustersY) releaseUnlinked(cluster + clustersX);
+    }
+
+    /**
+     * Removes the nodes of a cluster which have no link left.
+     */
+    private void releaseUnlinked(int cluster)
+    {
+        int[] nodes = clusterNodes[cluster];
+        int count = 0;
+        for (int i = 0; i < clusterNodeCounts[cluster]; i++)
+        {
+            if (edgeCounts[nodes[i]] == 0) release(nodes[i]);
+            else nodes[count++] = nodes[i];
+        }
+        clusterNodeCounts[cluster] = count;
+    }
+
+    /**
+     * Supplies the node of a cluster at a given cell, creating it if needed.
+     */
+    private int nodeAt(int cluster, int cell)
+    {
+        int[] nodes = clusterNodes[cluster];
+        for (int i = 0; i < clusterNodeCounts[cluster]; i++)
+        {
+            if (nodeCells[nodes[i]] == cell) return nodes[i];
+        }
+
+        int node;
+        if (freeCount > 0) node = freeNodes[--freeCount];
+        else
+        {
+            if (nodeLimit == nodeCells.length)
+            {
+                int capacity = Math.max(64, nodeLimit * 2);
+                nodeCells = Arrays.copyOf(nodeCells, capacity);
+                nodeClusters = Arrays.copyOf(nodeClusters, capacity);
+                edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+                edgeCosts = Arrays.copyOf(edgeCosts, capacity);
+                edgeCounts = Arrays.copyOf(edgeCounts, capacity);
+            }
+            node = nodeLimit++;
+            edgeTargets[node] = new int[4];
+            edgeCosts[node] = new double[4];
+        }
+
+        nodeCells[node] = cell;
+        nodeClusters[node] = cluster;
+        edgeCounts[node] = 0;
+        nodeCount++;
+
+        if (clusterNodeCounts[cluster] == nodes.length) clusterNodes[cluster] = nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        nodes[clusterNodeCounts[cluster]++] = node;
+
+        return node;
+    }
+
+    /**
+     * Frees a node identifier. The node must already be out of its cluster's list.
+     */
+    private void release(int node)
+    {
+        if (freeCount == freeNodes.length) freeNodes = Arrays.copyOf(freeNodes, Math.max(64, freeCount * 2));
+        freeNodes[freeCount++] = node;
+        nodeClusters[node] = -1;
+        edgeCounts[node] = 0;
+        nodeCount--;
+    }
+
+    /**
+     * Links a node to another, updating the cost if they are already linked.
+     */
+    private void link(int from, int to, double cost)
+    {
+        int index = indexOfLink(from, to);
+        if (index >= 0)
+        {
+            edgeCosts[from][index] = cost;
+            return;
+        }
+
+        int count = edgeCounts[from];
+        if (count == edgeTargets[from].length)
+        {
+            edgeTargets[from] = Arrays.copyOf(edgeTargets[from], count * 2);
+            edgeCosts[from] = Arrays.copyOf(edgeCosts[from], count * 2);
+        }
+        edgeTargets[from][count] = to;
+        edgeCosts[from][count] = cost;
+        edgeCounts[from] = count + 1;
+    }
+
+    /**
+     * Removes a link of a node, given its index.
+     */
+    private void unlink(int node, int index)
+    {
+        int last = --edgeCounts[node];
+        edgeTargets[node][index] = edgeTargets[node][last];
+        edgeCosts[node][index] = edgeCosts[node][last];
+    }
+
+    /**
+     * Supplies the index of the link from a node to another, or -1.
+     */
+    private int indexOfLink(int from, int to)
+    {
+        for (int i = 0; i < edgeCounts[from]; i++)
+        {
+            if (edgeTargets[from][i] == to) return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Supplies the position of a node in its cluster's list.
+     */
+    private int indexOf(int cluster, int node)
+    {
+        for (int i = 0; i < clusterNodeCounts[cluster]; i++)
+        {
+            if (clusterNodes[cluster][i] == node) return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Supplies the cluster holding a cell.
+     */
+    private int clusterOf(int cell)
+    {
+        int width = level.getWidth();
+        return (cell % width) / clusterSize + ((cell / width) / clusterSize) * clustersX;
+    }
+
+    /**
+     * Converts a cell of the level to a cell of the given cluster.
+     */
+    private int toLocal(int cluster, int cell)
+    {
+        int width = level.getWidth();
+        int originX = (cluster % clustersX) * clusterSize, originY = (cluster / clustersX) * clusterSize;
+        int clusterWidth = Math.min(clusterSize, width - originX);
+
+        return (cell % width - originX) + (cell / width - originY) * clusterWidth;
+    }
+
+    /**
+     * Converts a cell of the given cluster to a cell of the level.
+     */
+    private int toGlobal(int cluster, int cell)
+    {
+        int width = level.getWidth();
+        int originX = (cluster % clustersX) * clusterSize, originY = (cluster / clustersX) * clusterSize;
+        int clusterWidth = Math.min(clusterSize, width - originX);
+
+        return originX + cell % clusterWidth + (originY + cell / clusterWidth) * width;
+    }
+
+    /**
+     * Sets whether diagonal moves may pass the corner of a solid tile, rebuilding the abstract graph.
+     *
+     * @param cornerCutting Corner cutting flag.
+     */
+    public void setCornerCutting(boolean cornerCutting)
+    {
+        if (aStar.isCornerCutting() == cornerCutting) return;
+
+        aStar.setCornerCutting(cornerCutting);
+        build();
+    }
+
+    /**
+     * @return Weather or not diagonal moves may pass the corner of a solid tile.
+     */
+    public boolean isCornerCutting()
+    {
+        return aStar.isCornerCutting();
+    }
+
+    /**
+     * @return The number of abstract nodes expanded by the last search of the calling thread.
+     */
+    public int getExpandedCount()
+    {
+        return SearchContext.get().expanded;
+    }
+
+    /**
+     * @return The number of nodes of the abstract graph.
+     */
+    public int getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    /**
+     * @return Width and height of a cluster, in tiles.
+     */
+    public int getClusterSize()
+    {
+        return clusterSize;
+    }
+
+    /**
+     * @return The tiled-level being searched.
+     */
+    public TiledLevel getLevel()
+    {
+        return level;
+    }
+}
@@ -0,0 +1,167 @@
+package TransmuteCore.Objects.Pathfinding;
+
+import TransmuteCore.Units.Vector2i;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code HierarchicalPath} is a path found by {@link HierarchicalAStar}, made of
+ * waypoints: the start, the entrances it crosses between clusters, and the goal.
+ * <br>
+ * The tiles between two consecutive waypoints are only searched the first time
+ * their segment is requested, so a mob following the path pays for the part it
+ * actually walks. A segment whose tiles changed since the path was found may
+ * no longer be walkable, in which case it is empty and the path should be
+ * searched again.
+ */
+public class HierarchicalPath
+{
+    private HierarchicalAStar finder; //The search which found this path
+    private int[] waypoints; //Cells of the waypoints, from the start to the goal
+    private double cost; //Estimated cost of the path
+    private int[][] segments; //Refined cells of each segment, or null if not refined yet
+    private boolean[] refined; //Weather or not each segment was refined
+
+    /**
+     * Defines a path given its waypoints.
+     *
+     * @param finder    The search which found the path.
+     * @param waypoints The cells of the waypoints, from the start to the goal.
+     * @param cost      The estimated cost of the path.
+     */
+    HierarchicalPath(HierarchicalAStar finder, int[] waypoints, double cost)
+    {
+        this.finder = finder;
+        this.waypoints = waypoints;
+        this.cost = cost;
+
+        int count = Math.max(0, waypoints.length - 1);
+        segments = new int[count][];
+        refined = new boolean[count];
+    }
+
+    /**
+     * Supplies the tiles between two consecutive waypoints.
+     *
+     * @param index Index of the segment, the first one starting at the start.
+     * @return The segment, from its last waypoint back to the location after
+     * its first waypoint, or an empty list if it is no longer walkable.
+     */
+    public List<Node> getSegment(int index)
+    {
+        int[] cells = refine(index);
+        return cells == null ? new ArrayList<>() : createPath(cells, cells.length);
+    }
+
+    /**
+     * Refines every segment into the complete path.
+     *
+     * @return The path from the destination back to the location after the
+     * start, or an empty list if it is empty or no longer walkable.
+     */
+    public List<Node> getNodes()
+    {
+        int length = waypoints.length > 0 ? 1 : 0;
+        for (int i = 0; i < segments.length; i++)
+        {
+            int[] cells = refine(i);
+            if (cells == null) return new ArrayList<>();
+
+            length += cells.length - 1;
+        }
+
+        int[] path = new int[length];
+        if (length > 0) path[0] = waypoints[0];
+        int position = 1;
+        for (int i = 0; i < segments.length; i++)
+        {
+            System.arraycopy(segments[i], 1, path, position, segments[i].length - 1);
+            position += segments[i].length - 1;
+        }
+
+        return createPath(path, length);
+    }
+
+    /**
+     * Supplies the refined cells of a segment, refining it if needed.
+     */
+    private int[] refine(int index)
+    {
+        if (!refined[index])
+        {
+            segments[index] = finder.refine(waypoints[index], waypoints[index + 1]);
+            refined[index] = true;
+        }
+
+        return segments[index];
+    }
+
+    /**
+     * Creates the Nodes of a path given its cells in order.
+     */
+    private List<Node> createPath(int[] cells, int length)
+    {
+        int width = finder.getLevel().getWidth();
+        double[] costs = new double[length];
+        for (int i = 1; i < length; i++)
+        {
+            boolean diagonal = cells[i] % width != cells[i - 1] % width && cells[i] / width != cells[i - 1] / width;
+            costs[i] = costs[i - 1] + (diagonal ? AStar.DIAGONAL_COST : 1);
+        }
+
+        return AStar.createPath(finder.getLevel(), cells, costs, length);
+    }
+
+    /**
+     * @param index Index of the segment.
+     * @return Weather or not the tiles of a segment were already searched.
+     */
+    public boolean isRefined(int index)
+    {
+        return refined[index];
+    }
+
+    /**
+     * @param index Index of the waypoint, the first one being the start.
+     * @return The location of a waypoint.
+     */
+    public Vector2i getWaypoint(int index)
+    {
+        int width = finder.getLevel().getWidth();
+        return new Vector2i(waypoints[index] % width, waypoints[index] / width);
+    }
+
+    /**
+     * @return The number of waypoints, including the start and goal.
+     */
+    public int getWaypointCount()
+    {
+        return waypoints.length;
+    }
+
+    /**
+     * @return The number of segments between consecutive waypoints.
+     */
+    public int getSegmentCount()
+    {
+        return segments.length;
+    }
+
+    /**
+     * @return The estimated cost of the path.
+     */
+    public double getCost()
+    {
+        return cost;
+    }
+
+    /**
+     * @return Weather or not the path is empty, i.e. the destination was not
+     * reached or is the start.
+     */
+    public boolean isEmpty()
+    {
+        return waypoints.length == 0;
+    }
+}
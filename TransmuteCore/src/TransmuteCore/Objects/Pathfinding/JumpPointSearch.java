@@ -0,0 +1,328 @@
+package TransmuteCore.Objects.Pathfinding;
+
+import TransmuteCore.Level.TileListener;
+import TransmuteCore.Level.TiledLevel;
+import TransmuteCore.Units.Vector2i;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jump Point Search (JPS) is a variant of A* for grids where every move has a
+ * uniform cost, which finds the same optimal paths while expanding far fewer
+ * tiles.
+ * <br>
+ * Rather than adding every neighbour of an expanded tile to the open set, the
+ * search scans in straight and diagonal lines, skipping tiles that an optimal
+ * path can reach just as well without passing through the current one, and
+ * only stops at jump points: tiles where a wall forces the path to turn, or
+ * the destination. Diagonal moves never cut corners; when corner cutting is
+ * enabled, the search falls back to plain A*.
+ * <p>
+ * For levels whose tiles do not change, {@link #precompute()} stores the
+ * distance to the next jump point or wall in every direction of every tile
+ * (JPS+), turning each scan into a table lookup. The table must be rebuilt
+ * or dropped with {@link #invalidate()} whenever a tile changes solidity;
+ * registered as a {@link TileListener} of the level, the search drops it itself.
+ */
+public class JumpPointSearch extends AStar implements TileListener
+{
+    private static final int[] DIRECTION_INDICES = {7, 1, 6, 3, -1, 2, 5, 0, 4}; //Direction of each (dx + 1) * 3 + (dy + 1)
+
+    private short[] jumps; //Per tile and direction: steps to the next jump point if positive, or to the wall if not
+
+    public JumpPointSearch(TiledLevel level)
+    {
+        super(level);
+    }
+
+    /**
+     * Calculates the fastest path given a starting point and a destination.
+     *
+     * @param start The starting location.
+     * @param goal  The destination.
+     * @return The fastest path from a starting point to a given destination,
+     * from the destination back to the location after the start, or an empty
+     * list if the destination cannot be reached.
+     */
+    @Override
+    public List<Node> findPath(Vector2i start, Vector2i goal)
+    {
+        if (isCornerCutting()) return super.findPath(start, goal);
+
+        int width = level.getWidth(), height = level.getHeight();
+        if (!isInside(start.x, start.y) || !isWalkable(goal.x, goal.y)) return new ArrayList<>();
+        if (jumps != null && jumps.length != width * height * 8) jumps = null;
+
+        SearchContext context = SearchContext.get();
+        context.prepare(width * height);
+        int goalCell = goal.x + goal.y * width;
+        context.open(start.x + start.y * width, 0, getHeuristic(start.x, start.y, goal.x, goal.y), -1);
+
+        while (!context.isEmpty())
+        {
+            int cell = context.pop();
+            if (cell == goalCell) return buildPath(context, cell);
+
+            int x = cell % width, y = cell / width;
+            int parent = context.getParent(cell);
+            int directions = parent < 0 ? getAllDirections(x, y) : getDirections(x, y, parent % width, parent / width);
+            for (int direction = 0; direction < X_DIRECTIONS.length; direction++)
+            {
+                if ((directions & (1 << direction)) == 0) continue;
+
+                int jumpPoint = jumps != null ? lookup(x, y, direction, goal.x, goal.y) : jump(x, y, direction, goal.x, goal.y);
+                if (jumpPoint < 0 || context.isClosed(jumpPoint)) continue;
+
+                int jx = jumpPoint % width, jy = jumpPoint / width;
+                double cost = context.getG(cell) + getHeuristic(x, y, jx, jy);
+                context.open(jumpPoint, cost, cost + getHeuristic(jx, jy, goal.x, goal.y), cell);
+            }
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Scans from a tile in a direction until a jump point is found.
+     *
+     * @return The cell of the jump point, or -1 if a wall was reached first.
+     */
+    private int jump(int x, int y, int direction, int goalX, int goalY)
+    {
+        int dx = X_DIRECTIONS[direction], dy = Y_DIRECTIONS[direction];
+        if (dx == 0 || dy == 0) return jumpStraight(x, y, dx, dy, goalX, goalY);
+
+        while (canMove(x, y, dx, dy))
+        {
+            x += dx;
+            y += dy;
+            if (x == goalX && y == goalY) return x + y * level.getWidth();
+            if (jumpStraight(x, y, dx, 0, goalX, goalY) >= 0 || jumpStraight(x, y, 0, dy, goalX, goalY) >= 0)
+                return x + y * level.getWidth();
+        }
+
+        return -1;
+    }
+
+    /**
+     * Scans from a tile in a straight direction until a jump point is found.
+     *
+     * @return The cell of the jump point, or -1 if a wall was reached first.
+     */
+    private int jumpStraight(int x, int y, int dx, int dy, int goalX, int goalY)
+    {
+        while (isWalkable(x + dx, y + dy))
+        {
+            x += dx;
+            y += dy;
+            if ((x == goalX && y == goalY) || isForced(x, y, dx, dy)) return x + y * level.getWidth();
+        }
+
+        return -1;
+    }
+
+    /**
+     * Supplies whether a tile reached by a straight move has a neighbour which
+     * can only be reached optimally through it, making it a jump point.
+     */
+    private boolean isForced(int x, int y, int dx, int dy)
+    {
+        if (dx != 0)
+            return (isWalkable(x, y - 1) && !isWalkable(x - dx, y - 1)) || (isWalkable(x, y + 1) && !isWalkable(x - dx, y + 1));
+
+        return (isWalkable(x - 1, y) && !isWalkable(x - 1, y - dy)) || (isWalkable(x + 1, y) && !isWalkable(x + 1, y - dy));
+    }
+
+    /**
+     * Supplies the jump point of a tile in a direction using the precomputed
+     * table, stopping short at the destination when it lies on the way.
+     *
+     * @return The cell of the jump point, or -1 if a wall was reached first.
+     */
+    private int lookup(int x, int y, int direction, int goalX, int goalY)
+    {
+        int dx = X_DIRECTIONS[direction], dy = Y_DIRECTIONS[direction];
+        int distance = jumps[(x + y * level.getWidth()) * 8 + direction];
+        int reach = Math.abs(distance);
+        int toGoalX = goalX - x, toGoalY = goalY - y;
+
+        int steps = -1;
+        if (dx == 0 || dy == 0)
+        {
+            int along = dx != 0 ? toGoalX * dx : toGoalY * dy;
+            boolean aligned = dx != 0 ? toGoalY == 0 : toGoalX == 0;
+            if (aligned && along > 0 && along <= reach) steps = along;
+        } else if (Integer.signum(toGoalX) == dx && Integer.signum(toGoalY) == dy)
+        {
+            int along = Math.min(Math.abs(toGoalX), Math.abs(toGoalY));
+            if (along <= reach) steps = along;
+        }
+        if (steps < 0 && distance > 0) steps = distance;
+
+        return steps < 0 ? -1 : (x + dx * steps) + (y + dy * steps) * level.getWidth();
+    }
+
+    /**
+     * Supplies the directions worth scanning from a tile reached from a given
+     * parent, as a bit per direction: the continuation of the move and the
+     * neighbours the walls around the tile force through it.
+     */
+    private int getDirections(int x, int y, int parentX, int parentY)
+    {
+        int dx = Integer.signum(x - parentX), dy = Integer.signum(y - parentY);
+        int directions = 0;
+
+        if (dx != 0 && dy != 0)
+        {
+            boolean vertical = isWalkable(x, y + dy), horizontal = isWalkable(x + dx, y);
+            if (vertical) directions |= bit(0, dy);
+            if (horizontal) directions |= bit(dx, 0);
+            if (vertical && horizontal) directions |= bit(dx, dy);
+        } else if (dx != 0)
+        {
+            boolean next = isWalkable(x + dx, y), below = isWalkable(x, y + 1), above = isWalkable(x, y - 1);
+            if (next) directions |= bit(dx, 0);
+            if (next && below) directions |= bit(dx, 1);
+            if (next && above) directions |= bit(dx, -1);
+            if (below) directions |= bit(0, 1);
+            if (above) directions |= bit(0, -1);
+        } else
+        {
+            boolean next = isWalkable(x, y + dy), right = isWalkable(x + 1, y), left = isWalkable(x - 1, y);
+            if (next) directions |= bit(0, dy);
+            if (next && right) directions |= bit(1, dy);
+            if (next && left) directions |= bit(-1, dy);
+            if (right) directions |= bit(1, 0);
+            if (left) directions |= bit(-1, 0);
+        }
+
+        return directions;
+    }
+
+    /**
+     * Supplies every direction a move is possible in from a tile, as a bit per direction.
+     */
+    private int getAllDirections(int x, int y)
+    {
+        int directions = 0;
+        for (int direction = 0; direction < X_DIRECTIONS.length; direction++)
+        {
+            if (canMove(x, y, X_DIRECTIONS[direction], Y_DIRECTIONS[direction])) directions |= 1 << direction;
+        }
+
+        return directions;
+    }
+
+    /**
+     * Supplies the bit of a direction.
+     */
+    private static int bit(int dx, int dy)
+    {
+        return 1 << DIRECTION_INDICES[(dx + 1) * 3 + (dy + 1)];
+    }
+
+    /**
+     * Creates the Nodes of a path by following the jump points back from a
+     * given cell, filling in the tiles between consecutive jump points.
+     */
+    @Override
+    List<Node> buildPath(SearchContext context, int cell)
+    {
+        int width = level.getWidth();
+        int length = 1;
+        for (int c = cell; context.getParent(c) >= 0; c = context.getParent(c))
+        {
+            int parent = context.getParent(c);
+            length += Math.max(Math.abs(c % width - parent % width), Math.abs(c / width - parent / width));
+        }
+
+        int[] cells = new int[length];
+        double[] costs = new double[length];
+        int i = length - 1;
+        for (int c = cell; c >= 0; c = context.getParent(c))
+        {
+            int parent = context.getParent(c);
+            cells[i] = c;
+            costs[i--] = context.getG(c);
+            if (parent < 0) break;
+
+            int dx = Integer.signum(parent % width - c % width), dy = Integer.signum(parent / width - c / width);
+            double step = dx != 0 && dy != 0 ? DIAGONAL_COST : 1;
+            for (int x = c % width + dx, y = c / width + dy, g = 1; x + y * width != parent; x += dx, y += dy, g++)
+            {
+                cells[i] = x + y * width;
+                costs[i--] = context.getG(c) - g * step;
+            }
+        }
+
+        return createPath(level, cells, costs, length);
+    }
+
+    /**
+     * Precomputes the distance from every tile to the next jump point or wall
+     * in each direction (JPS+), so searches look them up rather than scanning.
+     * Only valid as long as no tile changes solidity.
+     */
+    public void precompute()
+    {
+        int width = level.getWidth(), height = level.getHeight();
+        short[] table = new short[width * height * 8];
+
+        for (int direction = 0; direction < X_DIRECTIONS.length; direction++)
+        {
+            int dx = X_DIRECTIONS[direction], dy = Y_DIRECTIONS[direction];
+            int horizontal = DIRECTION_INDICES[(dx + 1) * 3 + 1], vertical = DIRECTION_INDICES[3 + (dy + 1)];
+
+            //Tiles are visited against the direction, so the next tile's distance is always known
+            for (int j = 0; j < height; j++)
+            {
+                int y = dy > 0 ? height - 1 - j : j;
+                for (int i = 0; i < width; i++)
+                {
+                    int x = dx > 0 ? width - 1 - i : i;
+                    int distance = 0;
+                    if (canMove(x, y, dx, dy))
+                    {
+                        int next = (x + dx + (y + dy) * width) * 8;
+                        boolean jumpPoint = dx == 0 || dy == 0 ? isForced(x + dx, y + dy, dx, dy)
+                                : table[next + horizontal] > 0 || table[next + vertical] > 0;
+                        distance = jumpPoint ? 1 : table[next + direction] > 0 ? table[next + direction] + 1 : table[next + direction] - 1;
+                    }
+                    table[(x + y * width) * 8 + direction] = (short) distance;
+                }
+            }
+        }
+
+        jumps = table;
+    }
+
+    /**
+     * Drops the precomputed jump table, e.g. after a tile changed solidity,
+     * so searches scan the level again until {@link #precompute()} is called.
+     */
+    public void invalidate()
+    {
+        jumps = null;
+    }
+
+    @Override
+    public void tileChanged(TiledLevel level, int x, int y)
+    {
+        invalidate();
+    }
+
+    @Override
+    public void tilesChanged(TiledLevel level)
+    {
+        invalidate();
+    }
+
+    /**
+     * @return Weather or not searches use a precomputed jump table.
+     */
+    public boolean isPrecomputed()
+    {
+        return jumps != null;
+    }
+}
@@ -0,0 +1,113 @@
+package TransmuteCore.Objects.Pathfinding;
+
+import TransmuteCore.Units.Vector2i;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@code PathRequest} is a path submitted to a {@link PathService}, which is
+ * solved in the background and delivered on the game thread.
+ * <br>
+ * A request is done once its path was delivered, at which point its callback,
+ * if any, is called. Requests can also be polled with {@link #isDone()}.
+ */
+public class PathRequest
+{
+    private final Vector2i start; //The starting location
+    private final Vector2i goal; //The destination
+    private final int priority; //Requests of higher priority are solved first
+    private final Consumer<PathRequest> callback; //Called on delivery, or null
+
+    private volatile boolean cancelled; //Weather or not the requester gave up on the path
+    private boolean done; //Weather or not the path was delivered
+    private List<Node> path; //The delivered path
+
+    /**
+     * Defines a request.
+     *
+     * @param start    The starting location.
+     * @param goal     The destination.
+     * @param priority Requests of higher priority are solved first.
+     * @param callback Called on the game thread once the path is delivered, or null.
+     */
+    PathRequest(Vector2i start, Vector2i goal, int priority, Consumer<PathRequest> callback)
+    {
+        this.start = new Vector2i(start.x, start.y);
+        this.goal = new Vector2i(goal.x, goal.y);
+        this.priority = priority;
+        this.callback = callback;
+    }
+
+    /**
+     * Delivers the path, calling the callback.
+     *
+     * @param path The path.
+     */
+    void deliver(List<Node> path)
+    {
+        this.path = path;
+        done = true;
+
+        if (callback != null) callback.accept(this);
+    }
+
+    /**
+     * Gives up on the path: it will not be searched if it was not yet, and
+     * will not be delivered.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    /**
+     * @return Weather or not the request was cancelled.
+     */
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    /**
+     * @return Weather or not the path was delivered.
+     */
+    public boolean isDone()
+    {
+        return done;
+    }
+
+    /**
+     * @return The path from the destination back to the location after the
+     * start, empty if the destination cannot be reached, or null until the
+     * request is done.
+     */
+    public List<Node> getPath()
+    {
+        return path;
+    }
+
+    /**
+     * @return The starting location.
+     */
+    public Vector2i getStart()
+    {
+        return start;
+    }
+
+    /**
+     * @return The destination.
+     */
+    public Vector2i getGoal()
+    {
+        return goal;
+    }
+
+    /**
+     * @return The priority of the request.
+     */
+    public int getPriority()
+    {
+        return priority;
+    }
+}
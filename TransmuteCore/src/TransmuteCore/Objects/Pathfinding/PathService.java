@@ -0,0 +1,430 @@
+package TransmuteCore.Objects.Pathfinding;
+
+import TransmuteCore.GameEngine.Interfaces.Updatable;
+import TransmuteCore.GameEngine.Manager;
+import TransmuteCore.Level.TileListener;
+import TransmuteCore.Level.TiledLevel;
+import TransmuteCore.Units.Vector2i;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * {@code PathService} solves path requests on a pool of worker threads, so a
+ * wave of requests does not stall the game thread.
+ * <br>
+ * Workers search an immutable snapshot of the level's walkable tiles, taken on
+ * the game thread, so the level can be modified while they run; the snapshot
+ * is retaken by the next {@link #update(Manager, double)} after
+ * {@link #invalidate()}, which is called for every tile change once the
+ * service is registered as a {@link TileListener} of the level. Requests are
+ * solved by priority, highest first.
+ * <p>
+ * Requests waiting for a worker which share a destination and whose starts
+ * lie in the same region of {@code regionSize} x {@code regionSize} tiles are
+ * coalesced into one search. That search runs backwards from the destination
+ * and goes on until every start was expanded; as the octile heuristic is
+ * consistent, each start gets an optimal path.
+ * <p>
+ * Solved paths are delivered on the game thread by {@link #update(Manager, double)},
+ * until a per-tick time budget is spent; the rest wait for the next tick.
+ */
+public class PathService implements Updatable, TileListener
+{
+    /**
+     * Default width and height of the regions whose requests are coalesced, in tiles
+     */
+    public static final int DEFAULT_REGION_SIZE = 8;
+
+    /**
+     * Default time spent delivering paths per tick, in nanoseconds
+     */
+    public static final long DEFAULT_DELIVERY_BUDGET = 1000000L;
+
+    /**
+     * Most worker threads created by default
+     */
+    public static final int MAX_DEFAULT_THREADS = 2;
+
+    private final TiledLevel level; //The level searched
+    private final ExecutorService workers; //Threads solving the requests
+    private final ThreadLocal<AStar> searches; //Search of each worker
+
+    private final PriorityQueue<Batch> queue = new PriorityQueue<>(); //Batches waiting for a worker
+    private final Map<Long, Batch> waiting = new HashMap<>(); //Batches waiting for a worker, by region and destination
+    private final ConcurrentLinkedQueue<Batch> solved = new ConcurrentLinkedQueue<>(); //Batches waiting to be delivered
+    private Batch delivering; //Batch being delivered, or null
+    private int delivered; //Number of requests of that batch already delivered
+    private long sequence; //Number of batches created
+
+    private volatile long[] snapshot; //Walkable tiles searched by the workers
+    private boolean stale; //Weather or not the snapshot must be retaken
+    private int regionSize = DEFAULT_REGION_SIZE; //Width and height of a coalescing region, in tiles
+    private long deliveryBudget = DEFAULT_DELIVERY_BUDGET; //Time spent delivering paths per tick, in nanoseconds
+
+    /**
+     * Creates a service with a worker per available processor, but one, and at
+     * most {@code MAX_DEFAULT_THREADS} workers.
+     *
+     * @param level The level to search.
+     */
+    public PathService(TiledLevel level)
+    {
+        this(level, Math.max(1, Math.min(MAX_DEFAULT_THREADS, Runtime.getRuntime().availableProcessors() - 1)));
+    }
+
+    /**
+     * Creates a service. Each worker keeps its own search state, of about 40
+     * bytes per tile of the level (some 168 MB for 2048 x 2048 tiles), for as
+     * long as the service is open.
+     *
+     * @param level   The level to search.
+     * @param threads Number of worker threads.
+     */
+    public PathService(TiledLevel level, int threads)
+    {
+        this.level = level;
+        searches = ThreadLocal.withInitial(() -> new AStar(level));
+        snapshot = AStar.takeSnapshot(level);
+        workers = Executors.newFixedThreadPool(Math.max(1, threads), runnable ->
+        {
+            Thread thread = new Thread(runnable, "PathService worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits a path request.
+     *
+     * @param start    The starting location.
+     * @param goal     The destination.
+     * @param priority Requests of higher priority are solved first.
+     * @param callback Called on the game thread once the path is delivered, or null.
+     * @return The request, to be polled or cancelled.
+     */
+    public PathRequest submit(Vector2i start, Vector2i goal, int priority, Consumer<PathRequest> callback)
+    {
+        PathRequest request = new PathRequest(start, goal, priority, callback);
+        int width = level.getWidth();
+        long key = ((long) getRegion(start) << 32) | ((goal.x + goal.y * width) & 0xFFFFFFFFL);
+
+        synchronized (queue)
+        {
+            Batch batch = waiting.get(key);
+            if (batch != null)
+            {
+                batch.requests.add(request);
+                if (priority > batch.priority)
+                {
+                    queue.remove(batch);
+                    batch.priority = priority;
+                    queue.add(batch);
+                }
+                return request;
+            }
+
+            batch = new Batch(key, priority, sequence++);
+            batch.requests.add(request);
+            waiting.put(key, batch);
+            queue.add(batch);
+        }
+
+        workers.execute(this::solveNext);
+        return request;
+    }
+
+    /**
+     * Submits a path request of priority 0 without a callback.
+     *
+     * @param start The starting location.
+     * @param goal  The destination.
+     * @return The request, to be polled or cancelled.
+     */
+    public PathRequest submit(Vector2i start, Vector2i goal)
+    {
+        return submit(start, goal, 0, null);
+    }
+
+    /**
+     * Retakes the snapshot if the level was invalidated, then delivers solved
+     * paths until the delivery budget is spent. At least one path is delivered
+     * per call when one is available.
+     *
+     * @param manager The engine manager object.
+     * @param delta   Time elapsed between each frame.
+     */
+    @Override
+    public void update(Manager manager, double delta)
+    {
+        if (stale)
+        {
+            snapshot = AStar.takeSnapshot(level);
+            stale = false;
+        }
+
+        long deadline = System.nanoTime() + deliveryBudget;
+        boolean first = true;
+        while (first || System.nanoTime() < deadline)
+        {
+            if (delivering == null)
+            {
+                delivering = solved.poll();
+                delivered = 0;
+                if (delivering == null) return;
+            }
+
+            if (delivered == delivering.requests.size())
+            {
+                delivering = null;
+                continue;
+            }
+
+            int index = delivered++;
+            PathRequest request = delivering.requests.get(index);
+            if (request.isCancelled()) continue;
+
+            request.deliver(delivering.paths.get(index));
+            first = false;
+        }
+    }
+
+    /**
+     * Marks the snapshot of the level as outdated, e.g. after tiles changed
+     * solidity; it is retaken by the next {@link #update(Manager, double)}.
+     * Requests solved in the meantime search the previous snapshot.
+     */
+    public void invalidate()
+    {
+        stale = true;
+    }
+
+    @Override
+    public void tileChanged(TiledLevel level, int x, int y)
+    {
+        invalidate();
+    }
+
+    @Override
+    public void tilesChanged(TiledLevel level)
+    {
+        invalidate();
+    }
+
+    /**
+     * Stops the worker threads. Requests not yet solved are never delivered.
+     */
+    public void close()
+    {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Solves the waiting batch of highest priority. Run by the workers, once
+     * per batch created.
+     */
+    private void solveNext()
+    {
+        Batch batch;
+        synchronized (queue)
+        {
+            batch = queue.poll();
+            if (batch == null) return;
+
+            waiting.remove(batch.key);
+        }
+
+        AStar search = searches.get();
+        search.walkable = snapshot;
+        solve(search, batch);
+        search.walkable = null;
+
+        solved.add(batch);
+    }
+
+    /**
+     * Searches backwards from the destination of a batch until the start of
+     * every request still wanted was expanded, then builds their paths.
+     */
+    private void solve(AStar search, Batch batch)
+    {
+        List<PathRequest> requests = batch.requests;
+        int width = level.getWidth();
+        int[] starts = new int[requests.size()];
+        int remaining = 0;
+        PathRequest first = null;
+        for (int i = 0; i < starts.length; i++)
+        {
+            PathRequest request = requests.get(i);
+            Vector2i start = request.getStart();
+            starts[i] = request.isCancelled() || !search.isInside(start.x, start.y) ? -1 : start.x + start.y * width;
+            if (starts[i] < 0) continue;
+
+            remaining++;
+            if (first == null) first = request;
+        }
+
+        Vector2i goal = requests.get(0).getGoal();
+        SearchContext context = SearchContext.get();
+        if (first != null && search.isWalkable(goal.x, goal.y))
+        {
+            Vector2i target = first.getStart();
+            context.prepare(width * level.getHeight());
+            context.open(goal.x + goal.y * width, 0, AStar.getHeuristic(goal.x, goal.y, target.x, target.y), -1);
+
+            while (remaining > 0 && !context.isEmpty())
+            {
+                int cell = context.pop();
+                int x = cell % width, y = cell / width;
+                for (int start : starts)
+                {
+                    if (start == cell) remaining--;
+                }
+                if (!search.isWalkable(x, y)) continue;
+
+                double g = context.getG(cell);
+                for (int direction = 0; direction < AStar.X_DIRECTIONS.length; direction++)
+                {
+                    int dx = AStar.X_DIRECTIONS[direction], dy = AStar.Y_DIRECTIONS[direction];
+                    int nx = x + dx, ny = y + dy;
+                    int neighbour = nx + ny * width;
+                    if (!search.isInside(nx, ny) || context.isClosed(neighbour)) continue;
+                    if (!search.isWalkable(nx, ny) && !contains(starts, neighbour)) continue;
+                    if (!search.canMove(nx, ny, -dx, -dy)) continue;
+
+                    double cost = g + (dx != 0 && dy != 0 ? AStar.DIAGONAL_COST : 1);
+                    context.open(neighbour, cost, cost + AStar.getHeuristic(nx, ny, target.x, target.y), cell);
+                }
+            }
+        }
+
+        batch.paths = new ArrayList<>(starts.length);
+        for (int start : starts)
+        {
+            boolean reached = first != null && start >= 0 && context.isClosed(start);
+            batch.paths.add(reached ? buildPath(context, start) : new ArrayList<>());
+        }
+    }
+
+    /**
+     * Creates the Nodes of a path by following the parents of a backward
+     * search from a start to the destination.
+     */
+    private List<Node> buildPath(SearchContext context, int start)
+    {
+        int length = 0;
+        for (int cell = start; cell >= 0; cell = context.getParent(cell)) length++;
+
+        int[] cells = new int[length];
+        double[] costs = new double[length];
+        double total = context.getG(start);
+        for (int cell = start, i = 0; cell >= 0; cell = context.getParent(cell), i++)
+        {
+            cells[i] = cell;
+            costs[i] = total - context.getG(cell);
+        }
+
+        return AStar.createPath(level, cells, costs, length);
+    }
+
+    /**
+     * Supplies whether an array holds a value.
+     */
+    private static boolean contains(int[] values, int value)
+    {
+        for (int v : values)
+        {
+            if (v == value) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Supplies the coalescing region holding a location.
+     */
+    private int getRegion(Vector2i location)
+    {
+        int regionsX = (level.getWidth() + regionSize - 1) / regionSize;
+        return Math.floorDiv(location.x, regionSize) + Math.floorDiv(location.y, regionSize) * regionsX;
+    }
+
+    /**
+     * Sets the width and height of the regions whose requests are coalesced.
+     * A size of 1 only coalesces requests with the same start and destination.
+     *
+     * @param regionSize Width and height of a region, in tiles.
+     */
+    public void setRegionSize(int regionSize)
+    {
+        this.regionSize = Math.max(1, regionSize);
+    }
+
+    /**
+     * @return Width and height of the regions whose requests are coalesced, in tiles.
+     */
+    public int getRegionSize()
+    {
+        return regionSize;
+    }
+
+    /**
+     * Sets the time spent delivering paths per tick.
+     *
+     * @param deliveryBudget Time per tick, in nanoseconds.
+     */
+    public void setDeliveryBudget(long deliveryBudget)
+    {
+        this.deliveryBudget = deliveryBudget;
+    }
+
+    /**
+     * @return The time spent delivering paths per tick, in nanoseconds.
+     */
+    public long getDeliveryBudget()
+    {
+        return deliveryBudget;
+    }
+
+    /**
+     * @return The level searched.
+     */
+    public TiledLevel getLevel()
+    {
+        return level;
+    }
+
+    /**
+     * Requests sharing a destination and a start region, solved by one search.
+     */
+    private static class Batch implements Comparable<Batch>
+    {
+        private final long key; //Region of the starts and destination cell
+        private final long sequence; //Order in which the batch was created
+        private final List<PathRequest> requests = new ArrayList<>(); //Coalesced requests
+        private int priority; //Highest priority of the requests
+        private List<List<Node>> paths; //Path of each request, once solved
+
+        private Batch(long key, int priority, long sequence)
+        {
+            this.key = key;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Batch other)
+        {
+            if (priority != other.priority) return Integer.compare(other.priority, priority);
+
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
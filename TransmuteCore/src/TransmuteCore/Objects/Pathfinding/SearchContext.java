@@ -0,0 +1,217 @@
+package TransmuteCore.Objects.Pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * {@code SearchContext} holds the working state of a grid search, indexed by cell
+ * ({@code x + y * width}), so searches allocate nothing once it has grown to
+ * the size of the level.
+ * <br>
+ * Per-cell scores and parents are stamped with the generation of the search
+ * that wrote them, so starting a new search does not clear them; a reached
+ * cell that has left the heap is closed. The open set
+ * is an indexed binary heap ordered by f-cost, breaking ties towards higher
+ * g-cost, which supports decrease-key. A context must only be used by one
+ * thread at a time; {@link #get()} supplies one per thread.
+ */
+final class SearchContext
+{
+    private static final ThreadLocal<SearchContext> CONTEXT = ThreadLocal.withInitial(SearchContext::new);
+
+    private int[] stamps = new int[0]; //Generation in which each cell was last reached
+    private int generation; //Generation of the current search
+    private double[] g = new double[0]; //g-cost of each reached cell
+    private int[] parents = new int[0]; //Cell each reached cell was reached from, or -1
+    private int[] heapIndices = new int[0]; //Position of each open cell in the heap, or -1 once closed
+    private int[] heap = new int[0]; //Open cells, as a binary heap
+    private double[] heapF = new double[0]; //f-cost of the cell at each heap position
+    private double[] heapG = new double[0]; //g-cost of the cell at each heap position
+    private int heapSize; //Number of open cells
+    int expanded; //Number of cells expanded by the current search
+
+    /**
+     * @return The search context of the calling thread.
+     */
+    static SearchContext get()
+    {
+        return CONTEXT.get();
+    }
+
+    /**
+     * Starts a new search over a given number of cells.
+     *
+     * @param cells Number of cells of the searched grid.
+     */
+    void prepare(int cells)
+    {
+        if (stamps.length < cells)
+        {
+            stamps = new int[cells];
+            g = new double[cells];
+            parents = new int[cells];
+            heapIndices = new int[cells];
+            heap = new int[cells];
+            heapF = new double[cells];
+            heapG = new double[cells];
+            generation = 0;
+        }
+
+        if (++generation == 0)
+        {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        heapSize = 0;
+        expanded = 0;
+    }
+
+    /**
+     * @param cell The cell.
+     * @return Weather or not the cell was reached by the current search.
+     */
+    boolean isReached(int cell)
+    {
+        return stamps[cell] == generation;
+    }
+
+    /**
+     * @param cell The cell.
+     * @return Weather or not the cell was expanded by the current search.
+     */
+    boolean isClosed(int cell)
+    {
+        return stamps[cell] == generation && heapIndices[cell] < 0;
+    }
+
+    /**
+     * @param cell A reached cell.
+     * @return The g-cost of the cell.
+     */
+    double getG(int cell)
+    {
+        return g[cell];
+    }
+
+    /**
+     * @param cell A reached cell.
+     * @return The cell the given cell was reached from, or -1 for the start.
+     */
+    int getParent(int cell)
+    {
+        return parents[cell];
+    }
+
+    /**
+     * Adds a cell to the open set, or lowers its cost if it is already open.
+     * Costs of closed cells are not lowered.
+     *
+     * @param cell   The cell.
+     * @param g      The g-cost of the cell.
+     * @param f      The f-cost of the cell.
+     * @param parent The cell it is reached from, or -1.
+     */
+    void open(int cell, double g, double f, int parent)
+    {
+        int index;
+        if (stamps[cell] != generation)
+        {
+            stamps[cell] = generation;
+            index = heapSize++;
+        } else if (heapIndices[cell] < 0 || g >= this.g[cell])
+        {
+            return;
+        } else
+        {
+            index = heapIndices[cell];
+        }
+
+        this.g[cell] = g;
+        parents[cell] = parent;
+        siftUp(index, cell, f, g);
+    }
+
+    /**
+     * @return Weather or not the open set is empty.
+     */
+    boolean isEmpty()
+    {
+        return heapSize == 0;
+    }
+
+    /**
+     * Removes the open cell with the lowest f-cost and marks it closed.
+     *
+     * @return The removed cell.
+     */
+    int pop()
+    {
+        int top = heap[0];
+        int last = --heapSize;
+        if (last > 0) siftDown(heap[last], heapF[last], heapG[last]);
+
+        heapIndices[top] = -1;
+        expanded++;
+        return top;
+    }
+
+    /**
+     * Moves a cell up from a given heap position to its place, keys being stored
+     * alongside the heap so comparisons stay within the heap arrays.
+     */
+    private void siftUp(int index, int cell, double f, double g)
+    {
+        while (index > 0)
+        {
+            int parent = (index - 1) >>> 1;
+            if (f > heapF[parent] || (f == heapF[parent] && g <= heapG[parent])) break;
+
+            move(parent, index);
+            index = parent;
+        }
+
+        place(index, cell, f, g);
+    }
+
+    /**
+     * Moves a cell down from the top of the heap to its place.
+     */
+    private void siftDown(int cell, double f, double g)
+    {
+        int index = 0;
+        while (true)
+        {
+            int child = 2 * index + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && (heapF[child + 1] < heapF[child]
+                    || (heapF[child + 1] == heapF[child] && heapG[child + 1] > heapG[child]))) child++;
+            if (f < heapF[child] || (f == heapF[child] && g >= heapG[child])) break;
+
+            move(child, index);
+            index = child;
+        }
+
+        place(index, cell, f, g);
+    }
+
+    /**
+     * Copies the entry at one heap position to another.
+     */
+    private void move(int from, int to)
+    {
+        heap[to] = heap[from];
+        heapF[to] = heapF[from];
+        heapG[to] = heapG[from];
+        heapIndices[heap[to]] = to;
+    }
+
+    /**
+     * Stores a cell at a heap position.
+     */
+    private void place(int index, int cell, double f, double g)
+    {
+        heap[index] = cell;
+        heapF[index] = f;
+        heapG[index] = g;
+        heapIndices[cell] = index;
+    }
+}
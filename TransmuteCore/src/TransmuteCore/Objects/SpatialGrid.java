@@ -0,0 +1,380 @@
+package TransmuteCore.Objects;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@code SpatialGrid} is a uniform grid of square cells indexing objects by location.
+ * <br>
+ * Cells are hashed into a table of buckets, so the grid is unbounded and its memory
+ * depends on the number of objects rather than on the size of the level. Every
+ * object is kept in the bucket of the cell holding its location; objects which
+ * moved are re-bucketed by {@link #update(Object)} or {@link #refresh()}, which
+ * only touch the objects whose bucket changed.
+ * <p>
+ * Queries visit only the buckets of the cells overlapping the queried area (or,
+ * for an area spanning more cells than there are buckets, every object),
+ * compare squared distances and append to caller-supplied lists, so they do
+ * not allocate once the lists have reached their working size.
+ */
+public class SpatialGrid
+{
+    /**
+     * Default width and height of a cell, in pixels
+     */
+    public static final int DEFAULT_CELL_SIZE = 64;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int cellSize; //Width and height of a cell, in pixels
+    private Object[] objects = new Object[INITIAL_CAPACITY]; //Indexed objects, by slot
+    private int[] slotBuckets = new int[INITIAL_CAPACITY]; //Bucket holding each slot
+    private int count; //Number of indexed objects
+
+    private int[][] buckets; //Slots held by each bucket
+    private int[] bucketSizes; //Number of slots held by each bucket
+    private int[] bucketStamps; //Query in which each bucket was last visited
+    private int mask; //Bucket count - 1 (the bucket count is a power of two)
+    private int stamp; //Current query
+
+    /**
+     * Creates an empty grid.
+     *
+     * @param cellSize Width and height of a cell, in pixels (e.g. {@code DEFAULT_CELL_SIZE}).
+     */
+    public SpatialGrid(int cellSize)
+    {
+        this.cellSize = Math.max(1, cellSize);
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Adds an object to the grid. An object can only be indexed by one grid at a time.
+     *
+     * @param obj The object to add.
+     */
+    public void add(Object obj)
+    {
+        if (obj.grid == this) return;
+        if (obj.grid != null) obj.grid.remove(obj);
+
+        if (count == objects.length)
+        {
+            objects = Arrays.copyOf(objects, count * 2);
+            slotBuckets = Arrays.copyOf(slotBuckets, count * 2);
+        }
+        if (count >= buckets.length) rehash(buckets.length * 2);
+
+        int slot = count++;
+        objects[slot] = obj;
+        obj.grid = this;
+        obj.gridSlot = slot;
+        insert(slot, bucketOf(obj.getX(), obj.getY()));
+    }
+
+    /**
+     * Removes an object from the grid.
+     *
+     * @param obj The object to remove.
+     */
+    public void remove(Object obj)
+    {
+        if (obj.grid != this) return;
+
+        int slot = obj.gridSlot;
+        erase(slot, slotBuckets[slot]);
+
+        int last = --count;
+        if (slot != last)
+        {
+            int bucket = slotBuckets[last];
+            erase(last, bucket);
+            objects[slot] = objects[last];
+            objects[slot].gridSlot = slot;
+            insert(slot, bucket);
+        }
+
+        objects[last] = null;
+        obj.grid = null;
+        obj.gridSlot = -1;
+    }
+
+    /**
+     * Moves an object to the bucket of its current location, if it changed.
+     *
+     * @param obj The object which moved.
+     */
+    public void update(Object obj)
+    {
+        if (obj.grid != this) return;
+
+        int slot = obj.gridSlot;
+        int bucket = bucketOf(obj.getX(), obj.getY());
+        if (bucket == slotBuckets[slot]) return;
+
+        erase(slot, slotBuckets[slot]);
+        insert(slot, bucket);
+    }
+
+    /**
+     * Moves every object whose location changed to the bucket of its new location.
+     */
+    public void refresh()
+    {
+        for (int slot = 0; slot < count; slot++)
+        {
+            Object obj = objects[slot];
+            int bucket = bucketOf(obj.getX(), obj.getY());
+            if (bucket == slotBuckets[slot]) continue;
+
+            erase(slot, slotBuckets[slot]);
+            insert(slot, bucket);
+        }
+    }
+
+    /**
+     * Removes every object from the grid.
+     */
+    public void clear()
+    {
+        for (int slot = 0; slot < count; slot++)
+        {
+            objects[slot].grid = null;
+            objects[slot].gridSlot = -1;
+            objects[slot] = null;
+        }
+        count = 0;
+        Arrays.fill(bucketSizes, 0);
+    }
+
+    /**
+     * Appends every object of a given type located within a radius of a point.
+     *
+     * @param x       x-coordinate of the center.
+     * @param y       y-coordinate of the center.
+     * @param radius  The distance from the center to the edge of the circle.
+     * @param exclude Object left out of the result (e.g. the one querying), or null.
+     * @param type    Type of the objects to supply.
+     * @param result  List the objects are appended to.
+     * @return The given list.
+     */
+    public <T> List<T> queryRadius(int x, int y, int radius, Object exclude, Class<T> type, List<T> result)
+    {
+        if (radius < 0) return result;
+
+        long radiusSquared = (long) radius * radius;
+        long cxStart = cellOf((long) x - radius), cxEnd = cellOf((long) x + radius);
+        long cyStart = cellOf((long) y - radius), cyEnd = cellOf((long) y + radius);
+
+        if (exceedsBuckets(cxStart, cxEnd, cyStart, cyEnd))
+        {
+            for (int slot = 0; slot < count; slot++)
+            {
+                Object obj = objects[slot];
+                if (obj != exclude && type.isInstance(obj) && isWithin(obj, x, y, radius, radiusSquared)) result.add(type.cast(obj));
+            }
+            return result;
+        }
+
+        stamp++;
+        for (int cy = (int) cyStart; cy <= (int) cyEnd; cy++)
+        {
+            for (int cx = (int) cxStart; cx <= (int) cxEnd; cx++)
+            {
+                int bucket = hash(cx, cy);
+                if (bucketStamps[bucket] == stamp) continue;
+                bucketStamps[bucket] = stamp;
+
+                int[] slots = buckets[bucket];
+                for (int i = 0; i < bucketSizes[bucket]; i++)
+                {
+                    Object obj = objects[slots[i]];
+                    if (obj != exclude && type.isInstance(obj) && isWithin(obj, x, y, radius, radiusSquared)) result.add(type.cast(obj));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Appends every object of a given type located within the rectangle [x, x + width) x [y, y + height).
+     *
+     * @param x       x-coordinate of the rectangle.
+     * @param y       y-coordinate of the rectangle.
+     * @param width   Width of the rectangle.
+     * @param height  Height of the rectangle.
+     * @param exclude Object left out of the result (e.g. the one querying), or null.
+     * @param type    Type of the objects to supply.
+     * @param result  List the objects are appended to.
+     * @return The given list.
+     */
+    public <T> List<T> queryRectangle(int x, int y, int width, int height, Object exclude, Class<T> type, List<T> result)
+    {
+        if (width <= 0 || height <= 0) return result;
+
+        long cxStart = cellOf(x), cxEnd = cellOf((long) x + width - 1);
+        long cyStart = cellOf(y), cyEnd = cellOf((long) y + height - 1);
+
+        if (exceedsBuckets(cxStart, cxEnd, cyStart, cyEnd))
+        {
+            for (int slot = 0; slot < count; slot++)
+            {
+                Object obj = objects[slot];
+                if (obj != exclude && type.isInstance(obj) && isInside(obj, x, y, width, height)) result.add(type.cast(obj));
+            }
+            return result;
+        }
+
+        stamp++;
+        for (int cy = (int) cyStart; cy <= (int) cyEnd; cy++)
+        {
+            for (int cx = (int) cxStart; cx <= (int) cxEnd; cx++)
+            {
+                int bucket = hash(cx, cy);
+                if (bucketStamps[bucket] == stamp) continue;
+                bucketStamps[bucket] = stamp;
+
+                int[] slots = buckets[bucket];
+                for (int i = 0; i < bucketSizes[bucket]; i++)
+                {
+                    Object obj = objects[slots[i]];
+                    if (obj != exclude && type.isInstance(obj) && isInside(obj, x, y, width, height)) result.add(type.cast(obj));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Supplies whether an object is located within a radius of a point.
+     */
+    private static boolean isWithin(Object obj, int x, int y, int radius, long radiusSquared)
+    {
+        long dx = (long) obj.getX() - x, dy = (long) obj.getY() - y;
+        return Math.abs(dx) <= radius && Math.abs(dy) <= radius && dx * dx + dy * dy <= radiusSquared;
+    }
+
+    /**
+     * Supplies whether an object is located within the rectangle [x, x + width) x [y, y + height).
+     */
+    private static boolean isInside(Object obj, int x, int y, int width, int height)
+    {
+        int ox = obj.getX(), oy = obj.getY();
+        return ox >= x && oy >= y && ox < (long) x + width && oy < (long) y + height;
+    }
+
+    /**
+     * Supplies the cell holding a coordinate, clamped to the cells an {@code int} coordinate can be in.
+     */
+    private long cellOf(long coordinate)
+    {
+        long cell = Math.floorDiv(coordinate, cellSize);
+        return Math.max(Math.floorDiv(Integer.MIN_VALUE, cellSize), Math.min(Math.floorDiv(Integer.MAX_VALUE, cellSize), cell));
+    }
+
+    /**
+     * Supplies whether a range of cells holds more cells than there are buckets,
+     * in which case scanning every object is cheaper than visiting the cells.
+     */
+    private boolean exceedsBuckets(long cxStart, long cxEnd, long cyStart, long cyEnd)
+    {
+        long columns = cxEnd - cxStart + 1, rows = cyEnd - cyStart + 1;
+        return columns > buckets.length || rows > buckets.length || columns * rows > buckets.length;
+    }
+
+    /**
+     * Supplies the bucket of the cell holding a location.
+     */
+    private int bucketOf(int x, int y)
+    {
+        return hash(Math.floorDiv(x, cellSize), Math.floorDiv(y, cellSize));
+    }
+
+    /**
+     * Supplies the bucket of a cell.
+     */
+    private int hash(int cx, int cy)
+    {
+        int h = cx * 0x8DA6B343 ^ cy * 0xD8163841;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Adds a slot to a bucket.
+     */
+    private void insert(int slot, int bucket)
+    {
+        int size = bucketSizes[bucket];
+        if (size == buckets[bucket].length) buckets[bucket] = Arrays.copyOf(buckets[bucket], Math.max(4, size * 2));
+        buckets[bucket][size] = slot;
+        bucketSizes[bucket] = size + 1;
+        slotBuckets[slot] = bucket;
+    }
+
+    /**
+     * Removes a slot from a bucket.
+     */
+    private void erase(int slot, int bucket)
+    {
+        int[] slots = buckets[bucket];
+        int size = bucketSizes[bucket];
+        for (int i = 0; i < size; i++)
+        {
+            if (slots[i] != slot) continue;
+
+            slots[i] = slots[size - 1];
+            bucketSizes[bucket] = size - 1;
+            return;
+        }
+    }
+
+    /**
+     * Allocates an empty table of buckets.
+     */
+    private void allocate(int bucketCount)
+    {
+        buckets = new int[bucketCount][];
+        for (int i = 0; i < bucketCount; i++) buckets[i] = new int[4];
+        bucketSizes = new int[bucketCount];
+        bucketStamps = new int[bucketCount];
+        mask = bucketCount - 1;
+    }
+
+    /**
+     * Re-buckets every object into a table of a given size.
+     */
+    private void rehash(int bucketCount)
+    {
+        allocate(bucketCount);
+        for (int slot = 0; slot < count; slot++) insert(slot, bucketOf(objects[slot].getX(), objects[slot].getY()));
+    }
+
+    /**
+     * Sets the width and height of a cell, re-bucketing every object.
+     *
+     * @param cellSize Width and height of a cell, in pixels.
+     */
+    public void setCellSize(int cellSize)
+    {
+        this.cellSize = Math.max(1, cellSize);
+        rehash(buckets.length);
+    }
+
+    /**
+     * @return Width and height of a cell, in pixels.
+     */
+    public int getCellSize()
+    {
+        return cellSize;
+    }
+
+    /**
+     * @return The number of objects in the grid.
+     */
+    public int size()
+    {
+        return count;
+    }
+}
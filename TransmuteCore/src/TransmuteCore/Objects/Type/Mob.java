@@ -1,6 +1,7 @@
 package TransmuteCore.Objects.Type;
 
 import TransmuteCore.GameEngine.Manager;
+import TransmuteCore.Graphics.Rectangle;
 import TransmuteCore.Level.TiledLevel;
 import TransmuteCore.Objects.Object;
 import TransmuteCore.Units.Tuple2i;
@@ -17,6 +18,15 @@ public abstract class Mob extends Object
         super(manager, name, Object.ANIMATABLE, location);
     }
 
+    /**
+     * Moves the mob, one axis at a time, as far as the solid tiles of a tiled
+     * level allow. The mob's collision box is swept along the movement so only
+     * the tiles it passes over are tested, however long the movement is, and
+     * a blocked mob stops flush against the first solid tile in its way.
+     *
+     * @param xMove The horizontal distance to move, in pixels.
+     * @param yMove The vertical distance to move, in pixels.
+     */
     public void move(int xMove, int yMove)
     {
         if (xMove != 0 && yMove != 0)
@@ -26,26 +36,87 @@ public abstract class Mob extends Object
             return;
         }
 
-        if (!isCollidingWithTile(xMove, yMove))
-        {
-            location.x += xMove;
-            location.y += yMove;
-        }
+        int xAllowed = xMove != 0 ? sweep(xMove, true) : 0;
+        int yAllowed = yMove != 0 ? sweep(yMove, false) : 0;
+        if (xAllowed == 0 && yAllowed == 0) return;
+
+        location.x += xAllowed;
+        location.y += yAllowed;
+        moved();
     }
 
-    private boolean isCollidingWithTile(int xMove, int yMove)
+    /**
+     * Sweeps the mob's collision box (its collision bounds, or else its sprite
+     * scaled by the mob's scale) along one axis through the tiles it would
+     * enter, stopping at the first column or row holding a solid tile.
+     * Tiles the box already overlaps are not tested, so a mob overlapping a
+     * solid tile can always move out of it.
+     *
+     * @param move       The distance to move, in pixels.
+     * @param horizontal Weather or not the movement is along the x-axis.
+     * @return The distance the mob can move.
+     */
+    private int sweep(int move, boolean horizontal)
     {
-        if (level instanceof TiledLevel)
+        if (!(level instanceof TiledLevel)) return move;
+
+        TiledLevel level = (TiledLevel) this.level;
+        int tileSize = level.getTileSize();
+        if (tileSize <= 0) return move;
+
+        int xBox = location.x, yBox = location.y;
+        float boxWidth = 1, boxHeight = 1;
+        if (bounds != null)
         {
-            TiledLevel level = (TiledLevel) this.level;
-            for (int i = 0; i < level.getData().length; i++)
+            //The box the collision bounds are placed at on every update, read live as the mob may have moved since
+            Tuple2i origin = bounds.getLocation();
+            xBox = origin.x;
+            yBox = origin.y;
+            boxWidth = bounds.getWidth() * bounds.getScale();
+            boxHeight = bounds.getHeight() * bounds.getScale();
+        } else if (sprite != null)
+        {
+            Rectangle box = sprite.getBounds();
+            if (box != null)
             {
-                int xt = (int) Math.floor(((location.x + xMove) - i % level.getWidth()) / level.getTileSize());
-                int yt = (int) Math.floor(((location.y + yMove) - i / level.getHeight()) / level.getTileSize());
+                xBox += (int) (box.x * scale);
+                yBox += (int) (box.y * scale);
+            }
+            boxWidth = (box != null ? box.width : sprite.getWidth()) * scale;
+            boxHeight = (box != null ? box.height : sprite.getHeight()) * scale;
+        }
+        int width = Math.max(1, (int) Math.ceil(boxWidth)), height = Math.max(1, (int) Math.ceil(boxHeight));
 
-                if (level.getTile(xt, yt) == null) continue;
-                if (level.getTile(xt, yt).isSolid()) return true;
+        int start = horizontal ? xBox : yBox, length = horizontal ? width : height;
+        int crossStart = Math.floorDiv(horizontal ? yBox : xBox, tileSize);
+        int crossEnd = Math.floorDiv((horizontal ? yBox + height : xBox + width) - 1, tileSize);
+
+        if (move > 0)
+        {
+            int edge = start + length - 1;
+            for (int tile = Math.floorDiv(edge, tileSize) + 1; tile <= Math.floorDiv(edge + move, tileSize); tile++)
+            {
+                if (isSolidLine(level, tile, crossStart, crossEnd, horizontal)) return tile * tileSize - (edge + 1);
             }
+        } else
+        {
+            for (int tile = Math.floorDiv(start, tileSize) - 1; tile >= Math.floorDiv(start + move, tileSize); tile--)
+            {
+                if (isSolidLine(level, tile, crossStart, crossEnd, horizontal)) return (tile + 1) * tileSize - start;
+            }
+        }
+
+        return move;
+    }
+
+    /**
+     * Supplies whether a column (or row) of tiles holds a solid tile between two rows (or columns).
+     */
+    private boolean isSolidLine(TiledLevel level, int tile, int crossStart, int crossEnd, boolean horizontal)
+    {
+        for (int cross = crossStart; cross <= crossEnd; cross++)
+        {
+            if (horizontal ? level.isSolid(tile, cross) : level.isSolid(cross, tile)) return true;
         }
 
         return false;
@@ -2,6 +2,8 @@ package TransmuteCore.Serialization;
 
 import static TransmuteCore.Serialization.TinyUtils.*;
 
+import java.io.IOException;
+
 class TinyArray extends TinyBase
 {
 
@@ -67,6 +69,44 @@ class TinyArray extends TinyBase
         return pointer;
     }
 
+    void write(TinyWriter writer) throws IOException
+    {
+        writer.putByte(CONTAINER_TYPE);
+        writer.putShort(nameLength);
+        writer.putBytes(name);
+        writer.putInt(size);
+        writer.putByte(type);
+        writer.putInt(count);
+
+        switch (type)
+        {
+            case Type.BYTE:
+                writer.putBytes(data);
+                break;
+            case Type.SHORT:
+                writer.putShorts(shortData);
+                break;
+            case Type.CHAR:
+                writer.putChars(charData);
+                break;
+            case Type.INTEGER:
+                writer.putInts(intData);
+                break;
+            case Type.LONG:
+                writer.putLongs(longData);
+                break;
+            case Type.FLOAT:
+                writer.putFloats(floatData);
+                break;
+            case Type.DOUBLE:
+                writer.putDoubles(doubleData);
+                break;
+            case Type.BOOLEAN:
+                writer.putBooleans(booleanData);
+                break;
+        }
+    }
+
     public int getSize()
     {
         return size;
@@ -244,4 +284,56 @@ class TinyArray extends TinyBase
         return result;
     }
 
+    static TinyArray Read(TinyReader reader) throws IOException
+    {
+        byte containerType = reader.getByte();
+        assert (containerType == CONTAINER_TYPE);
+
+        TinyArray result = new TinyArray();
+        result.name = reader.getName();
+        result.nameLength = (short) result.name.length;
+
+        result.size = reader.getInt();
+        result.type = reader.getByte();
+        result.count = reader.getInt();
+
+        switch (result.type)
+        {
+            case Type.BYTE:
+                result.data = new byte[result.count];
+                reader.getBytes(result.data);
+                break;
+            case Type.SHORT:
+                result.shortData = new short[result.count];
+                reader.getShorts(result.shortData);
+                break;
+            case Type.CHAR:
+                result.charData = new char[result.count];
+                reader.getChars(result.charData);
+                break;
+            case Type.INTEGER:
+                result.intData = new int[result.count];
+                reader.getInts(result.intData);
+                break;
+            case Type.LONG:
+                result.longData = new long[result.count];
+                reader.getLongs(result.longData);
+                break;
+            case Type.FLOAT:
+                result.floatData = new float[result.count];
+                reader.getFloats(result.floatData);
+                break;
+            case Type.DOUBLE:
+                result.doubleData = new double[result.count];
+                reader.getDoubles(result.doubleData);
+                break;
+            case Type.BOOLEAN:
+                result.booleanData = new boolean[result.count];
+                reader.getBooleans(result.booleanData);
+                break;
+        }
+
+        return result;
+    }
+
 }
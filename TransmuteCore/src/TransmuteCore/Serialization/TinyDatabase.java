@@ -1,13 +1,8 @@
 package TransmuteCore.Serialization;
 
-import static TransmuteCore.Serialization.TinyUtils.*;
-
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 class TinyDatabase extends TinyBase
@@ -43,56 +38,30 @@ class TinyDatabase extends TinyBase
         return size;
     }
 
-    private int getBytes(byte[] dest, int pointer)
-    {
-        pointer = TinyUtils.writeBytes(dest, pointer, HEADER);
-        pointer = TinyUtils.writeBytes(dest, pointer, VERSION);
-        pointer = TinyUtils.writeBytes(dest, pointer, CONTAINER_TYPE);
-        pointer = writeBytes(dest, pointer, nameLength);
-        pointer = writeBytes(dest, pointer, name);
-        pointer = writeBytes(dest, pointer, size);
-
-        pointer = TinyUtils.writeBytes(dest, pointer, objectCount);
-        for (TinyObject object : objects)
-            pointer = object.getBytes(dest, pointer);
-
-        return pointer;
-    }
-
-    private static TinyDatabase Deserialize(byte[] data)
+    private static TinyDatabase Read(TinyReader reader) throws IOException
     {
-        int pointer = 0;
-        assert (TinyUtils.readString(data, pointer, HEADER.length).equals(HEADER));
-        pointer += HEADER.length;
+        byte[] header = new byte[HEADER.length];
+        reader.getBytes(header);
+        assert (Arrays.equals(header, HEADER));
 
-        if (TinyUtils.readShort(data, pointer) != VERSION)
+        if (reader.getShort() != VERSION)
         {
             System.err.println("[Error]: Invalid TinyDatabase version.");
             return null;
         }
-        pointer += 2;
 
-        byte containerType = TinyUtils.readByte(data, pointer++);
+        byte containerType = reader.getByte();
         assert (containerType == CONTAINER_TYPE);
 
         TinyDatabase result = new TinyDatabase();
-        result.nameLength = TinyUtils.readShort(data, pointer);
-        pointer += 2;
-        result.name = TinyUtils.readString(data, pointer, result.nameLength).getBytes();
-        pointer += result.nameLength;
-
-        result.size = TinyUtils.readInt(data, pointer);
-        pointer += 4;
+        result.name = reader.getName();
+        result.nameLength = (short) result.name.length;
 
-        result.objectCount = TinyUtils.readShort(data, pointer);
-        pointer += 2;
+        result.size = reader.getInt();
 
+        result.objectCount = reader.getShort();
         for (int i = 0; i < result.objectCount; i++)
-        {
-            TinyObject object = TinyObject.Deserialize(data, pointer);
-            result.objects.add(object);
-            pointer += object.getSize();
-        }
+            result.objects.add(TinyObject.Read(reader));
 
         return result;
     }
@@ -109,30 +78,24 @@ class TinyDatabase extends TinyBase
 
     public static TinyDatabase DeserializeFromFile(String path)
     {
-        byte[] buffer = null;
-        try
+        try (TinyReader reader = new TinyReader(path))
         {
-            BufferedInputStream stream = new BufferedInputStream(new FileInputStream(path));
-            buffer = new byte[stream.available()];
-            stream.read(buffer);
-            stream.close();
+            return Read(reader);
         } catch (IOException e)
         {
             e.printStackTrace();
         }
 
-        return Deserialize(buffer);
+        return null;
     }
 
     public void serializeToFile(String path)
     {
-        byte[] data = new byte[getSize()];
-        getBytes(data, 0);
-        try
+        try (TinyWriter writer = new TinyWriter(path))
         {
-            BufferedOutputStream stream = new BufferedOutputStream(new FileOutputStream(path));
-            stream.write(data);
-            stream.close();
+            writer.beginDatabase(getName());
+            for (TinyObject object : objects)
+                writer.writeObject(object);
         } catch (IOException e)
         {
             e.printStackTrace();
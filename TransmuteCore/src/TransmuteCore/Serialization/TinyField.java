@@ -2,6 +2,8 @@ package TransmuteCore.Serialization;
 
 import static TransmuteCore.Serialization.TinyUtils.*;
 
+import java.io.IOException;
+
 class TinyField extends TinyBase
 {
 
@@ -63,6 +65,15 @@ class TinyField extends TinyBase
         return pointer;
     }
 
+    void write(TinyWriter writer) throws IOException
+    {
+        writer.putByte(CONTAINER_TYPE);
+        writer.putShort(nameLength);
+        writer.putBytes(name);
+        writer.putByte(type);
+        writer.putBytes(data);
+    }
+
     public int getSize()
     {
         assert (data.length == Type.getSize(type));
@@ -168,4 +179,20 @@ class TinyField extends TinyBase
         return result;
     }
 
+    static TinyField Read(TinyReader reader) throws IOException
+    {
+        byte containerType = reader.getByte();
+        assert (containerType == CONTAINER_TYPE);
+
+        TinyField result = new TinyField();
+        result.name = reader.getName();
+        result.nameLength = (short) result.name.length;
+
+        result.type = reader.getByte();
+
+        result.data = new byte[Type.getSize(result.type)];
+        reader.getBytes(result.data);
+        return result;
+    }
+
 }
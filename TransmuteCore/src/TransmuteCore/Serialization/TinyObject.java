@@ -2,6 +2,7 @@ package TransmuteCore.Serialization;
 
 import static TransmuteCore.Serialization.TinyUtils.*;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -107,6 +108,26 @@ class TinyObject extends TinyBase
         return pointer;
     }
 
+    void write(TinyWriter writer) throws IOException
+    {
+        writer.putByte(CONTAINER_TYPE);
+        writer.putShort(nameLength);
+        writer.putBytes(name);
+        writer.putInt(size);
+
+        writer.putShort(fieldCount);
+        for (TinyField field : fields)
+            field.write(writer);
+
+        writer.putShort(stringCount);
+        for (TinyString string : strings)
+            string.write(writer);
+
+        writer.putShort(arrayCount);
+        for (TinyArray array : arrays)
+            array.write(writer);
+    }
+
     static TinyObject Deserialize(byte[] data, int pointer)
     {
         byte containerType = data[pointer++];
@@ -156,4 +177,30 @@ class TinyObject extends TinyBase
         return result;
     }
 
+    static TinyObject Read(TinyReader reader) throws IOException
+    {
+        byte containerType = reader.getByte();
+        assert (containerType == CONTAINER_TYPE);
+
+        TinyObject result = new TinyObject();
+        result.name = reader.getName();
+        result.nameLength = (short) result.name.length;
+
+        result.size = reader.getInt();
+
+        result.fieldCount = reader.getShort();
+        for (int i = 0; i < result.fieldCount; i++)
+            result.fields.add(TinyField.Read(reader));
+
+        result.stringCount = reader.getShort();
+        for (int i = 0; i < result.stringCount; i++)
+            result.strings.add(TinyString.Read(reader));
+
+        result.arrayCount = reader.getShort();
+        for (int i = 0; i < result.arrayCount; i++)
+            result.arrays.add(TinyArray.Read(reader));
+
+        return result;
+    }
+
 }
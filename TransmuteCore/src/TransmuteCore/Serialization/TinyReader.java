@@ -0,0 +1,207 @@
+package TransmuteCore.Serialization;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@code TinyReader} reads a {@link TinyDatabase} from a file through a fixed,
+ * reused buffer, decoding primitives straight from it; arrays are copied a
+ * buffer-full at a time through views of the buffer.
+ * <br>
+ * Only the decoded objects are held in memory, never the file as a whole.
+ */
+class TinyReader implements AutoCloseable
+{
+
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(TinyWriter.BUFFER_SIZE);
+
+    TinyReader(String path) throws IOException
+    {
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        buffer.flip();
+    }
+
+    byte getByte() throws IOException
+    {
+        ensure(1);
+        return buffer.get();
+    }
+
+    short getShort() throws IOException
+    {
+        ensure(2);
+        return buffer.getShort();
+    }
+
+    char getChar() throws IOException
+    {
+        ensure(2);
+        return buffer.getChar();
+    }
+
+    int getInt() throws IOException
+    {
+        ensure(4);
+        return buffer.getInt();
+    }
+
+    long getLong() throws IOException
+    {
+        ensure(8);
+        return buffer.getLong();
+    }
+
+    float getFloat() throws IOException
+    {
+        ensure(4);
+        return buffer.getFloat();
+    }
+
+    double getDouble() throws IOException
+    {
+        ensure(8);
+        return buffer.getDouble();
+    }
+
+    boolean getBoolean() throws IOException
+    {
+        byte value = getByte();
+        assert (value == 0 || value == 1);
+        return value != 0;
+    }
+
+    void getBytes(byte[] dest) throws IOException
+    {
+        int offset = 0;
+        while (offset < dest.length)
+        {
+            ensure(1);
+            int count = Math.min(dest.length - offset, buffer.remaining());
+            buffer.get(dest, offset, count);
+            offset += count;
+        }
+    }
+
+    void getShorts(short[] dest) throws IOException
+    {
+        int offset = 0;
+        while (offset < dest.length)
+        {
+            ensure(2);
+            int count = Math.min(dest.length - offset, buffer.remaining() / 2);
+            buffer.asShortBuffer().get(dest, offset, count);
+            buffer.position(buffer.position() + count * 2);
+            offset += count;
+        }
+    }
+
+    void getChars(char[] dest) throws IOException
+    {
+        int offset = 0;
+        while (offset < dest.length)
+        {
+            ensure(2);
+            int count = Math.min(dest.length - offset, buffer.remaining() / 2);
+            buffer.asCharBuffer().get(dest, offset, count);
+            buffer.position(buffer.position() + count * 2);
+            offset += count;
+        }
+    }
+
+    void getInts(int[] dest) throws IOException
+    {
+        int offset = 0;
+        while (offset < dest.length)
+        {
+            ensure(4);
+            int count = Math.min(dest.length - offset, buffer.remaining() / 4);
+            buffer.asIntBuffer().get(dest, offset, count);
+            buffer.position(buffer.position() + count * 4);
+            offset += count;
+        }
+    }
+
+    void getLongs(long[] dest) throws IOException
+    {
+        int offset = 0;
+        while (offset < dest.length)
+        {
+            ensure(8);
+            int count = Math.min(dest.length - offset, buffer.remaining() / 8);
+            buffer.asLongBuffer().get(dest, offset, count);
+            buffer.position(buffer.position() + count * 8);
+            offset += count;
+        }
+    }
+
+    void getFloats(float[] dest) throws IOException
+    {
+        int offset = 0;
+        while (offset < dest.length)
+        {
+            ensure(4);
+            int count = Math.min(dest.length - offset, buffer.remaining() / 4);
+            buffer.asFloatBuffer().get(dest, offset, count);
+            buffer.position(buffer.position() + count * 4);
+            offset += count;
+        }
+    }
+
+    void getDoubles(double[] dest) throws IOException
+    {
+        int offset = 0;
+        while (offset < dest.length)
+        {
+            ensure(8);
+            int count = Math.min(dest.length - offset, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().get(dest, offset, count);
+            buffer.position(buffer.position() + count * 8);
+            offset += count;
+        }
+    }
+
+    void getBooleans(boolean[] dest) throws IOException
+    {
+        for (int i = 0; i < dest.length; i++) dest[i] = getBoolean();
+    }
+
+    /**
+     * Reads a name: its length as a short, then its bytes.
+     */
+    byte[] getName() throws IOException
+    {
+        byte[] name = new byte[getShort()];
+        getBytes(name);
+        return name;
+    }
+
+    /**
+     * Refills the buffer from the file until it holds a given number of bytes.
+     */
+    private void ensure(int bytes) throws IOException
+    {
+        if (buffer.remaining() >= bytes) return;
+
+        buffer.compact();
+        while (buffer.position() < bytes)
+        {
+            if (channel.read(buffer) < 0)
+            {
+                buffer.flip();
+                throw new EOFException("[TinyReader]: Unexpected end of file.");
+            }
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+}
@@ -2,6 +2,8 @@ package TransmuteCore.Serialization;
 
 import static TransmuteCore.Serialization.TinyUtils.*;
 
+import java.io.IOException;
+
 class TinyString extends TinyBase
 {
 
@@ -35,6 +37,16 @@ class TinyString extends TinyBase
         return pointer;
     }
 
+    void write(TinyWriter writer) throws IOException
+    {
+        writer.putByte(CONTAINER_TYPE);
+        writer.putShort(nameLength);
+        writer.putBytes(name);
+        writer.putInt(size);
+        writer.putInt(count);
+        writer.putChars(characters);
+    }
+
     public int getSize()
     {
         return size;
@@ -79,4 +91,21 @@ class TinyString extends TinyBase
         return result;
     }
 
+    static TinyString Read(TinyReader reader) throws IOException
+    {
+        byte containerType = reader.getByte();
+        assert (containerType == CONTAINER_TYPE);
+
+        TinyString result = new TinyString();
+        result.name = reader.getName();
+        result.nameLength = (short) result.name.length;
+
+        result.size = reader.getInt();
+        result.count = reader.getInt();
+
+        result.characters = new char[result.count];
+        reader.getChars(result.characters);
+        return result;
+    }
+
 }
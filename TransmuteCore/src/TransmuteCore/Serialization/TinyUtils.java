@@ -1,7 +1,5 @@
 package TransmuteCore.Serialization;
 
-import java.nio.ByteBuffer;
-
 class TinyUtils
 {
 
@@ -210,22 +208,23 @@ class TinyUtils
 
     static short readShort(byte[] src, int pointer)
     {
-        return ByteBuffer.wrap(src, pointer, 2).getShort();
+        return (short) (((src[pointer] & 0xff) << 8) | (src[pointer + 1] & 0xff));
     }
 
     static char readChar(byte[] src, int pointer)
     {
-        return ByteBuffer.wrap(src, pointer, 2).getChar();
+        return (char) (((src[pointer] & 0xff) << 8) | (src[pointer + 1] & 0xff));
     }
 
     static int readInt(byte[] src, int pointer)
     {
-        return ByteBuffer.wrap(src, pointer, 4).getInt();
+        return ((src[pointer] & 0xff) << 24) | ((src[pointer + 1] & 0xff) << 16)
+                | ((src[pointer + 2] & 0xff) << 8) | (src[pointer + 3] & 0xff);
     }
 
     static long readLong(byte[] src, int pointer)
     {
-        return ByteBuffer.wrap(src, pointer, 8).getLong();
+        return ((long) readInt(src, pointer) << 32) | (readInt(src, pointer + 4) & 0xffffffffL);
     }
 
     static float readFloat(byte[] src, int pointer)
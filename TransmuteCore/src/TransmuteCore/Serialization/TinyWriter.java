@@ -0,0 +1,295 @@
+package TransmuteCore.Serialization;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@code TinyWriter} streams a {@link TinyDatabase} to a file through a fixed
+ * buffer, so the database is never held in memory as a whole.
+ * <br>
+ * Objects are written one at a time after {@link #beginDatabase(String)}; the
+ * size and object count of the database are back-patched into its header by
+ * {@link #close()}, so objects can be produced while writing. Arrays are
+ * copied a buffer-full at a time through views of the buffer.
+ */
+class TinyWriter implements AutoCloseable
+{
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private ByteBuffer patch = ByteBuffer.allocate(4);
+    private long flushed; //Number of bytes written to the channel
+
+    private long databaseStart = -1; //Position of the database, or -1 if none was begun
+    private long sizePosition; //Position of the database's size
+    private long countPosition; //Position of the database's object count
+    private int objectCount; //Number of objects written
+
+    TinyWriter(String path) throws IOException
+    {
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Writes the header of a database, whose size and object count are
+     * filled in by {@link #close()}.
+     *
+     * @param name The name of the database.
+     */
+    void beginDatabase(String name) throws IOException
+    {
+        databaseStart = getPosition();
+        putBytes(TinyDatabase.HEADER);
+        putShort(TinyDatabase.VERSION);
+        putByte(TinyDatabase.CONTAINER_TYPE);
+        putName(name.getBytes());
+
+        sizePosition = getPosition();
+        putInt(0);
+        countPosition = getPosition();
+        putShort((short) 0);
+    }
+
+    /**
+     * Writes an object of the database begun by {@link #beginDatabase(String)}.
+     *
+     * @param object The object.
+     */
+    void writeObject(TinyObject object) throws IOException
+    {
+        assert (databaseStart >= 0);
+
+        object.write(this);
+        objectCount++;
+    }
+
+    /**
+     * @return Number of bytes written so far.
+     */
+    long getPosition()
+    {
+        return flushed + buffer.position();
+    }
+
+    void putName(byte[] name) throws IOException
+    {
+        putShort((short) name.length);
+        putBytes(name);
+    }
+
+    void putByte(byte value) throws IOException
+    {
+        ensure(1);
+        buffer.put(value);
+    }
+
+    void putShort(short value) throws IOException
+    {
+        ensure(2);
+        buffer.putShort(value);
+    }
+
+    void putChar(char value) throws IOException
+    {
+        ensure(2);
+        buffer.putChar(value);
+    }
+
+    void putInt(int value) throws IOException
+    {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    void putLong(long value) throws IOException
+    {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    void putFloat(float value) throws IOException
+    {
+        ensure(4);
+        buffer.putFloat(value);
+    }
+
+    void putDouble(double value) throws IOException
+    {
+        ensure(8);
+        buffer.putDouble(value);
+    }
+
+    void putBoolean(boolean value) throws IOException
+    {
+        putByte((byte) (value ? 1 : 0));
+    }
+
+    void putBytes(byte[] src) throws IOException
+    {
+        int offset = 0;
+        while (offset < src.length)
+        {
+            ensure(1);
+            int count = Math.min(src.length - offset, buffer.remaining());
+            buffer.put(src, offset, count);
+            offset += count;
+        }
+    }
+
+    void putShorts(short[] src) throws IOException
+    {
+        int offset = 0;
+        while (offset < src.length)
+        {
+            ensure(2);
+            int count = Math.min(src.length - offset, buffer.remaining() / 2);
+            buffer.asShortBuffer().put(src, offset, count);
+            buffer.position(buffer.position() + count * 2);
+            offset += count;
+        }
+    }
+
+    void putChars(char[] src) throws IOException
+    {
+        int offset = 0;
+        while (offset < src.length)
+        {
+            ensure(2);
+            int count = Math.min(src.length - offset, buffer.remaining() / 2);
+            buffer.asCharBuffer().put(src, offset, count);
+            buffer.position(buffer.position() + count * 2);
+            offset += count;
+        }
+    }
+
+    void putInts(int[] src) throws IOException
+    {
+        int offset = 0;
+        while (offset < src.length)
+        {
+            ensure(4);
+            int count = Math.min(src.length - offset, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(src, offset, count);
+            buffer.position(buffer.position() + count * 4);
+            offset += count;
+        }
+    }
+
+    void putLongs(long[] src) throws IOException
+    {
+        int offset = 0;
+        while (offset < src.length)
+        {
+            ensure(8);
+            int count = Math.min(src.length - offset, buffer.remaining() / 8);
+            buffer.asLongBuffer().put(src, offset, count);
+            buffer.position(buffer.position() + count * 8);
+            offset += count;
+        }
+    }
+
+    void putFloats(float[] src) throws IOException
+    {
+        int offset = 0;
+        while (offset < src.length)
+        {
+            ensure(4);
+            int count = Math.min(src.length - offset, buffer.remaining() / 4);
+            buffer.asFloatBuffer().put(src, offset, count);
+            buffer.position(buffer.position() + count * 4);
+            offset += count;
+        }
+    }
+
+    void putDoubles(double[] src) throws IOException
+    {
+        int offset = 0;
+        while (offset < src.length)
+        {
+            ensure(8);
+            int count = Math.min(src.length - offset, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().put(src, offset, count);
+            buffer.position(buffer.position() + count * 8);
+            offset += count;
+        }
+    }
+
+    void putBooleans(boolean[] src) throws IOException
+    {
+        for (boolean value : src) putBoolean(value);
+    }
+
+    /**
+     * Overwrites a short written earlier, in the buffer if it was not flushed yet.
+     */
+    private void patchShort(long position, short value) throws IOException
+    {
+        if (position >= flushed)
+        {
+            buffer.putShort((int) (position - flushed), value);
+            return;
+        }
+
+        patch.clear();
+        patch.putShort(value).flip();
+        while (patch.hasRemaining()) channel.write(patch, position + patch.position());
+    }
+
+    /**
+     * Overwrites an int written earlier, in the buffer if it was not flushed yet.
+     */
+    private void patchInt(long position, int value) throws IOException
+    {
+        if (position >= flushed)
+        {
+            buffer.putInt((int) (position - flushed), value);
+            return;
+        }
+
+        patch.clear();
+        patch.putInt(value).flip();
+        while (patch.hasRemaining()) channel.write(patch, position + patch.position());
+    }
+
+    /**
+     * Flushes the buffer if it cannot hold a given number of bytes.
+     */
+    private void ensure(int bytes) throws IOException
+    {
+        if (buffer.remaining() < bytes) flush();
+    }
+
+    private void flush() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining()) flushed += channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Back-patches the header of the database, if one was begun, then writes
+     * the rest of the buffer and closes the file.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            if (databaseStart >= 0)
+            {
+                patchInt(sizePosition, (int) (getPosition() - databaseStart));
+                patchShort(countPosition, (short) objectCount);
+            }
+            flush();
+        } finally
+        {
+            channel.close();
+        }
+    }
+}
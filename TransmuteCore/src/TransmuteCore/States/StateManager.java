@@ -7,6 +7,7 @@ import TransmuteCore.GameEngine.Manager;
 import TransmuteCore.GameEngine.Interfaces.Cortex;
 import TransmuteCore.Graphics.Context;
 import TransmuteCore.System.Error;
+import TransmuteCore.System.Profiler;
 
 /**
  * {@code GameStateManager} is the state manager class.
@@ -44,7 +45,17 @@ public class StateManager implements Cortex
     @Override
     public void render(Manager manager, Context context)
     {
+        Profiler.begin(Profiler.STATE);
         peek().render(manager, context);
+        Profiler.end(Profiler.STATE);
+    }
+
+    @Override
+    public void render(Manager manager, Context context, double alpha)
+    {
+        Profiler.begin(Profiler.STATE);
+        peek().render(manager, context, alpha);
+        Profiler.end(Profiler.STATE);
     }
 
 
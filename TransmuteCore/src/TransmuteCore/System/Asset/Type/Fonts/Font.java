@@ -6,6 +6,7 @@ import java.util.HashMap;
 
 import TransmuteCore.Graphics.Bitmap;
 import TransmuteCore.Graphics.Context;
+import TransmuteCore.Graphics.ScaledBitmapCache;
 import TransmuteCore.Graphics.Sprites.Spritesheet;
 import TransmuteCore.System.Asset.Type.Images.Image;
 import TransmuteCore.System.Error;
@@ -185,7 +186,7 @@ public class Font extends Asset
             Bitmap glyph = ((Spritesheet) target).crop(index % columns, index / columns);
             if (scale != 1.0f)
             {
-                glyph = glyph.getScaled(scale);
+                glyph = ScaledBitmapCache.get(glyph, scale);
                 glyphWidth = (int) ((float) glyphWidth * scale);
                 glyphSink = (int) ((float) glyphSink * scale);
                 glyphHeight = (int) ((float) glyphHeight * scale);
@@ -0,0 +1,333 @@
+package TransmuteCore.System;
+
+import java.util.Arrays;
+
+import TransmuteCore.Graphics.Context;
+
+/**
+ * {@code Profiler} is the engine's frame timing profiler.
+ * <br>
+ * The game loop times each phase of a frame (update, render, present, sleep)
+ * and the engine's render hierarchy times its states, levels and objects.
+ * Timings of the last {@link #HISTORY} frames are kept in fixed-size ring buffers
+ * from which percentiles are computed, alongside per-frame counters such as
+ * draw calls and pixels blitted.
+ * <p>
+ * Recording allocates nothing, and every method returns immediately while the
+ * profiler is disabled. Phases are timed inclusively: a phase timed inside another
+ * one is also part of the outer phase's time. A phase must not be nested within itself.
+ * The profiler is meant to be used from the game loop thread only.
+ */
+public class Profiler
+{
+    public static final int UPDATE = 0x0; //Game updates
+    public static final int RENDER = 0x1; //Game rendering, including rasterization
+    public static final int PRESENT = 0x2; //Copying the context to the screen
+    public static final int SLEEP = 0x3; //Waiting for the next update or frame
+    public static final int STATE = 0x4; //Rendering of the current state
+    public static final int LEVEL = 0x5; //Rendering of levels
+    public static final int OBJECTS = 0x6; //Rendering of level objects
+    public static final int FRAME = 0x7; //Time between two frames (game loop iterations)
+    private static final int PHASES = 8;
+
+    public static final int DRAW_CALLS = 0x0; //Bitmaps and rectangles drawn to the context
+    public static final int PIXELS = 0x1; //Pixels covered by draw calls, after clipping
+    public static final int OBJECTS_UPDATED = 0x2; //Level objects updated
+    private static final int COUNTERS = 3;
+
+    /**
+     * Number of frames kept in the ring buffers
+     */
+    public static final int HISTORY = 128;
+
+    private static final int GRAPH_HEIGHT = 32; //Height of the overlay graph, in pixels
+    private static final int STATS_INTERVAL = 30; //Frames between two refreshes of the overlay text
+    private static final String[] PHASE_NAMES = {"update", "render", "present", "sleep", "state", "level", "objects", "frame"};
+
+    private static boolean enabled; //Whether timings and counters are recorded
+    private static boolean overlayVisible; //Whether the engine draws the overlay
+
+    private static final long[][] history = new long[PHASES][HISTORY]; //Per-frame phase timings, in nanoseconds
+    private static final long[] started = new long[PHASES]; //Start time of the phases currently being timed
+    private static final long[] current = new long[PHASES]; //Phase timings of the frame in progress
+    private static final long[] counters = new long[COUNTERS]; //Counters of the frame in progress
+    private static final long[] lastCounters = new long[COUNTERS]; //Counters of the last completed frame
+    private static final long[] sorted = new long[HISTORY]; //Sorted copy of a phase's history
+    private static int sortedPhase = -1; //Phase held by 'sorted', or -1 if stale
+    private static int frames; //Number of completed frames, saturating at HISTORY
+    private static int next; //Index of the next entry in the ring buffers
+    private static long lastFrameEnd; //Time at which the last frame completed
+
+    private static final String[] overlayText = new String[5]; //Cached overlay text lines
+    private static final StringBuilder builder = new StringBuilder(64);
+    private static int statsAge = STATS_INTERVAL; //Frames since the overlay text was refreshed
+
+    /**
+     * Starts timing a phase.
+     *
+     * @param phase The phase, e.g. {@code Profiler.RENDER}.
+     */
+    public static void begin(int phase)
+    {
+        if (!enabled) return;
+
+        started[phase] = System.nanoTime();
+    }
+
+    /**
+     * Stops timing a phase, adding the elapsed time to the frame in progress.
+     *
+     * @param phase The phase, e.g. {@code Profiler.RENDER}.
+     */
+    public static void end(int phase)
+    {
+        if (!enabled || started[phase] == 0) return;
+
+        current[phase] += System.nanoTime() - started[phase];
+        started[phase] = 0;
+    }
+
+    /**
+     * Increments a counter of the frame in progress.
+     *
+     * @param counter The counter, e.g. {@code Profiler.DRAW_CALLS}.
+     * @param amount  The amount to add.
+     */
+    public static void count(int counter, long amount)
+    {
+        if (!enabled) return;
+
+        counters[counter] += amount;
+    }
+
+    /**
+     * Completes the frame in progress, storing its timings in the ring buffers.
+     * Called by the game loop once per iteration, whether or not it rendered.
+     */
+    public static void endFrame()
+    {
+        if (!enabled) return;
+
+        long now = System.nanoTime();
+        current[FRAME] = lastFrameEnd == 0 ? 0 : now - lastFrameEnd;
+        lastFrameEnd = now;
+
+        for (int phase = 0; phase < PHASES; phase++)
+        {
+            history[phase][next] = current[phase];
+            current[phase] = 0;
+        }
+        System.arraycopy(counters, 0, lastCounters, 0, COUNTERS);
+        Arrays.fill(counters, 0);
+
+        next = (next + 1) % HISTORY;
+        if (frames < HISTORY) frames++;
+        sortedPhase = -1;
+        statsAge++;
+    }
+
+    /**
+     * Supplies a percentile of a phase's timings over the recorded frames.
+     *
+     * @param phase      The phase, e.g. {@code Profiler.RENDER}.
+     * @param percentile The percentile (0 - 100), e.g. 99 for p99 or 100 for the maximum.
+     * @return The timing, in nanoseconds, or 0 if no frame was recorded.
+     */
+    public static long getPercentile(int phase, int percentile)
+    {
+        if (frames == 0) return 0;
+
+        if (sortedPhase != phase)
+        {
+            for (int i = 0; i < frames; i++) sorted[i] = history[phase][i];
+            Arrays.sort(sorted, 0, frames);
+            sortedPhase = phase;
+        }
+
+        int rank = (int) Math.ceil(percentile / 100d * frames) - 1;
+        return sorted[Math.max(0, Math.min(frames - 1, rank))];
+    }
+
+    /**
+     * Supplies a phase's timing of a recorded frame.
+     *
+     * @param phase The phase, e.g. {@code Profiler.RENDER}.
+     * @param age   Age of the frame, 0 being the last completed frame.
+     * @return The timing, in nanoseconds, or 0 if the frame was not recorded.
+     */
+    public static long getTiming(int phase, int age)
+    {
+        if (age < 0 || age >= frames) return 0;
+
+        return history[phase][(next - 1 - age + HISTORY) % HISTORY];
+    }
+
+    /**
+     * @param counter The counter, e.g. {@code Profiler.DRAW_CALLS}.
+     * @return The counter's value in the last completed frame.
+     */
+    public static long getCounter(int counter)
+    {
+        return lastCounters[counter];
+    }
+
+    /**
+     * @return The number of frames currently held by the ring buffers.
+     */
+    public static int getFrameCount()
+    {
+        return frames;
+    }
+
+    /**
+     * Draws a compact graph of the recorded frame timings with their percentiles
+     * and counters. Each column is a frame, stacking update (green), render (blue)
+     * and present (yellow) time over the frame's total time (grey); the line marks
+     * {@code budget}. The text uses the context's font and is refreshed every
+     * {@code STATS_INTERVAL} frames.
+     *
+     * @param ctx    The Game render 'canvas'.
+     * @param x      x-coordinate on screen.
+     * @param y      y-coordinate on screen.
+     * @param budget Frame time mapped to two thirds of the graph height, in nanoseconds.
+     */
+    public static void renderOverlay(Context ctx, int x, int y, long budget)
+    {
+        if (!enabled) return;
+
+        long scale = Math.max(1, budget * 3 / 2 / GRAPH_HEIGHT);
+        ctx.renderFilledRectangle(x, y, HISTORY + 4, GRAPH_HEIGHT + 4, 0xB0000000);
+
+        int bottom = y + 2 + GRAPH_HEIGHT;
+        for (int age = 0; age < frames; age++)
+        {
+            int column = x + 2 + HISTORY - 1 - age;
+            int top = bottom;
+            top = renderBar(ctx, column, top, bottom, getTiming(UPDATE, age) / scale, 0xFF40C040);
+            top = renderBar(ctx, column, top, bottom, getTiming(RENDER, age) / scale, 0xFF4080F0);
+            top = renderBar(ctx, column, top, bottom, getTiming(PRESENT, age) / scale, 0xFFF0D040);
+            renderBar(ctx, column, top, bottom, getTiming(FRAME, age) / scale - (bottom - top), 0xFF606060);
+        }
+        ctx.renderFilledRectangle(x + 2, bottom - (int) (budget / scale), HISTORY, 1, 0xFFF04040);
+
+        if (statsAge >= STATS_INTERVAL)
+        {
+            statsAge = 0;
+            overlayText[0] = formatPhase(FRAME);
+            overlayText[1] = formatPhase(UPDATE);
+            overlayText[2] = formatPhase(RENDER);
+            overlayText[3] = formatPhase(PRESENT);
+            builder.setLength(0);
+            builder.append("draws ").append(lastCounters[DRAW_CALLS])
+                    .append(" px ").append(lastCounters[PIXELS])
+                    .append(" objs ").append(lastCounters[OBJECTS_UPDATED]);
+            overlayText[4] = builder.toString();
+        }
+
+        if (ctx.getFont() == null) return;
+        for (int i = 0; i < overlayText.length; i++)
+        {
+            if (overlayText[i] != null) ctx.renderText(overlayText[i], x, bottom + 4 + i * 10, 0xFFFFFFFF);
+        }
+    }
+
+    /**
+     * Draws one segment of a stacked graph column.
+     *
+     * @return The top of the drawn segment.
+     */
+    private static int renderBar(Context ctx, int column, int top, int bottom, long length, int color)
+    {
+        int height = (int) Math.max(0, Math.min(length, top - (bottom - GRAPH_HEIGHT)));
+        if (height > 0) ctx.renderFilledRectangle(column, top - height, 1, height, color);
+
+        return top - height;
+    }
+
+    /**
+     * Formats the percentiles of a phase as milliseconds.
+     */
+    private static String formatPhase(int phase)
+    {
+        builder.setLength(0);
+        builder.append(PHASE_NAMES[phase]);
+        appendMillis(" p50 ", getPercentile(phase, 50));
+        appendMillis(" p95 ", getPercentile(phase, 95));
+        appendMillis(" p99 ", getPercentile(phase, 99));
+        appendMillis(" max ", getPercentile(phase, 100));
+        return builder.toString();
+    }
+
+    /**
+     * Appends a label and a duration in milliseconds with two decimals.
+     */
+    private static void appendMillis(String label, long nanos)
+    {
+        long hundredths = nanos / 10000;
+        builder.append(label).append(hundredths / 100).append('.');
+        if (hundredths % 100 < 10) builder.append('0');
+        builder.append(hundredths % 100);
+    }
+
+    /**
+     * Discards every recorded timing and counter.
+     */
+    public static void reset()
+    {
+        for (long[] phase : history) Arrays.fill(phase, 0);
+        Arrays.fill(started, 0);
+        Arrays.fill(current, 0);
+        Arrays.fill(counters, 0);
+        Arrays.fill(lastCounters, 0);
+        Arrays.fill(overlayText, null);
+        frames = 0;
+        next = 0;
+        lastFrameEnd = 0;
+        sortedPhase = -1;
+        statsAge = STATS_INTERVAL;
+    }
+
+    /**
+     * Enables or disables recording. Disabling keeps the recorded frames.
+     *
+     * @param enabled Recording flag.
+     */
+    public static void setEnabled(boolean enabled)
+    {
+        if (!enabled) Arrays.fill(started, 0);
+        lastFrameEnd = 0;
+        Profiler.enabled = enabled;
+    }
+
+    /**
+     * @return Whether timings and counters are recorded.
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the engine draws the overlay on top of every frame.
+     * Showing the overlay also enables recording.
+     *
+     * @param visible Overlay flag.
+     */
+    public static void setOverlayVisible(boolean visible)
+    {
+        if (visible && !enabled) setEnabled(true);
+        overlayVisible = visible;
+    }
+
+    /**
+     * @return Whether the engine draws the overlay on top of every frame.
+     */
+    public static boolean isOverlayVisible()
+    {
+        return overlayVisible;
+    }
+
+    private Profiler()
+    {
+    }
+}
@@ -44,6 +44,85 @@ public class Vector2i
         return Math.sqrt(dx * dx + dy * dy);
     }
 
+    /**
+     * Calculates the squared distance between two vectors, which avoids a square root
+     * when distances are only compared.
+     *
+     * @param start The starting vector.
+     * @param goal  The ending vector.
+     * @return The squared distance between 'start' and 'goal'.
+     */
+    public static long getDistanceSquared(Vector2i start, Vector2i goal)
+    {
+        long dx = start.x - goal.x;
+        long dy = start.y - goal.y;
+
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Packs two coordinates into a single long, e.g. to use a location as a hash key
+     * without allocating a vector.
+     *
+     * @param x The width-position.
+     * @param y The height-position.
+     * @return The packed coordinates.
+     */
+    public static long pack(int x, int y)
+    {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param packed Coordinates packed by {@link #pack(int, int)}.
+     * @return The width-position of packed coordinates.
+     */
+    public static int unpackX(long packed)
+    {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * @param packed Coordinates packed by {@link #pack(int, int)}.
+     * @return The height-position of packed coordinates.
+     */
+    public static int unpackY(long packed)
+    {
+        return (int) packed;
+    }
+
+    /**
+     * @return The coordinates of this vector packed into a single long.
+     */
+    public long pack()
+    {
+        return pack(x, y);
+    }
+
+    /**
+     * Method used to change the positions to packed coordinates.
+     *
+     * @param packed Coordinates packed by {@link #pack(int, int)}.
+     * @return This vector.
+     */
+    public Vector2i set(long packed)
+    {
+        setPositions(unpackX(packed), unpackY(packed));
+        return this;
+    }
+
+    /**
+     * Method used to change the positions to those of another vector.
+     *
+     * @param tempVector The vector to copy.
+     * @return This vector.
+     */
+    public Vector2i set(Vector2i tempVector)
+    {
+        setPositions(tempVector.x, tempVector.y);
+        return this;
+    }
+
     /**
      * Method used to add two vectors together.
      *
@@ -175,19 +254,26 @@ public class Vector2i
     }
 
     /**
+     * Zeroes the vector in place.
+     *
      * @return The zeroed (0, 0) vector.
      */
     public Vector2i zero()
     {
-        return new Vector2i(0, 0);
+        setPositions(0, 0);
+        return this;
     }
 
     /**
+     * Normalizes the vector in place. A vector of length 0 is left unchanged.
+     *
      * @return The normalized vector.
      */
     public Vector2i normalize()
     {
-        return new Vector2i(x / length(), y / length());
+        int length = length();
+        if (length != 0) setPositions(x / length, y / length);
+        return this;
     }
 
     /**
@@ -223,6 +309,12 @@ public class Vector2i
         return false;
     }
 
+    @Override
+    public int hashCode()
+    {
+        return 31 * x + y;
+    }
+
     /**
      * Method used to change the pre-existing width and height positions.
      *